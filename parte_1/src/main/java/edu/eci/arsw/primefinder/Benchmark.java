@@ -0,0 +1,119 @@
+package edu.eci.arsw.primefinder;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Times the trial-division path of {@link PrimeFinderThread} against the
+ * {@link SegmentedSieve} on the same range, without printing the primes. Trial
+ * division runs twice: split into equal static chunks as {@code Control} used to,
+ * and with blocks claimed from a {@link RangeCursor}; for both it reports when
+ * the first and the last thread finished.
+ *
+ * <p>Usage: {@code Benchmark [max] [threads] [collect]}; the range is [0, max] (default
+ * 30000000) and threads defaults to the available processors. Trial division is skipped
+ * above {@code Integer.MAX_VALUE - 1}, which it cannot reach. With {@code collect} the
+ * sieve also keeps every prime in a {@link PrimeStore} and reports its size.
+ */
+public class Benchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        long max = args.length > 0 ? Long.parseLong(args[0]) : 30000000L;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        boolean collect = args.length > 2 && "collect".equals(args[2]);
+        System.out.println("range [0, " + max + "], threads=" + threads);
+
+        long trial = -1;
+        if (max < Integer.MAX_VALUE) {
+            long t0 = System.nanoTime();
+            trial = trialDivision((int) max + 1, threads, 0);
+            report("trial division (static chunks)", trial, System.nanoTime() - t0);
+            t0 = System.nanoTime();
+            long dynamic = trialDivision((int) max + 1, threads, Integer.getInteger("primes.block", 10000));
+            report("trial division (dynamic blocks)", dynamic, System.nanoTime() - t0);
+        }
+
+        long t0 = System.nanoTime();
+        SegmentedSieve sieve = new SegmentedSieve(0, max + 1, threads, new PauseControl(), collect);
+        sieve.run();
+        report("segmented sieve (" + sieve.segments() + " segments)", sieve.found(), System.nanoTime() - t0);
+        if (collect) {
+            PrimeStore primes = sieve.primes();
+            System.out.printf("stored %d primes in %.1f MB (%.2f bytes/prime)%n", primes.size(),
+                    primes.bytes() / 1e6, (double) primes.bytes() / Math.max(1, primes.size()));
+            long streamed = streamIncreasing(primes);
+            if (streamed != sieve.found()) {
+                System.out.println("MISMATCH: streamed " + streamed + " increasing primes, counted " + sieve.found());
+            }
+        }
+
+        if (trial >= 0 && trial != sieve.found()) {
+            System.out.println("MISMATCH: trial division found " + trial + ", sieve found " + sieve.found());
+        }
+    }
+
+    /**
+     * Counts primes in [0, to) with {@link PrimeFinderThread#isPrime(int)}, split into equal
+     * static chunks when {@code block} is 0, else claimed {@code block} numbers at a time.
+     */
+    private static long trialDivision(final int to, int threads, int block) throws InterruptedException {
+        final AtomicLong count = new AtomicLong();
+        final long[] finished = new long[threads];
+        final long start = System.nanoTime();
+        Thread[] workers = new Thread[threads];
+        RangeCursor shared = block > 0 ? new RangeCursor(0, to, block) : null;
+        int chunk = to / threads;
+        for (int t = 0; t < threads; t++) {
+            final int a = t * chunk;
+            final int b = t == threads - 1 ? to : a + chunk;
+            final RangeCursor ranges = shared != null ? shared : new RangeCursor(a, b, Math.max(1, b - a));
+            final int id = t;
+            workers[t] = new Thread() {
+                @Override
+                public void run() {
+                    long c = 0;
+                    int first;
+                    while ((first = ranges.claim()) >= 0) {
+                        for (int i = first, end = ranges.end(first); i < end; i++) {
+                            if (PrimeFinderThread.isPrime(i)) {
+                                c++;
+                            }
+                        }
+                    }
+                    count.addAndGet(c);
+                    finished[id] = System.nanoTime() - start;
+                }
+            };
+            workers[t].start();
+        }
+        for (Thread w : workers) {
+            w.join();
+        }
+        long first = Long.MAX_VALUE, last = 0;
+        for (long f : finished) {
+            first = Math.min(first, f);
+            last = Math.max(last, f);
+        }
+        System.out.printf("  threads finished between %.3fs and %.3fs%n", first / 1e9, last / 1e9);
+        return count.get();
+    }
+
+    /**
+     * Streams {@code primes} and returns how many there are, or -1 if they do not increase.
+     */
+    private static long streamIncreasing(PrimeStore primes) {
+        long n = 0;
+        long previous = 1;
+        for (PrimeStore.Cursor c = primes.cursor(); c.hasNext(); n++) {
+            long p = c.next();
+            if (p <= previous) {
+                return -1;
+            }
+            previous = p;
+        }
+        return n;
+    }
+
+    private static void report(String engine, long primes, long nanos) {
+        System.out.printf("%-40s primes=%d time=%.3fs%n", engine, primes, nanos / 1e9);
+    }
+}
@@ -4,25 +4,37 @@ import java.util.Scanner;
 
 public class Control extends Thread {
 
-    private final static int NTHREADS = 3;
-    private final static int MAXVALUE = 30000000;
+    private final static int NTHREADS = Integer.getInteger("primes.threads", Runtime.getRuntime().availableProcessors());
+    // Numbers a thread claims at a time; small enough that the costly end of the range is shared
+    private final static int BLOCK = Integer.getInteger("primes.block", 10000);
+    private final static long MAXVALUE = Long.getLong("primes.max", 30000000L);
     private final static int TMILISECONDS = 5000;
 
-    private final int NDATA = MAXVALUE / NTHREADS;
+    // "sieve" uses the SegmentedSieve (any range up to 2^50); "trial" the original threads
+    private final static boolean SIEVE = "sieve".equals(System.getProperty("primes.engine", "trial"));
 
     private PrimeFinderThread[] pft;
+    private SegmentedSieve sieve;
+    private Thread sieveThread;
     private PauseControl pauseControl;
 
     private Control() {
         super();
         pauseControl = new PauseControl();
+        if (SIEVE) {
+            sieve = new SegmentedSieve(0, MAXVALUE + 1, NTHREADS, pauseControl);
+            sieveThread = new Thread(sieve, "segmented-sieve");
+            pft = new PrimeFinderThread[0];
+            return;
+        }
+        if (MAXVALUE >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("trial division only reaches " + (Integer.MAX_VALUE - 1) + "; use -Dprimes.engine=sieve");
+        }
+        RangeCursor ranges = new RangeCursor(0, (int) MAXVALUE + 1, BLOCK);
         pft = new PrimeFinderThread[NTHREADS];
-
-        int i;
-        for (i = 0; i < NTHREADS - 1; i++) {
-            pft[i] = new PrimeFinderThread(i * NDATA, (i + 1) * NDATA, pauseControl);
+        for (int i = 0; i < NTHREADS; i++) {
+            pft[i] = new PrimeFinderThread(ranges, pauseControl);
         }
-        pft[i] = new PrimeFinderThread(i * NDATA, MAXVALUE + 1, pauseControl);
     }
 
     public static Control newControl() {
@@ -34,6 +46,9 @@ public class Control extends Thread {
         for (PrimeFinderThread thread : pft) {
             thread.start();
         }
+        if (sieveThread != null) {
+            sieveThread.start();
+        }
 
         try (Scanner scanner = new Scanner(System.in)) {
             while (true) {
@@ -43,7 +58,7 @@ public class Control extends Thread {
                 pauseControl.setPaused(true);
 
                 // Mostrar conteo de primos
-                int totalPrimes = 0;
+                long totalPrimes = sieve != null ? sieve.found() : 0;
                 for (PrimeFinderThread thread : pft) {
                     totalPrimes += thread.getPrimes().size();
                 }
@@ -55,7 +70,7 @@ public class Control extends Thread {
                 pauseControl.setPaused(false);
 
                 // Verificar si todos los hilos terminaron
-                boolean allFinished = true;
+                boolean allFinished = sieveThread == null || !sieveThread.isAlive();
                 for (PrimeFinderThread thread : pft) {
                     if (thread.isAlive()) {
                         allFinished = false;
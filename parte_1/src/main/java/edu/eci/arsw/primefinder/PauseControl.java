@@ -6,13 +6,15 @@ package edu.eci.arsw.primefinder;
  * be temporarily halted and resumed later without terminating it.
  * 
  * <p>It uses a boolean flag {@code paused} to track the pause state and
- * {@code wait/notifyAll} for thread coordination.
+ * {@code wait/notifyAll} for thread coordination. The flag is also volatile so
+ * that {@link #pauseIfNeeded()}, called for every number, returns without taking
+ * the lock while not paused instead of making all workers queue on it.
  */
 public class PauseControl {
     /**
      * Indicates whether the execution is currently paused.
      */
-    private boolean paused = false;
+    private volatile boolean paused = false;
 
     /**
      * Causes the calling thread to wait if the pause flag is set.
@@ -24,9 +26,15 @@ public class PauseControl {
      * 
      * @throws InterruptedException if the thread is interrupted while waiting
      */
-    public synchronized void pauseIfNeeded() throws InterruptedException {
-        while (paused) {
-            wait();
+    public void pauseIfNeeded() throws InterruptedException {
+        if (!paused) {
+            return;
+        }
+        synchronized (this) {
+            // Re-checked under the lock, so a resume between the two checks is not missed
+            while (paused) {
+                wait();
+            }
         }
     }
 
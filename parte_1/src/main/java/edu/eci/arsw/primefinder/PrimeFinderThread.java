@@ -1,28 +1,21 @@
 package edu.eci.arsw.primefinder;
 
-import java.util.LinkedList;
-import java.util.List;
-
 /**
  * The {@code PrimeFinderThread} class extends {@code Thread} and is responsible
- * for finding all prime numbers within a given range [a, b). It supports pausing
+ * for finding the prime numbers in the blocks it claims from a shared
+ * {@link RangeCursor}, or within a fixed range [a, b). It supports pausing
  * and resuming execution via a {@link PauseControl} object.
  */
 public class PrimeFinderThread extends Thread {
     /**
-     * Start of the range (inclusive).
-     */
-    int a;
-
-    /**
-     * End of the range (exclusive).
+     * Source of the blocks of numbers to check.
      */
-    int b;
+    private final RangeCursor ranges;
 
     /**
-     * List to store the prime numbers found in the range.
+     * Compact store of the prime numbers found in the range; its size can be read while the thread runs.
      */
-    private List<Integer> primes;
+    private final PrimeStore primes;
 
     /**
      * Control object used to pause and resume execution.
@@ -38,30 +31,44 @@ public class PrimeFinderThread extends Thread {
      * @param pauseControl  the control object used for pausing/resuming
      */
     public PrimeFinderThread(int a, int b, PauseControl pauseControl) {
+        this(new RangeCursor(a, b, Math.max(1, b - a)), pauseControl);
+    }
+
+    /**
+     * Constructs a {@code PrimeFinderThread} that checks block after block
+     * claimed from {@code ranges}, shared with other threads, until none is left.
+     *
+     * @param ranges        the shared cursor over the range to search
+     * @param pauseControl  the control object used for pausing/resuming
+     */
+    public PrimeFinderThread(RangeCursor ranges, PauseControl pauseControl) {
         super();
-        this.primes = new LinkedList<>();
-        this.a = a;
-        this.b = b;
+        this.primes = new PrimeStore();
+        this.ranges = ranges;
         this.pauseControl = pauseControl;
     }
 
     /**
-     * Runs the thread, checking each number in the specified range for primality.
-     * If the number is prime, it is added to the {@code primes} list and printed to the console.
+     * Runs the thread, claiming blocks and checking each of their numbers for primality.
+     * If the number is prime, it is added to the {@code primes} store and printed to the console.
      * The thread respects the pause state and waits when necessary.
      */
     @Override
     public void run() {
-        for (int i = a; i < b; i++) {
-            try {
-                pauseControl.pauseIfNeeded();
-            } catch (InterruptedException e) {
-                return;
-            }
+        int start;
+        while ((start = ranges.claim()) >= 0) {
+            int end = ranges.end(start);
+            for (int i = start; i < end; i++) {
+                try {
+                    pauseControl.pauseIfNeeded();
+                } catch (InterruptedException e) {
+                    return;
+                }
 
-            if (isPrime(i)) {
-                primes.add(i);
-                System.out.println(i);
+                if (isPrime(i)) {
+                    primes.add(i);
+                    System.out.println(i);
+                }
             }
         }
     }
@@ -72,11 +79,12 @@ public class PrimeFinderThread extends Thread {
      * @param n the number to check
      * @return {@code true} if {@code n} is a prime number, {@code false} otherwise
      */
-    boolean isPrime(int n) {
+    static boolean isPrime(int n) {
         boolean ans;
         if (n > 2) {
             ans = n % 2 != 0;
-            for (int i = 3; ans && i * i <= n; i += 2) {
+            // i <= n / i rather than i * i <= n, which overflows for n close to Integer.MAX_VALUE
+            for (int i = 3; ans && i <= n / i; i += 2) {
                 ans = n % i != 0;
             }
         } else {
@@ -86,11 +94,11 @@ public class PrimeFinderThread extends Thread {
     }
 
     /**
-     * Returns the list of prime numbers found by this thread.
+     * Returns the prime numbers found by this thread so far.
      *
-     * @return a list of prime numbers in the specified range
+     * @return the store of prime numbers in the specified range
      */
-    public List<Integer> getPrimes() {
+    public PrimeStore getPrimes() {
         return primes;
     }
 }
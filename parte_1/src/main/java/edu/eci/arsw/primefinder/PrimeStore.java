@@ -0,0 +1,228 @@
+package edu.eci.arsw.primefinder;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * The {@code PrimeStore} class keeps an increasing sequence of numbers (the primes
+ * found by one worker) in about one byte per number instead of a list of boxed
+ * {@code Integer}s.
+ *
+ * <p>Numbers are stored as the difference from the previous one, as a varint: 7 bits
+ * per byte, so any gap below 128 takes a single byte. The bytes live in chunks of
+ * {@link #CHUNK_BYTES}; each chunk also records its first number and how many numbers
+ * it holds, and the store grows by adding chunks, never by copying them.
+ *
+ * <p>One thread adds; any thread may read. {@link #size()} is published after the
+ * number it counts is written, so a reader that sees a size also sees every number up
+ * to it, and a {@link Cursor} streams exactly the numbers that were there when it was
+ * created.
+ */
+public class PrimeStore {
+    /**
+     * Bytes per chunk.
+     */
+    static final int CHUNK_BYTES = 64 * 1024;
+
+    /**
+     * Longest varint of a {@code long}.
+     */
+    private static final int MAX_VARINT = 10;
+
+    /**
+     * Encoded gaps per chunk. Replaced by a longer copy when full; the chunks themselves are shared.
+     */
+    private volatile byte[][] chunks = new byte[0][];
+
+    /**
+     * First number of each chunk.
+     */
+    private volatile long[] bases = new long[0];
+
+    /**
+     * Numbers in each chunk; only the last entry still changes.
+     */
+    private volatile int[] counts = new int[0];
+
+    /**
+     * Numbers stored; written last by {@link #add(long)}.
+     */
+    private volatile long size;
+
+    // Writer state
+    private byte[] current;
+    private int position;
+    private long last;
+
+    /**
+     * Appends {@code value}, which must be greater than the last one added.
+     *
+     * @param value the number to add
+     * @throws IllegalArgumentException if {@code value} does not increase the sequence
+     */
+    public void add(long value) {
+        long n = size;
+        if (n > 0 && value <= last) {
+            throw new IllegalArgumentException(value + " is not greater than " + last);
+        }
+        if (current == null || position > current.length - MAX_VARINT) {
+            newChunk(value);
+        } else {
+            long gap = value - last;
+            while (gap >= 0x80) {
+                current[position++] = (byte) (gap | 0x80);
+                gap >>>= 7;
+            }
+            current[position++] = (byte) gap;
+        }
+        int[] c = counts;
+        c[c.length - 1]++;
+        last = value;
+        size = n + 1;
+    }
+
+    /**
+     * Returns how many numbers have been added; safe to call from any thread.
+     *
+     * @return the number of stored numbers
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the heap used by the encoded numbers, in bytes.
+     *
+     * @return allocated chunk bytes
+     */
+    public long bytes() {
+        long total = 0;
+        for (byte[] chunk : chunks) {
+            total += chunk.length;
+        }
+        return total;
+    }
+
+    /**
+     * Shrinks the last chunk to the bytes it uses; the next {@link #add(long)} starts a new chunk.
+     * Call it when a store is complete.
+     */
+    public void trimToSize() {
+        if (current == null || position == current.length) {
+            return;
+        }
+        current = Arrays.copyOf(current, position);
+        byte[][] ch = chunks.clone();
+        ch[ch.length - 1] = current;
+        chunks = ch;
+    }
+
+    /**
+     * Appends every number of {@code other} by sharing its chunks instead of copying them.
+     * {@code other} must be complete (no more adds) and start above the last number here.
+     *
+     * @param other the store to append
+     */
+    void append(PrimeStore other) {
+        long more = other.size;
+        if (more == 0) {
+            return;
+        }
+        if (size > 0 && other.bases[0] <= last) {
+            throw new IllegalArgumentException(other.bases[0] + " is not greater than " + last);
+        }
+        other.trimToSize();
+        trimToSize();
+        int k = chunks.length, m = other.chunks.length;
+        long[] b = Arrays.copyOf(bases, k + m);
+        System.arraycopy(other.bases, 0, b, k, m);
+        int[] c = Arrays.copyOf(counts, k + m);
+        System.arraycopy(other.counts, 0, c, k, m);
+        byte[][] ch = Arrays.copyOf(chunks, k + m);
+        System.arraycopy(other.chunks, 0, ch, k, m);
+        bases = b;
+        counts = c;
+        chunks = ch;
+        current = other.current;
+        position = other.position;
+        last = other.last;
+        size = size + more;
+    }
+
+    /**
+     * Returns a cursor over the numbers stored so far, in increasing order.
+     *
+     * @return a new cursor
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private void newChunk(long value) {
+        int k = chunks.length;
+        current = new byte[CHUNK_BYTES];
+        position = 0;
+        long[] b = Arrays.copyOf(bases, k + 1);
+        b[k] = value;
+        int[] c = Arrays.copyOf(counts, k + 1);
+        byte[][] ch = Arrays.copyOf(chunks, k + 1);
+        ch[k] = current;
+        // The chunk list last: a reader that sees it also sees its base and count
+        bases = b;
+        counts = c;
+        chunks = ch;
+    }
+
+    /**
+     * Streams the numbers of a {@link PrimeStore} without boxing them.
+     */
+    public class Cursor {
+        private long remaining = size;
+        private int chunk = 0;
+        private int inChunk = 0;
+        private int position = 0;
+        private long value;
+
+        /**
+         * Returns whether another number is available.
+         *
+         * @return {@code true} if {@link #next()} will return a number
+         */
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        /**
+         * Returns the next number.
+         *
+         * @return the next stored number
+         * @throws NoSuchElementException if there are no more numbers
+         */
+        public long next() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            if (inChunk == 0) {
+                value = bases[chunk];
+                position = 0;
+            } else {
+                byte[] bytes = chunks[chunk];
+                long gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[position++];
+                    gap |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                value += gap;
+            }
+            remaining--;
+            if (++inChunk == counts[chunk]) {
+                chunk++;
+                inChunk = 0;
+            }
+            return value;
+        }
+    }
+}
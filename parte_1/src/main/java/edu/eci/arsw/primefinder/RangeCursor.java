@@ -0,0 +1,73 @@
+package edu.eci.arsw.primefinder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code RangeCursor} class hands out a range [from, to) to several threads in
+ * blocks of consecutive numbers.
+ *
+ * <p>Threads claim the next block from a shared atomic cursor when they finish the
+ * previous one, so a thread that lands on cheap numbers simply claims more blocks
+ * instead of idling while another one works through the expensive end of the range.
+ * Each thread receives its blocks in increasing order.
+ */
+public class RangeCursor {
+    /**
+     * End of the range (exclusive).
+     */
+    private final int to;
+
+    /**
+     * Numbers per block.
+     */
+    private final int block;
+
+    /**
+     * Start of the next unclaimed block.
+     */
+    private final AtomicInteger next;
+
+    /**
+     * Constructs a {@code RangeCursor} over [from, to).
+     *
+     * @param from   the starting number of the range (inclusive)
+     * @param to     the ending number of the range (exclusive)
+     * @param block  how many numbers a thread claims at a time
+     */
+    public RangeCursor(int from, int to, int block) {
+        if (from > to || block <= 0) {
+            throw new IllegalArgumentException("invalid range [" + from + ", " + to + ") or block " + block);
+        }
+        this.to = to;
+        this.block = block;
+        this.next = new AtomicInteger(from);
+    }
+
+    /**
+     * Claims the next block.
+     *
+     * @return the first number of the block, or -1 when the range is exhausted
+     */
+    public int claim() {
+        while (true) {
+            int start = next.get();
+            if (start >= to) {
+                return -1;
+            }
+            // Never step past 'to', so the cursor cannot overflow near Integer.MAX_VALUE
+            if (next.compareAndSet(start, start + Math.min(block, to - start))) {
+                return start;
+            }
+        }
+    }
+
+    /**
+     * Returns the end (exclusive) of the block that starts at {@code start}.
+     *
+     * @param start a value returned by {@link #claim()}
+     * @return the end of that block
+     */
+    public int end(int start) {
+        return start + Math.min(block, to - start);
+    }
+}
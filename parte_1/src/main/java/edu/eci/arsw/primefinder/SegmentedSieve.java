@@ -0,0 +1,406 @@
+package edu.eci.arsw.primefinder;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code SegmentedSieve} class counts the prime numbers in a range [from, to)
+ * with a segmented Sieve of Eratosthenes instead of testing every number by trial
+ * division.
+ *
+ * <p>The range is cut into segments of {@link #SEGMENT_NUMBERS} integers. Only odd
+ * numbers are kept, one bit each, so a segment is a 32 KiB bitset that stays in the
+ * CPU cache while it is sieved. The odd primes up to sqrt(to) are computed once and
+ * shared by every segment. Segments are sieved in parallel on a {@code ForkJoinPool}
+ * and every worker calls {@link PauseControl#pauseIfNeeded()} before starting a
+ * segment, so a pause takes effect at segment boundaries.
+ *
+ * <p>Indices are {@code long}, so ranges can go past 2^32 up to {@link #MAX_LIMIT}; the cap
+ * keeps the table of base primes, which every segment needs, at a few megabytes.
+ * When asked to collect the primes, each segment fills its own {@link PrimeStore}
+ * and the stores are chained in order at the end, without copying.
+ */
+public class SegmentedSieve implements Runnable {
+    /**
+     * Odd numbers per segment (bits in the segment bitset).
+     */
+    static final int SEGMENT_BITS = 32 * 1024 * 8;
+
+    /**
+     * Integers covered by one segment.
+     */
+    static final long SEGMENT_NUMBERS = 2L * SEGMENT_BITS;
+
+    /**
+     * Largest supported end of range. The base primes up to its square root, 2^25, are about
+     * 2.1 million ints (8 MB); at 2^62 they would be 105 million (420 MB) before any segment ran.
+     */
+    public static final long MAX_LIMIT = 1L << 50;
+
+    /**
+     * Start of the range (inclusive).
+     */
+    private final long from;
+
+    /**
+     * End of the range (exclusive).
+     */
+    private final long to;
+
+    /**
+     * Worker threads of the pool.
+     */
+    private final int parallelism;
+
+    /**
+     * Control object used to pause and resume execution.
+     */
+    private final PauseControl pauseControl;
+
+    /**
+     * Primes of each segment when collecting, else {@code null}.
+     */
+    private final PrimeStore[] segmentPrimes;
+
+    /**
+     * All the primes in order once done, when collecting.
+     */
+    private volatile PrimeStore primes;
+
+    /**
+     * Primes counted so far, updated after every segment.
+     */
+    private final AtomicLong found = new AtomicLong();
+
+    /**
+     * Segments sieved so far.
+     */
+    private final AtomicLong segmentsDone = new AtomicLong();
+
+    /**
+     * Odd primes up to sqrt(to - 1), shared read-only by all segments.
+     */
+    private int[] basePrimes;
+
+    private volatile boolean done;
+    private volatile boolean interrupted;
+
+    /**
+     * One bitset per worker thread, reused for every segment it sieves.
+     */
+    private final ThreadLocal<long[]> segment = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[SEGMENT_BITS / 64];
+        }
+    };
+
+    /**
+     * Constructs a {@code SegmentedSieve} for the range [from, to).
+     *
+     * @param from          the starting number of the range (inclusive)
+     * @param to            the ending number of the range (exclusive), at most {@link #MAX_LIMIT}
+     * @param parallelism   the number of worker threads
+     * @param pauseControl  the control object used for pausing/resuming
+     */
+    public SegmentedSieve(long from, long to, int parallelism, PauseControl pauseControl) {
+        this(from, to, parallelism, pauseControl, false);
+    }
+
+    /**
+     * Constructs a {@code SegmentedSieve} for the range [from, to) that, if {@code collect}
+     * is set, also keeps the primes it finds (see {@link #primes()}).
+     *
+     * @param from          the starting number of the range (inclusive)
+     * @param to            the ending number of the range (exclusive), at most {@link #MAX_LIMIT}
+     * @param parallelism   the number of worker threads
+     * @param pauseControl  the control object used for pausing/resuming
+     * @param collect       whether to store the primes and not only count them
+     */
+    public SegmentedSieve(long from, long to, int parallelism, PauseControl pauseControl, boolean collect) {
+        if (from < 0 || to < from || to > MAX_LIMIT) {
+            throw new IllegalArgumentException("invalid range [" + from + ", " + to + ")");
+        }
+        this.from = from;
+        this.to = to;
+        this.parallelism = Math.max(1, parallelism);
+        this.pauseControl = pauseControl;
+        long n = segments();
+        if (collect && n > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("too many segments to collect: " + n);
+        }
+        this.segmentPrimes = collect ? new PrimeStore[(int) n] : null;
+    }
+
+    /**
+     * Sieves the whole range; returns when every segment is done or the thread that runs it is
+     * interrupted. In that case the workers stop at their next segment, {@link #found()} is a
+     * partial count, {@link #primes()} stays {@code null} and the interrupt status is kept.
+     */
+    @Override
+    public void run() {
+        basePrimes = oddPrimesUpTo((int) isqrt(Math.max(0, to - 1)));
+        if (from <= 2 && 2 < to) {
+            found.incrementAndGet();
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long first = from / SEGMENT_NUMBERS;
+            long last = (to + SEGMENT_NUMBERS - 1) / SEGMENT_NUMBERS;
+            if (first < last) {
+                // get() rather than invoke(): only a waiting get() notices that this thread is interrupted
+                ForkJoinTask<Long> all = pool.submit(new Segments(first, last));
+                try {
+                    all.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                }
+            }
+            if (segmentPrimes != null && !interrupted) {
+                PrimeStore all = new PrimeStore();
+                for (int i = 0; i < segmentPrimes.length; i++) {
+                    if (segmentPrimes[i] != null) {
+                        all.append(segmentPrimes[i]);
+                        segmentPrimes[i] = null;
+                    }
+                }
+                primes = all;
+            }
+        } finally {
+            // Also wakes workers waiting in pauseIfNeeded(), which then see the interrupt
+            pool.shutdownNow();
+            done = true;
+        }
+    }
+
+    /**
+     * Returns the number of primes counted so far; the total once {@link #isDone()}.
+     *
+     * @return primes found up to now
+     */
+    public long found() {
+        return found.get();
+    }
+
+    /**
+     * Returns the primes found, in increasing order, once {@link #isDone()}; {@code null} if
+     * the sieve was not asked to collect them or was interrupted.
+     *
+     * @return the collected primes
+     */
+    public PrimeStore primes() {
+        return primes;
+    }
+
+    /**
+     * Returns the number of segments sieved so far.
+     *
+     * @return segments done
+     */
+    public long segmentsDone() {
+        return segmentsDone.get();
+    }
+
+    /**
+     * Returns the number of segments covering the range.
+     *
+     * @return total segments
+     */
+    public long segments() {
+        return (to + SEGMENT_NUMBERS - 1) / SEGMENT_NUMBERS - from / SEGMENT_NUMBERS;
+    }
+
+    /**
+     * Returns whether {@link #run()} has finished.
+     *
+     * @return {@code true} once every segment was sieved or the run was interrupted
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Sieves segment {@code k}, covering [k * SEGMENT_NUMBERS, (k + 1) * SEGMENT_NUMBERS), and
+     * counts its primes inside [from, to). Bit j stands for the odd number lo + 2j + 1.
+     *
+     * @param k     the segment index
+     * @param sink  store for the segment's primes, or {@code null} to only count them
+     * @return primes in the segment
+     */
+    long sieveSegment(long k, PrimeStore sink) {
+        long[] bits = segment.get();
+        Arrays.fill(bits, 0L);
+        long lo = k * SEGMENT_NUMBERS;
+        long hi = Math.min(lo + SEGMENT_NUMBERS, to);
+        if (lo == 0) {
+            bits[0] |= 1L;      // 1 is not prime
+        }
+        for (int p : basePrimes) {
+            long square = (long) p * p;
+            if (square >= hi) {
+                break;
+            }
+            // First odd multiple of p that is >= lo and not below p * p
+            long m = Math.max(square, (lo + p - 1) / p * p);
+            if ((m & 1L) == 0) {
+                m += p;
+            }
+            for (long j = (m - lo - 1) >> 1; j < SEGMENT_BITS; j += p) {
+                bits[(int) (j >>> 6)] |= 1L << j;
+            }
+        }
+        long start = Math.max(0L, (from - lo) / 2);
+        long end = (hi - lo) / 2;
+        if (sink != null) {
+            if (lo == 0 && from <= 2 && 2 < to) {
+                sink.add(2);
+            }
+            if (start < end) {
+                collect(bits, lo, (int) start, (int) end, sink);
+            }
+            sink.trimToSize();
+        }
+        return start < end ? countClear(bits, (int) start, (int) end) : 0;
+    }
+
+    /**
+     * Adds the number of every zero bit in [start, end) to {@code sink}.
+     */
+    private static void collect(long[] bits, long lo, int start, int end, PrimeStore sink) {
+        for (int w = start >>> 6; w <= (end - 1) >>> 6; w++) {
+            long free = ~bits[w];
+            if (w == start >>> 6) {
+                free &= -1L << start;
+            }
+            if (w == (end - 1) >>> 6 && (end & 63) != 0) {
+                free &= (1L << end) - 1;
+            }
+            while (free != 0) {
+                long j = ((long) w << 6) + Long.numberOfTrailingZeros(free);
+                sink.add(lo + 2 * j + 1);
+                free &= free - 1;
+            }
+        }
+    }
+
+    /**
+     * Counts the zero bits in [start, end).
+     */
+    private static long countClear(long[] bits, int start, int end) {
+        int firstWord = start >>> 6;
+        int lastWord = (end - 1) >>> 6;
+        long set = 0;
+        for (int w = firstWord; w <= lastWord; w++) {
+            long word = bits[w];
+            if (w == firstWord) {
+                word |= (1L << start) - 1;          // bits below start count as set
+            }
+            if (w == lastWord && (end & 63) != 0) {
+                word |= -1L << end;                 // bits from end on count as set
+            }
+            set += Long.bitCount(word);
+        }
+        return (long) (lastWord - firstWord + 1) * 64 - set;
+    }
+
+    /**
+     * Odd primes up to {@code limit} with a plain sieve over the odd numbers.
+     */
+    static int[] oddPrimesUpTo(int limit) {
+        if (limit < 3) {
+            return new int[0];
+        }
+        int n = (limit - 1) / 2;                    // bit i stands for 2i + 3
+        long[] composite = new long[(n + 63) / 64];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if ((composite[i >>> 6] & (1L << i)) != 0) {
+                continue;
+            }
+            count++;
+            long p = 2L * i + 3;
+            for (long j = (p * p - 3) / 2; j < n; j += p) {
+                composite[(int) (j >>> 6)] |= 1L << j;
+            }
+        }
+        int[] primes = new int[count];
+        int c = 0;
+        for (int i = 0; i < n; i++) {
+            if ((composite[i >>> 6] & (1L << i)) == 0) {
+                primes[c++] = 2 * i + 3;
+            }
+        }
+        return primes;
+    }
+
+    /**
+     * Largest r with r * r <= n.
+     */
+    static long isqrt(long n) {
+        long r = (long) Math.sqrt((double) n);
+        while (r * r > n) {
+            r--;
+        }
+        while ((r + 1) * (r + 1) <= n) {
+            r++;
+        }
+        return r;
+    }
+
+    /**
+     * Segments [first, last), split in halves until one segment is left so idle workers can
+     * steal the other half.
+     */
+    private class Segments extends RecursiveTask<Long> {
+        private final long first;
+        private final long last;
+
+        Segments(long first, long last) {
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected Long compute() {
+            if (last - first > 1) {
+                long mid = (first + last) >>> 1;
+                Segments right = new Segments(mid, last);
+                right.fork();
+                long left = new Segments(first, mid).compute();
+                return left + right.join();
+            }
+            if (interrupted) {
+                return 0L;
+            }
+            try {
+                pauseControl.pauseIfNeeded();
+            } catch (InterruptedException e) {
+                interrupted = true;
+                return 0L;
+            }
+            PrimeStore sink = null;
+            if (segmentPrimes != null) {
+                sink = new PrimeStore();
+                segmentPrimes[(int) (first - from / SEGMENT_NUMBERS)] = sink;
+            }
+            long count = sieveSegment(first, sink);
+            found.addAndGet(count);
+            segmentsDone.incrementAndGet();
+            return count;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package edu.eci.arsw.primefinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Tests for {@link PrimeStore}: what goes in comes back out in order, across chunk
+ * boundaries, gaps of every varint length and stores joined with {@code append}.
+ */
+public class PrimeStoreTest {
+
+    @Test
+    public void roundTripsAcrossManyChunks() {
+        long[] values = increasing(new Random(1), 4 * PrimeStore.CHUNK_BYTES, 0, 200);
+        PrimeStore store = store(values);
+        assertEquals(values.length, store.size());
+        assertTrue(store.bytes() > 3L * PrimeStore.CHUNK_BYTES, "the values need several chunks");
+        assertContents(values, store);
+    }
+
+    @Test
+    public void roundTripsGapsOfEveryVarintLength() {
+        long[] values = new long[200];
+        long v = 0;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = v;
+            // 1, 2^7, 2^14, ... up to 2^56: one to nine varint bytes
+            v += (1L << (7 * (i % 9))) + i;
+        }
+        values[values.length - 1] = Long.MAX_VALUE;
+        assertContents(values, store(values));
+    }
+
+    @Test
+    public void chunkBoundariesFallBetweenMultiByteGaps() {
+        // Gaps just above 2^14 take three bytes each, so a chunk ends with bytes left over
+        Random rnd = new Random(2);
+        long[] values = new long[PrimeStore.CHUNK_BYTES];
+        values[0] = 1L << 40;
+        for (int i = 1; i < values.length; i++) {
+            values[i] = values[i - 1] + (1 << 14) + rnd.nextInt(1000);
+        }
+        PrimeStore store = store(values);
+        assertTrue(store.bytes() > 2L * PrimeStore.CHUNK_BYTES);
+        assertContents(values, store);
+    }
+
+    @Test
+    public void appendJoinsStoresAcrossTheirChunks() {
+        Random rnd = new Random(3);
+        long[] all = increasing(rnd, 3 * PrimeStore.CHUNK_BYTES, 7, 300);
+        int[] cuts = {0, 10, PrimeStore.CHUNK_BYTES / 2, PrimeStore.CHUNK_BYTES + 5, 2 * PrimeStore.CHUNK_BYTES,
+            2 * PrimeStore.CHUNK_BYTES, all.length};
+        PrimeStore joined = new PrimeStore();
+        for (int i = 0; i + 1 < cuts.length; i++) {
+            PrimeStore part = store(Arrays.copyOfRange(all, cuts[i], cuts[i + 1]));
+            joined.append(part);
+            assertContents(Arrays.copyOf(all, cuts[i + 1]), joined);
+        }
+
+        // The joined store keeps growing after the last append
+        long[] more = Arrays.copyOf(all, all.length + 1000);
+        for (int i = all.length; i < more.length; i++) {
+            more[i] = more[i - 1] + 1 + rnd.nextInt(500);
+            joined.add(more[i]);
+        }
+        assertContents(more, joined);
+    }
+
+    @Test
+    public void trimToSizeKeepsTheContents() {
+        long[] values = increasing(new Random(4), PrimeStore.CHUNK_BYTES + 100, 0, 50);
+        PrimeStore store = store(Arrays.copyOf(values, 1000));
+        store.trimToSize();
+        assertTrue(store.bytes() < PrimeStore.CHUNK_BYTES);
+        assertContents(Arrays.copyOf(values, 1000), store);
+        for (int i = 1000; i < values.length; i++) {
+            store.add(values[i]);
+        }
+        store.trimToSize();
+        store.trimToSize();
+        assertContents(values, store);
+    }
+
+    @Test
+    public void cursorSeesOnlyWhatWasThereWhenCreated() {
+        PrimeStore store = store(new long[] {2, 3, 5});
+        PrimeStore.Cursor cursor = store.cursor();
+        store.add(7);
+        assertEquals(2, cursor.next());
+        assertEquals(3, cursor.next());
+        assertEquals(5, cursor.next());
+        assertFalse(cursor.hasNext());
+        assertEquals(4, store.size());
+    }
+
+    @Test
+    public void rejectsValuesThatDoNotIncrease() {
+        final PrimeStore store = store(new long[] {10, 20});
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                store.add(20);
+            }
+        });
+        assertThrows(IllegalArgumentException.class, new Executable() {
+            @Override
+            public void execute() {
+                store.append(PrimeStoreTest.store(new long[] {15, 30}));
+            }
+        });
+        assertContents(new long[] {10, 20}, store);
+    }
+
+    @Test
+    public void emptyStoreHasNothingToRead() {
+        PrimeStore store = new PrimeStore();
+        store.append(new PrimeStore());
+        store.trimToSize();
+        assertEquals(0, store.size());
+        assertEquals(0, store.bytes());
+        final PrimeStore.Cursor cursor = store.cursor();
+        assertFalse(cursor.hasNext());
+        assertThrows(NoSuchElementException.class, new Executable() {
+            @Override
+            public void execute() {
+                cursor.next();
+            }
+        });
+    }
+
+    private static long[] increasing(Random rnd, int n, long first, int maxGap) {
+        long[] values = new long[n];
+        values[0] = first;
+        for (int i = 1; i < n; i++) {
+            values[i] = values[i - 1] + 1 + rnd.nextInt(maxGap);
+        }
+        return values;
+    }
+
+    private static PrimeStore store(long[] values) {
+        PrimeStore store = new PrimeStore();
+        for (long v : values) {
+            store.add(v);
+        }
+        return store;
+    }
+
+    private static void assertContents(long[] expected, PrimeStore store) {
+        assertEquals(expected.length, store.size());
+        final PrimeStore.Cursor cursor = store.cursor();
+        for (int i = 0; i < expected.length; i++) {
+            assertTrue(cursor.hasNext());
+            long v = cursor.next();
+            if (v != expected[i]) {
+                assertEquals(expected[i], v, "value " + i);
+            }
+        }
+        assertFalse(cursor.hasNext());
+        assertThrows(NoSuchElementException.class, new Executable() {
+            @Override
+            public void execute() {
+                cursor.next();
+            }
+        });
+    }
+}
@@ -0,0 +1,142 @@
+package edu.eci.arsw.primefinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Tests for {@link RangeCursor} and the {@link PrimeFinderThread}s that share one: every
+ * number is handed out exactly once, also when the range ends at {@code Integer.MAX_VALUE}.
+ */
+public class RangeCursorTest {
+
+    @Test
+    public void blocksCoverTheRangeWithoutGapsOrOverlaps() {
+        int[][] ranges = {{0, 0, 1}, {0, 1, 1}, {0, 100, 7}, {5, 105, 100}, {5, 104, 1000},
+            {Integer.MAX_VALUE - 100, Integer.MAX_VALUE, 7},
+            {Integer.MAX_VALUE - 5, Integer.MAX_VALUE, Integer.MAX_VALUE},
+            {Integer.MAX_VALUE - 1, Integer.MAX_VALUE, 1},
+            {Integer.MAX_VALUE, Integer.MAX_VALUE, 3}};
+        for (int[] r : ranges) {
+            RangeCursor cursor = new RangeCursor(r[0], r[1], r[2]);
+            String where = "[" + r[0] + ", " + r[1] + ") by " + r[2];
+            long expected = r[0];
+            int start;
+            while ((start = cursor.claim()) >= 0) {
+                assertEquals(expected, start, "next block of " + where);
+                int end = cursor.end(start);
+                assertTrue(end > start && end <= r[1], "block [" + start + ", " + end + ") of " + where);
+                assertTrue(end - start <= r[2]);
+                expected = end;
+            }
+            assertEquals(r[1], expected, "covered " + where);
+            assertEquals(-1, cursor.claim(), "stays exhausted " + where);
+        }
+    }
+
+    @Test
+    public void concurrentClaimsNearMaxValueNeitherSkipNorRepeat() throws InterruptedException {
+        final int from = Integer.MAX_VALUE - 1000000;
+        final RangeCursor cursor = new RangeCursor(from, Integer.MAX_VALUE, 37);
+        final int[] claimed = new int[Integer.MAX_VALUE - from];
+        final String[] outOfOrder = new String[1];
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    int start;
+                    int previous = -1;
+                    while ((start = cursor.claim()) >= 0) {
+                        if (start <= previous) {
+                            outOfOrder[0] = start + " after " + previous;
+                        }
+                        previous = start;
+                        for (int i = start; i < cursor.end(start); i++) {
+                            claimed[i - from]++;
+                        }
+                    }
+                }
+            }));
+        }
+        runAll(threads);
+        assertNull(outOfOrder[0], "a thread received its blocks out of order");
+        for (int i = 0; i < claimed.length; i++) {
+            if (claimed[i] != 1) {
+                assertEquals(1, claimed[i], "claims of " + (from + i));
+            }
+        }
+        assertEquals(-1, cursor.claim());
+    }
+
+    @Test
+    public void threadsSharingACursorFindEveryPrimeOnce() throws InterruptedException {
+        int from = Integer.MAX_VALUE - 20000;
+        RangeCursor cursor = new RangeCursor(from, Integer.MAX_VALUE, 101);
+        PauseControl pauseControl = new PauseControl();
+        List<PrimeFinderThread> threads = new ArrayList<PrimeFinderThread>();
+        for (int t = 0; t < 3; t++) {
+            threads.add(new PrimeFinderThread(cursor, pauseControl));
+        }
+        runAll(threads);
+
+        boolean[] found = new boolean[Integer.MAX_VALUE - from];
+        for (PrimeFinderThread thread : threads) {
+            PrimeStore.Cursor primes = thread.getPrimes().cursor();
+            while (primes.hasNext()) {
+                long p = primes.next();
+                assertFalse(found[(int) (p - from)], p + " found twice");
+                found[(int) (p - from)] = true;
+            }
+        }
+        for (int i = 0; i < found.length; i++) {
+            boolean prime = BigInteger.valueOf(from + i).isProbablePrime(64);
+            if (found[i] != prime) {
+                assertEquals(prime, found[i], "found " + (from + i));
+            }
+        }
+    }
+
+    @Test
+    public void isPrimeNearMaxValue() {
+        assertTrue(PrimeFinderThread.isPrime(Integer.MAX_VALUE));
+        assertTrue(PrimeFinderThread.isPrime(2147483629));
+        assertFalse(PrimeFinderThread.isPrime(Integer.MAX_VALUE - 2));
+        assertFalse(PrimeFinderThread.isPrime(46337 * 46337));
+    }
+
+    @Test
+    public void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, cursor(10, 9, 1));
+        assertThrows(IllegalArgumentException.class, cursor(0, 10, 0));
+        assertThrows(IllegalArgumentException.class, cursor(0, 10, -5));
+    }
+
+    private static void runAll(List<? extends Thread> threads) throws InterruptedException {
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join(60000);
+            assertFalse(t.isAlive(), t.getName() + " did not finish");
+        }
+    }
+
+    private static Executable cursor(final int from, final int to, final int block) {
+        return new Executable() {
+            @Override
+            public void execute() {
+                new RangeCursor(from, to, block);
+            }
+        };
+    }
+}
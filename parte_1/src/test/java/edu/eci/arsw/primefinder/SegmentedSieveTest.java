@@ -0,0 +1,184 @@
+package edu.eci.arsw.primefinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+/**
+ * Tests for {@link SegmentedSieve}: counts against known values of pi(x) and, on
+ * ranges that start anywhere or straddle segments, against a number-by-number check.
+ */
+public class SegmentedSieveTest {
+    private static final long S = SegmentedSieve.SEGMENT_NUMBERS;
+
+    @Test
+    public void countsMatchKnownPrimeCountingValues() {
+        assertEquals(0, count(0, 0));
+        assertEquals(0, count(0, 2));
+        assertEquals(1, count(0, 3));
+        assertEquals(4, count(0, 10));
+        assertEquals(25, count(0, 100));
+        assertEquals(168, count(0, 1000));
+        assertEquals(78498, count(0, 1000000));
+        assertEquals(664579, count(0, 10000000));
+        assertEquals(5761455, count(0, 100000000));
+    }
+
+    @Test
+    public void countsRangesThatDoNotStartAtZero() {
+        assertEquals(664579 - 78498, count(1000000, 10000000));
+        assertEquals(0, count(24, 29), "[24, 29) holds no prime");
+        assertEquals(1, count(29, 30));
+        assertEquals(1, count(2, 3));
+        assertEquals(0, count(1000, 1000), "an empty range");
+        for (long from : new long[] {1, 3, 97, 1000003, 7 * S / 3}) {
+            assertEquals(bruteForce(from, from + 50000), count(from, from + 50000), "[" + from + ", +50000)");
+        }
+    }
+
+    @Test
+    public void countsRangesAroundSegmentBoundaries() {
+        for (long k = 1; k <= 4; k++) {
+            long edge = k * S;
+            for (long[] r : new long[][] {{edge - 1, edge + 1}, {edge - 1000, edge}, {edge, edge + 1000},
+                    {edge - 777, edge + 333}, {edge - 1, edge + S + 1}}) {
+                assertEquals(bruteForce(r[0], r[1]), count(r[0], r[1]), "[" + r[0] + ", " + r[1] + ")");
+            }
+        }
+        assertEquals(bruteForce(S - 5000, 3 * S + 5000), count(S - 5000, 3 * S + 5000), "three partial segments");
+    }
+
+    @Test
+    public void countsRangesAbove32Bits() {
+        long from = (1L << 32) - 20000;
+        assertEquals(bruteForce(from, from + 60000), count(from, from + 60000));
+    }
+
+    @Test
+    public void collectsTheSamePrimesItCounts() {
+        long from = S - 12345, to = 3 * S + 678;
+        SegmentedSieve sieve = new SegmentedSieve(from, to, 3, new PauseControl(), true);
+        sieve.run();
+        assertTrue(sieve.isDone());
+        assertEquals(sieve.segments(), sieve.segmentsDone());
+        PrimeStore primes = sieve.primes();
+        assertNotNull(primes);
+        assertEquals(sieve.found(), primes.size());
+        PrimeStore.Cursor cursor = primes.cursor();
+        long expected = from;
+        while (cursor.hasNext()) {
+            long p = cursor.next();
+            for (; expected < p; expected++) {
+                assertFalse(isPrime(expected), expected + " was left out");
+            }
+            assertTrue(isPrime(p), p + " is not prime");
+            expected = p + 1;
+        }
+        for (; expected < to; expected++) {
+            assertFalse(isPrime(expected), expected + " was left out");
+        }
+    }
+
+    @Test
+    public void interruptingRunStopsTheWorkers() throws InterruptedException {
+        final SegmentedSieve sieve = new SegmentedSieve(0, SegmentedSieve.MAX_LIMIT, 2, new PauseControl(), false);
+        final boolean[] stillInterrupted = new boolean[1];
+        Thread runner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                sieve.run();
+                stillInterrupted[0] = Thread.currentThread().isInterrupted();
+            }
+        });
+        runner.start();
+        while (sieve.segmentsDone() == 0) {
+            Thread.sleep(1);
+        }
+        runner.interrupt();
+        runner.join(10000);
+        assertFalse(runner.isAlive(), "run() did not return after the interrupt");
+        assertTrue(sieve.isDone());
+        assertTrue(stillInterrupted[0], "run() keeps the interrupt status");
+        assertTrue(sieve.segmentsDone() < sieve.segments());
+        assertNull(sieve.primes());
+    }
+
+    @Test
+    public void interruptingRunWakesPausedWorkers() throws InterruptedException {
+        final PauseControl pauseControl = new PauseControl();
+        final SegmentedSieve sieve = new SegmentedSieve(0, 1L << 40, 2, pauseControl, false);
+        Thread runner = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                sieve.run();
+            }
+        });
+        runner.start();
+        while (sieve.segmentsDone() == 0) {
+            Thread.sleep(1);
+        }
+        pauseControl.setPaused(true);
+        runner.interrupt();
+        runner.join(10000);
+        assertFalse(runner.isAlive(), "run() did not return while paused");
+        assertTrue(sieve.isDone());
+    }
+
+    @Test
+    public void rejectsInvalidRanges() {
+        assertThrows(IllegalArgumentException.class, sieve(-1, 10));
+        assertThrows(IllegalArgumentException.class, sieve(10, 9));
+        assertThrows(IllegalArgumentException.class, sieve(0, SegmentedSieve.MAX_LIMIT + 1));
+    }
+
+    @Test
+    public void basePrimesAndSquareRoots() {
+        assertEquals(0, SegmentedSieve.oddPrimesUpTo(2).length);
+        assertEquals(1, SegmentedSieve.oddPrimesUpTo(3).length);
+        assertEquals(24, SegmentedSieve.oddPrimesUpTo(100).length);
+        assertEquals(24, SegmentedSieve.oddPrimesUpTo(97).length);
+        assertEquals(23, SegmentedSieve.oddPrimesUpTo(96).length);
+        assertEquals(0, SegmentedSieve.isqrt(0));
+        assertEquals(3, SegmentedSieve.isqrt(15));
+        assertEquals(4, SegmentedSieve.isqrt(16));
+        assertEquals(33554431, SegmentedSieve.isqrt(SegmentedSieve.MAX_LIMIT - 1));
+    }
+
+    private static long count(long from, long to) {
+        SegmentedSieve sieve = new SegmentedSieve(from, to, 2, new PauseControl());
+        sieve.run();
+        assertTrue(sieve.isDone());
+        return sieve.found();
+    }
+
+    private static long bruteForce(long from, long to) {
+        long n = 0;
+        for (long i = from; i < to; i++) {
+            if (isPrime(i)) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private static boolean isPrime(long n) {
+        return n < Integer.MAX_VALUE ? PrimeFinderThread.isPrime((int) n) : BigInteger.valueOf(n).isProbablePrime(64);
+    }
+
+    private static Executable sieve(final long from, final long to) {
+        return new Executable() {
+            @Override
+            public void execute() {
+                new SegmentedSieve(from, to, 1, new PauseControl());
+            }
+        };
+    }
+}
@@ -0,0 +1,47 @@
+package co.eci.snake.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Cost of the four item snapshots used by renderers, compared with publishing and reading a BoardFrame. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BoardSnapshotBenchmark {
+    @Param({"10", "1000"})
+    int obstacles;
+
+    @Param({"10", "500"})
+    int snakeCount;
+
+    Board board;
+    List<Snake> snakes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        board = new Board(500, 500, 7L);
+        for (int i = 0; i < obstacles; i++) board.addObstacle(new Position((i * 37) % 500, (i * 91) % 500));
+        board.addTeleportPair(new Position(1, 1), new Position(250, 250));
+        snakes = new ArrayList<>();
+        for (int i = 0; i < snakeCount; i++) {
+            Snake s = Snake.of((i * 13) % 500, (i * 29) % 500, Direction.RIGHT);
+            if (board.addSnake(s)) snakes.add(s);
+        }
+        board.publishFrame(snakes);
+    }
+
+    @Benchmark public List<Position> miceSnapshot() { return board.miceSnapshot(); }
+    @Benchmark public List<Position> obstaclesSnapshot() { return board.obstaclesSnapshot(); }
+    @Benchmark public List<Position> turboSnapshot() { return board.turboSnapshot(); }
+    @Benchmark public Map<Position, Position> teleportsSnapshot() { return board.teleportsSnapshot(); }
+
+    @Benchmark public BoardFrame publishFrame() { return board.publishFrame(snakes); }
+    @Benchmark public BoardFrame readFrame() { return board.frame(); }
+}
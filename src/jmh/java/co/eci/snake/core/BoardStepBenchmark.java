@@ -0,0 +1,78 @@
+package co.eci.snake.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Board.step throughput, uncontended and with several threads stepping their own snake on a shared board. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardStepBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        @Param({"500"})
+        int size;
+        Board board;
+        final AtomicInteger rows = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setup() {
+            board = new Board(size, size, 42L);
+            board.addTeleportPair(new Position(size / 4, size / 4), new Position(3 * size / 4, 3 * size / 4));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Player {
+        Snake snake;
+        int row;
+
+        @Setup(Level.Trial)
+        public void setup(Shared shared) {
+            // One row per thread so snakes only meet through respawned obstacles
+            row = (shared.rows.getAndIncrement() * 7) % shared.size;
+            respawn(shared.board);
+        }
+
+        void respawn(Board board) {
+            do {
+                snake = Snake.of(ThreadLocalRandom.current().nextInt(board.width()), row, Direction.RIGHT);
+            } while (!board.addSnake(snake));
+        }
+    }
+
+    private static Board.MoveResult step(Shared shared, Player p) {
+        Board.MoveResult r = shared.board.step(p.snake);
+        if (r == Board.MoveResult.HIT_OBSTACLE) {
+            // Sidestep the obstacle and keep going right
+            p.snake.turn(Direction.DOWN);
+            shared.board.step(p.snake);
+            p.snake.turn(Direction.RIGHT);
+        } else if (!p.snake.isAlive()) {
+            p.respawn(shared.board);
+        }
+        return r;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Board.MoveResult step1(Shared shared, Player p) { return step(shared, p); }
+
+    @Benchmark
+    @Threads(2)
+    public Board.MoveResult step2(Shared shared, Player p) { return step(shared, p); }
+
+    @Benchmark
+    @Threads(4)
+    public Board.MoveResult step4(Shared shared, Player p) { return step(shared, p); }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Board.MoveResult stepMax(Shared shared, Player p) { return step(shared, p); }
+}
@@ -0,0 +1,19 @@
+package co.eci.snake.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PositionBenchmark {
+    Position inside = new Position(10, 20);
+    Position outside = new Position(-1, 500);
+
+    @Benchmark public Position wrapInside() { return inside.wrap(500, 500); }
+    @Benchmark public Position wrapOutside() { return outside.wrap(500, 500); }
+}
@@ -0,0 +1,49 @@
+package co.eci.snake.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Snake body operations at different lengths. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SnakeBenchmark {
+    private static final int WIDTH = 1 << 16;
+
+    @Param({"5", "100", "10000"})
+    int length;
+
+    Snake snake;
+    int x;
+    int[] buffer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        snake = Snake.of(0, 0, Direction.RIGHT);
+        for (x = 1; x < length; x++) snake.advance(x, 0, true);
+        buffer = new int[length];
+    }
+
+    @Benchmark
+    public long advance() {
+        x = (x + 1) & (WIDTH - 1);
+        return snake.advance(x, 0, false);
+    }
+
+    @Benchmark
+    public void advancePosition() {
+        x = (x + 1) & (WIDTH - 1);
+        snake.advance(new Position(x, 0), false);
+    }
+
+    @Benchmark
+    public List<Position> snapshot() { return snake.snapshot(); }
+
+    @Benchmark
+    public int copyCells() { return snake.copyCells(WIDTH, buffer); }
+}
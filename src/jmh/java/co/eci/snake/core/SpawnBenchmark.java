@@ -0,0 +1,37 @@
+package co.eci.snake.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spawn placement (the old randomEmpty path) on a board that is already {@code fill} percent obstacles.
+ * Each measured batch places {@code BATCH} mice on a freshly built board.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, batchSize = SpawnBenchmark.BATCH)
+@Measurement(iterations = 10, batchSize = SpawnBenchmark.BATCH)
+@Fork(1)
+@State(Scope.Thread)
+public class SpawnBenchmark {
+    static final int BATCH = 100;
+
+    @Param({"50", "99"})
+    int fill;
+
+    Board board;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        int size = 200;
+        board = new Board(size, size, 3L);
+        // Block 'fill' cells out of every 100, spread evenly; about size*size*(100-fill)/100 stay free
+        for (int c = 0; c < size * size; c++) {
+            if (c % 100 < fill) board.addObstacle(new Position(c % size, c / size));
+        }
+    }
+
+    @Benchmark
+    public boolean addMouse() { return board.tryAddMouse(); }
+}
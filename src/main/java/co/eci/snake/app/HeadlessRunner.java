@@ -0,0 +1,444 @@
+package co.eci.snake.app;
+
+import co.eci.snake.concurrency.LockstepEngine;
+import co.eci.snake.concurrency.SnakeRunner;
+import co.eci.snake.core.Board;
+import co.eci.snake.core.BoardFrame;
+import co.eci.snake.core.ChunkedBoard;
+import co.eci.snake.core.DistanceField;
+import co.eci.snake.core.Snake;
+import co.eci.snake.core.engine.GameClock;
+import co.eci.snake.core.engine.GameSetup;
+import co.eci.snake.core.engine.TimingWheel;
+import co.eci.snake.host.Room;
+import co.eci.snake.host.RoomHost;
+import co.eci.snake.metrics.Histogram;
+import co.eci.snake.metrics.EngineMetrics;
+import co.eci.snake.persist.Checkpoint;
+import co.eci.snake.replay.Replay;
+import co.eci.snake.replay.ReplayRecorder;
+import co.eci.snake.spectate.SpectatorServer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Runs the engine without Swing and prints throughput. Uses the same properties as the app
+ * ({@code board.width}, {@code board.height}, {@code snakes}, {@code snake.baseSleepMs},
+ * {@code snake.turboSleepMs}, {@code engine}, {@code seed}) plus:
+ * <ul>
+ *   <li>{@code headless.durationMs} – wall-clock run time (default 10000)</li>
+ *   <li>{@code headless.ticks} – lockstep only: stop after this many ticks instead</li>
+ *   <li>{@code headless.zeroSleep} – runners never sleep and lockstep ticks run back-to-back</li>
+ *   <li>{@code ai.snakes} – the first N snakes chase mice along a shared {@link DistanceField},
+ *       refreshed from each published frame ({@code tick.ms} for runners, every tick for lockstep)</li>
+ *   <li>{@code engine=wheel} – runners driven by a {@link TimingWheel} instead of sleeping threads;
+ *       both modes print wake-up lateness and process CPU time</li>
+ *   <li>{@code replay.record} – record the game to this replay file</li>
+ *   <li>{@code replay} – instead of simulating, play this replay file back at full speed
+ *       (optionally after seeking to tick {@code replay.seek})</li>
+ *   <li>{@code checkpoint.load} – start from this checkpoint instead of a new game</li>
+ *   <li>{@code checkpoint.save} – save a checkpoint here just before the run ends</li>
+ *   <li>{@code board.chunked} – runners on a sparse {@link ChunkedBoard} (default 100000x100000)</li>
+ *   <li>{@code spectate.port} – stream the game to {@link SpectatorServer} clients on this port;
+ *       runners publish a frame every {@code tick.ms} (default 40)</li>
+ *   <li>{@code host.rooms} – instead of one game, host this many independent rooms on a
+ *       {@link RoomHost} ({@code room.width} 40, {@code room.height} 24, {@code room.snakes} 4);
+ *       finished rooms are torn down and replaced every second</li>
+ * </ul>
+ */
+public final class HeadlessRunner {
+    private HeadlessRunner() {}
+
+    public static void run() throws InterruptedException, IOException {
+        String replayFile = System.getProperty("replay");
+        if (replayFile != null) {
+            replay(Path.of(replayFile));
+            return;
+        }
+        if (Boolean.getBoolean("board.chunked")) {
+            runChunked();
+            return;
+        }
+        if (Integer.getInteger("host.rooms") != null) {
+            runRooms();
+            return;
+        }
+        Game game = Game.start();
+        String engine = System.getProperty("engine");
+        if ("lockstep".equals(engine)) runLockstep(game);
+        else runRunners(game, "wheel".equals(engine));
+        printReport(game);
+    }
+
+    /** One headless game: its setup, the optional recorder, spectators and AI, and what the run measured. */
+    private static final class Game {
+        final Board board;
+        final List<Snake> snakes;
+        final Checkpoint loaded;
+        final String saveFile = System.getProperty("checkpoint.save");
+        final String recordFile = System.getProperty("replay.record");
+        final ReplayRecorder recorder;
+        final SpectatorServer spectators;
+        final int ai;
+        final DistanceField field;
+        final long durationMs = Long.getLong("headless.durationMs", 10_000L);
+        final long maxTicks = Long.getLong("headless.ticks", 0L);
+        final boolean zeroSleep = Boolean.getBoolean("headless.zeroSleep");
+
+        // Filled in by the engine that ran the game
+        String engine;
+        long[] steps;
+        long miceEaten;
+        long elapsedNanos;
+        String extra = "";
+        String timing = "";
+        String aiReport = "";
+        EngineMetrics metrics;
+
+        private Game(Board board, List<Snake> snakes, Checkpoint loaded) throws IOException {
+            this.board = board;
+            this.snakes = snakes;
+            this.loaded = loaded;
+            this.steps = new long[snakes.size()];
+            this.recorder = recordFile != null ? ReplayRecorder.start(Path.of(recordFile), board, snakes) : null;
+            this.spectators = startSpectators(board, snakes);
+            this.ai = Math.min(snakes.size(), Integer.getInteger("ai.snakes", 0));
+            this.field = ai > 0 ? new DistanceField(board.width(), board.height()) : null;
+            if (field != null) field.update(board.publishFrame(snakes));
+        }
+
+        /** New game, or the one in {@code checkpoint.load}. */
+        static Game start() throws IOException {
+            String loadFile = System.getProperty("checkpoint.load");
+            if (loadFile == null) {
+                Board board = GameSetup.board();
+                return new Game(board, GameSetup.snakes(board), null);
+            }
+            long t0 = System.nanoTime();
+            Checkpoint loaded = Checkpoint.load(Path.of(loadFile));
+            List<Snake> snakes = new ArrayList<>(loaded.snakeCount());
+            Board board = loaded.restore(snakes);
+            System.out.printf("checkpoint %s restored in %.2fms%n", loadFile, (System.nanoTime() - t0) / 1e6);
+            return new Game(board, snakes, loaded);
+        }
+
+        /** Frames are needed by spectators and to refresh the AI field. */
+        boolean frames() { return spectators != null || field != null; }
+
+        /** Work shared by every engine after each simulated tick. */
+        void afterTick() {
+            if (recorder != null) recorder.tick();
+            if (frames()) publish(board, snakes, field);
+        }
+
+        void saveCheckpoint(IntUnaryOperator turbo) throws IOException {
+            if (saveFile != null) HeadlessRunner.saveCheckpoint(Path.of(saveFile), board, snakes, turbo);
+        }
+    }
+
+    private static void runLockstep(Game game) throws InterruptedException, IOException {
+        Long seed = Long.getLong("seed");
+        try (var engine = new LockstepEngine(game.board, game.snakes, seed != null ? seed : System.nanoTime())) {
+            if (game.loaded != null) {
+                for (int i = 0; i < game.snakes.size(); i++) engine.restoreTurboTicks(i, game.loaded.turboTicks(i));
+            }
+            if (game.field != null) engine.steerWith(game.field, game.ai);
+            long t0 = System.nanoTime();
+            if (game.zeroSleep) tickBackToBack(game, engine, t0 + TimeUnit.MILLISECONDS.toNanos(game.durationMs));
+            else tickOnClock(game, engine);
+            game.elapsedNanos = System.nanoTime() - t0;
+            game.saveCheckpoint(engine::turboTicks);
+            for (int i = 0; i < game.steps.length; i++) game.steps[i] = engine.steps(i);
+            game.miceEaten = engine.miceEaten();
+            game.engine = "lockstep";
+            game.extra = String.format(" ticks=%d ticks/sec=%.1f", engine.ticks(), engine.ticks() / (game.elapsedNanos / 1e9));
+        }
+    }
+
+    /** Lockstep ticks one after another on this thread, until {@code headless.ticks} or the deadline. */
+    private static void tickBackToBack(Game game, LockstepEngine engine, long deadline) {
+        game.metrics = new EngineMetrics(game.board, null, List.of());
+        while (game.maxTicks > 0 ? engine.ticks() < game.maxTicks : System.nanoTime() < deadline) {
+            engine.run();
+            game.afterTick();
+        }
+    }
+
+    /** Lockstep ticks paced by a {@link GameClock}, until {@code headless.ticks} or the run time. */
+    private static void tickOnClock(Game game, LockstepEngine engine) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        long period = Long.getLong("sim.tick.ms", Integer.getInteger("snake.baseSleepMs", 80));
+        try (var clock = new GameClock(period, () -> {
+            if (done.getCount() == 0) return;
+            engine.run();
+            game.afterTick();
+            if (game.maxTicks > 0 && engine.ticks() >= game.maxTicks) done.countDown();
+        })) {
+            game.metrics = new EngineMetrics(game.board, clock, List.of());
+            clock.start();
+            if (game.maxTicks > 0) done.await(); else done.await(game.durationMs, TimeUnit.MILLISECONDS);
+            done.countDown();
+            clock.stop();
+        }
+    }
+
+    /** One {@link SnakeRunner} per snake, on virtual threads or, if 'wheeled', on a {@link TimingWheel}. */
+    private static void runRunners(Game game, boolean wheeled) throws InterruptedException, IOException {
+        int base = game.zeroSleep ? 0 : Integer.getInteger("snake.baseSleepMs", 80);
+        int turbo = game.zeroSleep ? 0 : Integer.getInteger("snake.turboSleepMs", 40);
+        List<SnakeRunner> runners = new ArrayList<>(game.snakes.size());
+        Histogram wakeups = new Histogram();
+        long period = game.frames() ? Long.getLong("tick.ms", 40L) : 1000;
+        try (var clock = new GameClock(period, game::afterTick)) {
+            for (Snake s : game.snakes) runners.add(new SnakeRunner(s, game.board, clock, base, turbo));
+            if (game.loaded != null) {
+                for (int i = 0; i < runners.size(); i++) runners.get(i).restoreTurboTicks(game.loaded.turboTicks(i));
+            }
+            for (int i = 0; i < game.ai; i++) runners.get(i).steerWith(game.field);
+            game.metrics = new EngineMetrics(game.board, clock, runners);
+            // Runners pace themselves; the clock only marks replay ticks and publishes frames
+            if (game.recorder != null || game.frames()) clock.start();
+            TimingWheel wheel = wheeled ? new TimingWheel(clock) : null;
+            var exec = Executors.newVirtualThreadPerTaskExecutor();
+            long cpu0 = processCpuNanos();
+            long t0 = System.nanoTime();
+            try {
+                if (wheel != null) startWheel(wheel, runners, base);
+                else startThreads(exec, runners, wakeups);
+                Thread.sleep(game.durationMs);
+                if (game.saveFile != null) {
+                    // Runners stay parked from here until they are shut down
+                    System.out.printf("quiesced %d runners in %.3fms%n", runners.size(), clock.quiesce() / 1e6);
+                    game.saveCheckpoint(i -> runners.get(i).turboTicks());
+                }
+            } finally {
+                // Stopped before the clock and before timing ends, exactly once
+                if (wheel != null) wheel.close();
+                exec.shutdownNow();
+            }
+            exec.awaitTermination(10, TimeUnit.SECONDS);
+            game.elapsedNanos = System.nanoTime() - t0;
+            game.timing = timing(wheel, wakeups, processCpuNanos() - cpu0);
+        }
+        game.engine = wheeled ? "wheel" : "runners";
+        collectRunners(game, runners);
+    }
+
+    private static void startWheel(TimingWheel wheel, List<SnakeRunner> runners, int base) {
+        // Spread the first moves over one base period so slots fill evenly
+        for (int i = 0; i < runners.size(); i++) wheel.schedule(runners.get(i)::stepOnce, (long) i * base / runners.size());
+        wheel.start();
+    }
+
+    private static void startThreads(ExecutorService exec, List<SnakeRunner> runners, Histogram wakeups) {
+        runners.forEach(r -> r.recordWakeups(wakeups));
+        runners.forEach(exec::submit);
+    }
+
+    /** Wake-up lateness of the runners (or of the wheel's tasks) and the process CPU time they used. */
+    private static String timing(TimingWheel wheel, Histogram wakeups, long cpu) {
+        Histogram late = wheel != null ? wheel.lateness() : wakeups;
+        return String.format("%s n=%d late p50=%.2fms p99=%.2fms max=%.2fms cpu=%.2fs%n",
+                wheel != null ? "wheel     tick=" + wheel.tickMillis() + "ms batches=" + wheel.batches() : "wakeups  ",
+                late.count(), late.percentile(50) / 1e6, late.percentile(99) / 1e6, late.max() / 1e6, cpu / 1e9);
+    }
+
+    private static void collectRunners(Game game, List<SnakeRunner> runners) {
+        long aiMice = 0;
+        for (int i = 0; i < game.steps.length; i++) {
+            game.steps[i] = runners.get(i).steps();
+            game.miceEaten += runners.get(i).miceEaten();
+            if (i < game.ai) aiMice += runners.get(i).miceEaten();
+        }
+        if (game.ai > 0) {
+            int rest = game.snakes.size() - game.ai;
+            game.aiReport = String.format(" mice/snake ai=%.2f random=%.2f", (double) aiMice / game.ai,
+                    rest == 0 ? 0.0 : (double) (game.miceEaten - aiMice) / rest);
+        }
+    }
+
+    /** The shared report, then closes the recorder and spectator server. */
+    private static void printReport(Game game) throws IOException {
+        report(game.board, game.snakes, game.steps, game.miceEaten, game.elapsedNanos, game.engine + game.extra, game.zeroSleep);
+        System.out.print(game.timing);
+        if (game.field != null) {
+            System.out.printf("ai snakes=%d field=%dx%d last update=%.2fms%s%n", game.ai, game.board.width(),
+                    game.board.height(), game.field.computeNanos() / 1e6, game.aiReport);
+        }
+        System.out.print(game.metrics.dump());
+        if (game.recorder != null) {
+            game.recorder.close();
+            System.out.printf("replay %s: %d bytes%n", game.recordFile, game.recorder.bytesWritten());
+        }
+        if (game.spectators != null) {
+            SpectatorServer spectators = game.spectators;
+            System.out.printf("spectators: clients=%d frames=%d keyframes=%d deltas=%d drops=%d sent=%.1f MB%n",
+                    spectators.clients(), spectators.frames(), spectators.keyframesSent(), spectators.deltasSent(),
+                    spectators.drops(), spectators.bytesSent() / 1e6);
+            spectators.close();
+        }
+    }
+
+    /** Publish a frame for spectators and refresh the AI distance field from it. */
+    private static void publish(Board board, List<Snake> snakes, DistanceField field) {
+        BoardFrame f = board.publishFrame(snakes);
+        if (field != null) field.update(f);
+    }
+
+    private static SpectatorServer startSpectators(Board board, List<Snake> snakes) throws IOException {
+        Integer port = Integer.getInteger("spectate.port");
+        if (port == null) return null;
+        board.publishFrame(snakes);
+        SpectatorServer server = SpectatorServer.start(board, port);
+        System.out.printf("spectators: listening on port %d%n", server.port());
+        return server;
+    }
+
+    private static void runChunked() throws InterruptedException {
+        ChunkedBoard board = GameSetup.chunkedBoard();
+        List<Snake> snakes = GameSetup.snakes(board);
+        long durationMs = Long.getLong("headless.durationMs", 10_000L);
+        boolean zeroSleep = Boolean.getBoolean("headless.zeroSleep");
+        int base = zeroSleep ? 0 : Integer.getInteger("snake.baseSleepMs", 80);
+        int turbo = zeroSleep ? 0 : Integer.getInteger("snake.turboSleepMs", 40);
+        List<SnakeRunner> runners = new ArrayList<>(snakes.size());
+        long elapsedNanos;
+        try (var clock = new GameClock(1000, () -> {})) {
+            for (Snake s : snakes) runners.add(new SnakeRunner(s, board, clock, base, turbo));
+            var exec = Executors.newVirtualThreadPerTaskExecutor();
+            long t0 = System.nanoTime();
+            runners.forEach(exec::submit);
+            Thread.sleep(durationMs);
+            exec.shutdownNow();
+            exec.awaitTermination(10, TimeUnit.SECONDS);
+            elapsedNanos = System.nanoTime() - t0;
+        }
+        long total = 0, mice = 0;
+        for (SnakeRunner r : runners) {
+            total += r.steps();
+            mice += r.miceEaten();
+        }
+        long alive = snakes.stream().filter(Snake::isAlive).count();
+        double secs = elapsedNanos / 1e9;
+        Runtime rt = Runtime.getRuntime();
+        System.out.printf("engine=chunked board=%dx%d snakes=%d zeroSleep=%b elapsed=%.2fs%n",
+                board.width(), board.height(), snakes.size(), zeroSleep, secs);
+        System.out.printf("steps=%d steps/sec=%.0f mice eaten=%d alive=%d/%d%n", total, total / secs, mice, alive, snakes.size());
+        System.out.printf("chunks=%d (%.1f MB of %.0f chunks total) heap used=%.1f MB%n", board.chunkCount(),
+                board.chunkBytes() / 1e6, Math.ceil(board.width() / (double) ChunkedBoard.CHUNK) * Math.ceil(board.height() / (double) ChunkedBoard.CHUNK),
+                (rt.totalMemory() - rt.freeMemory()) / 1e6);
+    }
+
+    private static void runRooms() throws InterruptedException {
+        int count = Integer.getInteger("host.rooms");
+        int width = Integer.getInteger("room.width", 40);
+        int height = Integer.getInteger("room.height", 24);
+        int snakes = Integer.getInteger("room.snakes", 4);
+        long seed = Long.getLong("seed", System.nanoTime());
+        long durationMs = Long.getLong("headless.durationMs", 10_000L);
+        Runtime rt = Runtime.getRuntime();
+        long heap0 = rt.totalMemory() - rt.freeMemory();
+        try (var host = new RoomHost()) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < count; i++) host.create(width, height, snakes, seed + i);
+            System.out.printf("host: %d rooms created in %.1fms, threads=%d%n", count, (System.nanoTime() - t0) / 1e6,
+                    ManagementFactory.getThreadMXBean().getThreadCount());
+            t0 = System.nanoTime();
+            long cpu0 = processCpuNanos();
+            long deadline = t0 + TimeUnit.MILLISECONDS.toNanos(durationMs);
+            while (System.nanoTime() < deadline) {
+                Thread.sleep(Math.min(1000, Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()))));
+                for (Room r : host.rooms()) {
+                    if (r.state() == Room.State.FINISHED && host.remove(r.id())) host.create(width, height, snakes, seed + host.created());
+                }
+            }
+            double secs = (System.nanoTime() - t0) / 1e9;
+            long ticks = 0, steps = 0, overruns = 0, minTicks = Long.MAX_VALUE, maxTicks = 0;
+            for (Room r : host.rooms()) {
+                ticks += r.ticks();
+                steps += r.steps();
+                overruns += r.overruns();
+                minTicks = Math.min(minTicks, r.ticks());
+                maxTicks = Math.max(maxTicks, r.ticks());
+            }
+            long tickMs = Long.getLong("room.tickMs", 80L);
+            System.out.printf("engine=rooms rooms=%d board=%dx%d snakes/room=%d elapsed=%.2fs created=%d removed=%d%n",
+                    host.size(), width, height, snakes, secs, host.created(), host.removed());
+            System.out.printf("ticks=%d ticks/sec=%.0f (target %.0f) steps/sec=%.0f ticks/room min=%d max=%d overruns=%d%n",
+                    ticks, ticks / secs, host.size() * 1000.0 / tickMs, steps / secs, minTicks, maxTicks, overruns);
+            System.out.printf("room tick p50=%.1fus p99=%.1fus max=%.1fus late p50=%.2fms p99=%.2fms cpu=%.2fs threads=%d heap=+%.1f MB%n",
+                    host.tickNanos().percentile(50) / 1e3, host.tickNanos().percentile(99) / 1e3, host.tickNanos().max() / 1e3,
+                    host.lateness().percentile(50) / 1e6, host.lateness().percentile(99) / 1e6,
+                    (processCpuNanos() - cpu0) / 1e9, ManagementFactory.getThreadMXBean().getThreadCount(),
+                    (rt.totalMemory() - rt.freeMemory() - heap0) / 1e6);
+        }
+    }
+
+    /** CPU time used by the whole process so far, or 0 if the JVM does not report it. */
+    private static long processCpuNanos() {
+        return ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os
+                ? os.getProcessCpuTime() : 0;
+    }
+
+    private static void saveCheckpoint(Path file, Board board, List<Snake> snakes, IntUnaryOperator turbo) throws IOException {
+        long t0 = System.nanoTime();
+        Checkpoint cp = Checkpoint.capture(board, snakes, turbo);
+        long t1 = System.nanoTime();
+        cp.write(file);
+        System.out.printf("checkpoint %s saved: capture=%.2fms write=%.2fms%n", file, (t1 - t0) / 1e6, (System.nanoTime() - t1) / 1e6);
+    }
+
+    private static void replay(Path file) throws IOException {
+        long t0 = System.nanoTime();
+        Replay replay = Replay.open(file);
+        long openNanos = System.nanoTime() - t0;
+        long seek = Long.getLong("replay.seek", 0L);
+        if (seek > 0) {
+            t0 = System.nanoTime();
+            replay.seek(seek);
+            System.out.printf("seek to tick %d: %.2fms%n", seek, (System.nanoTime() - t0) / 1e6);
+        }
+        t0 = System.nanoTime();
+        replay.playToEnd();
+        double secs = (System.nanoTime() - t0) / 1e9;
+        long alive = replay.snakes().stream().filter(Snake::isAlive).count();
+        System.out.printf("replay=%s board=%dx%d snakes=%d open=%.2fms%n", file, replay.board().width(),
+                replay.board().height(), replay.snakes().size(), openNanos / 1e6);
+        System.out.printf("ticks=%d/%d steps=%d elapsed=%.3fs steps/sec=%.0f ticks/sec=%.0f%n", replay.tick(),
+                replay.totalTicks(), replay.steps(), secs, replay.steps() / secs, (replay.tick() - seek) / secs);
+        System.out.printf("divergences=%d alive=%d/%d%n", replay.divergences(), alive, replay.snakes().size());
+    }
+
+    private static void report(Board board, List<Snake> snakes, long[] steps, long miceEaten,
+                               long elapsedNanos, String engine, boolean zeroSleep) {
+        long total = 0, min = Long.MAX_VALUE, max = 0;
+        for (long s : steps) {
+            total += s;
+            min = Math.min(min, s);
+            max = Math.max(max, s);
+        }
+        if (steps.length == 0) min = 0;
+        long alive = snakes.stream().filter(Snake::isAlive).count();
+        double secs = elapsedNanos / 1e9;
+        long contended = board.contendedLocks();
+        long waitNanos = board.lockWaitNanos();
+
+        System.out.printf("engine=%s board=%dx%d snakes=%d zeroSleep=%b elapsed=%.2fs%n",
+                engine, board.width(), board.height(), snakes.size(), zeroSleep, secs);
+        System.out.printf("steps=%d steps/sec=%.0f%n", total, total / secs);
+        System.out.printf("moves/snake min=%d avg=%.1f max=%d%n", min, steps.length == 0 ? 0.0 : (double) total / steps.length, max);
+        System.out.printf("mice eaten=%d alive=%d/%d%n", miceEaten, alive, snakes.size());
+        System.out.printf("tile locks contended=%d (%.2f%% of steps) wait total=%.1fms avg=%.1fus%n",
+                contended, total == 0 ? 0.0 : 100.0 * contended / total, waitNanos / 1e6,
+                contended == 0 ? 0.0 : waitNanos / 1e3 / contended);
+    }
+}
@@ -1,10 +1,19 @@
 package co.eci.snake.app;
 
+import co.eci.snake.ui.legacy.ChunkedApp;
 import co.eci.snake.ui.legacy.SnakeApp;
 
+import java.io.IOException;
+import java.util.Arrays;
+
 public final class Main {
     private Main() {}
-    public static void main(String[] args) {
-        SnakeApp.launch();
+    public static void main(String[] args) throws InterruptedException, IOException {
+        if (Boolean.getBoolean("headless") || System.getProperty("replay") != null || Arrays.asList(args).contains("--headless")) {
+            HeadlessRunner.run();
+            System.exit(0);
+        }
+        if (Boolean.getBoolean("board.chunked")) ChunkedApp.launch();
+        else SnakeApp.launch();
     }
 }
@@ -0,0 +1,175 @@
+package co.eci.snake.concurrency;
+
+import co.eci.snake.core.Board;
+import co.eci.snake.core.Direction;
+import co.eci.snake.core.DistanceField;
+import co.eci.snake.core.Snake;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Alternative to one {@link SnakeRunner} per snake: a {@link co.eci.snake.core.engine.GameClock}
+ * calls {@link #run()} once per tick and every snake is advanced in batched phases.
+ * <ol>
+ *   <li>Intent: each snake picks its direction and target cell, in parallel on a ForkJoinPool.</li>
+ *   <li>Resolve: when several snakes target the same cell, the lowest index wins; the rest bounce.</li>
+ *   <li>Commit: winners are stepped on the board in snake order. Every snake that had a move, stepped
+ *   or bounced, spends one move of turbo.</li>
+ * </ol>
+ * Turbo is expressed as extra moves per tick instead of a shorter sleep, so a tick is a fixed amount
+ * of simulated time. With a seeded {@link Board} and the same seed here, a game is fully reproducible.
+ * <p>
+ * {@link #sequential} engines run the intent phase on the calling thread and own no pool, for hosts
+ * that tick many small boards on shared workers.
+ */
+public final class LockstepEngine implements Runnable, AutoCloseable {
+    private static final int NO_TARGET = -1;
+    /** Had a move this round but lost its target cell; spends turbo like a snake that stepped. */
+    private static final int BOUNCED = -2;
+
+    private final Board board;
+    private final List<Snake> snakes;
+    private final ForkJoinPool pool;
+    private final int turboMoves;
+
+    // Per-snake state, indexed like 'snakes'; only touched by the tick in progress
+    private final SplittableRandom[] rnd;
+    private final int[] turboTicks;
+    private final int[] targets;
+    private final long[] steps;
+    private long miceEaten = 0;
+    private DistanceField field;
+    private int steered = 0;
+    private double wander = 0.10;
+
+    // Cell claims for conflict resolution: a cell is claimed if its stamp equals the current phase
+    private final long[] claimStamp;
+    private long phase = 0;
+    private long ticks = 0;
+
+    public LockstepEngine(Board board, List<Snake> snakes, long seed) {
+        this(board, snakes, seed, new ForkJoinPool(Integer.getInteger("engine.parallelism", Runtime.getRuntime().availableProcessors())));
+    }
+
+    /** Engine without a pool of its own: each tick runs entirely on the thread that calls {@link #run()}. */
+    public static LockstepEngine sequential(Board board, List<Snake> snakes, long seed) {
+        return new LockstepEngine(board, snakes, seed, null);
+    }
+
+    private LockstepEngine(Board board, List<Snake> snakes, long seed, ForkJoinPool pool) {
+        this.board = board;
+        this.snakes = List.copyOf(snakes);
+        this.pool = pool;
+        int baseSleepMs = Integer.getInteger("snake.baseSleepMs", 80);
+        int turboSleepMs = Integer.getInteger("snake.turboSleepMs", 40);
+        this.turboMoves = Math.max(1, baseSleepMs / Math.max(1, turboSleepMs));
+
+        int n = this.snakes.size();
+        this.rnd = new SplittableRandom[n];
+        SplittableRandom root = new SplittableRandom(seed);
+        for (int i = 0; i < n; i++) rnd[i] = root.split();
+        this.turboTicks = new int[n];
+        this.targets = new int[n];
+        this.steps = new long[n];
+        this.claimStamp = new long[board.width() * board.height()];
+    }
+
+    /** One simulation tick. Not reentrant: the clock must not overlap ticks (GameClock never does). */
+    @Override public void run() {
+        int n = snakes.size();
+        // Snakes in turbo take several moves per tick; each move is a full intent/resolve/commit round
+        for (int move = 0; move < turboMoves; move++) {
+            final int m = move;
+            phase++;
+            if (pool == null) for (int i = 0; i < n; i++) intent(i, m);
+            else pool.submit(() -> IntStream.range(0, n).parallel().forEach(i -> intent(i, m))).join();
+            resolve();
+            commit();
+        }
+        ticks++;
+    }
+
+    public long ticks() { return ticks; }
+
+    /** Calls to board.step() for snake {@code i}. Read between ticks (e.g. after the clock stops). */
+    public long steps(int i) { return steps[i]; }
+
+    public long miceEaten() { return miceEaten; }
+
+    /** Moves snake {@code i} has left in turbo. Read between ticks. */
+    public int turboTicks(int i) { return turboTicks[i]; }
+
+    /** Resume a saved turbo; call before the first tick. */
+    public void restoreTurboTicks(int i, int ticks) { turboTicks[i] = ticks; }
+
+    /**
+     * The first 'count' snakes chase mice along 'field' instead of turning at random. Keep the field
+     * updated between ticks (from the frame published after each one) so games stay reproducible.
+     */
+    public void steerWith(DistanceField field, int count) {
+        this.field = field;
+        this.steered = count;
+    }
+
+    /** Chance that a snake turns at random before a move (halved in turbo); 0 scripts moves exactly. */
+    void wander(double chance) { this.wander = chance; }
+
+    @Override public void close() {
+        if (pool != null) pool.shutdownNow();
+    }
+
+    private void intent(int i, int move) {
+        Snake snake = snakes.get(i);
+        boolean turbo = turboTicks[i] > 0;
+        if (!snake.isAlive() || (move > 0 && !turbo)) {
+            targets[i] = NO_TARGET;
+            return;
+        }
+        Direction chase = i < steered ? field.bestMove(snake) : null;
+        if (chase != null) snake.turn(chase);
+        else if (rnd[i].nextDouble() < (turbo ? wander / 2 : wander)) randomTurn(i);
+        targets[i] = board.nextCell(snake);
+    }
+
+    private void resolve() {
+        for (int i = 0; i < targets.length; i++) {
+            int cell = targets[i];
+            if (cell == NO_TARGET) continue;
+            if (claimStamp[cell] == phase) {
+                // Cell already taken this round by a lower-index snake: bounce like an obstacle
+                targets[i] = BOUNCED;
+                randomTurn(i);
+            } else {
+                claimStamp[cell] = phase;
+            }
+        }
+    }
+
+    private void commit() {
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i] == NO_TARGET) continue;
+            if (targets[i] == BOUNCED) {
+                if (turboTicks[i] > 0) turboTicks[i]--;
+                continue;
+            }
+            Board.MoveResult res = board.step(snakes.get(i));
+            steps[i]++;
+            if (res == Board.MoveResult.HIT_OBSTACLE) {
+                randomTurn(i);
+            } else if (res == Board.MoveResult.ATE_TURBO) {
+                turboTicks[i] = Math.min(200, turboTicks[i] + 60);
+            } else if (res == Board.MoveResult.ATE_MOUSE) {
+                miceEaten++;
+            }
+            if (turboTicks[i] > 0) turboTicks[i]--;
+        }
+    }
+
+    private void randomTurn(int i) {
+        Direction[] dirs = Direction.values();
+        snakes.get(i).turn(dirs[rnd[i].nextInt(dirs.length)]);
+    }
+}
@@ -1,45 +1,95 @@
 package co.eci.snake.concurrency;
 
+import co.eci.snake.core.Arena;
 import co.eci.snake.core.Board;
 import co.eci.snake.core.Direction;
+import co.eci.snake.core.DistanceField;
 import co.eci.snake.core.Snake;
 import co.eci.snake.core.engine.GameClock;
+import co.eci.snake.core.engine.TimingWheel;
+import co.eci.snake.metrics.Histogram;
 
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 public final class SnakeRunner implements Runnable {
     private final Snake snake;
-    private final Board board;
+    private final Arena board;
     private final GameClock clock;
 
     private final int baseSleepMs;
     private final int turboSleepMs;
-    private int turboTicks = 0;
 
-    public SnakeRunner(Snake snake, Board board, GameClock clock) {
+    // Written only by the runner's own thread; volatile so stats readers and checkpoints see fresh values
+    private volatile int turboTicks = 0;
+    private volatile long steps = 0;
+    private volatile long miceEaten = 0;
+    private volatile long startedNanos = 0;
+    private Histogram wakeups;
+    private DistanceField field;
+
+    public SnakeRunner(Snake snake, Arena board, GameClock clock) {
+        this(snake, board, clock, Integer.getInteger("snake.baseSleepMs", 80), Integer.getInteger("snake.turboSleepMs", 40));
+    }
+
+    /** Explicit sleeps; 0 means the runner steps back-to-back (headless throughput runs). */
+    public SnakeRunner(Snake snake, Arena board, GameClock clock, int baseSleepMs, int turboSleepMs) {
         this.snake = snake;
         this.board = board;
         this.clock = clock;
-        this.baseSleepMs = Integer.getInteger("snake.baseSleepMs", 80);
-        this.turboSleepMs = Integer.getInteger("snake.turboSleepMs", 40);
+        this.baseSleepMs = baseSleepMs;
+        this.turboSleepMs = turboSleepMs;
+    }
+
+    /** Calls to board.step() so far. */
+    public long steps() { return steps; }
+    public long miceEaten() { return miceEaten; }
+
+    /** Steps left in turbo mode. */
+    public int turboTicks() { return turboTicks; }
+
+    /** Resume a saved turbo; call before the runner starts. */
+    public void restoreTurboTicks(int ticks) { this.turboTicks = ticks; }
+
+    /** Steps per second the sleeps allow without turbo (infinite when the runner never sleeps). */
+    public double configuredStepsPerSecond() {
+        return baseSleepMs > 0 ? 1000.0 / baseSleepMs : Double.POSITIVE_INFINITY;
+    }
+
+    /** Steps per second actually achieved since the runner started (0 before it starts). */
+    public double achievedStepsPerSecond() {
+        long start = startedNanos;
+        if (start == 0) return 0.0;
+        long elapsed = System.nanoTime() - start;
+        return elapsed <= 0 ? 0.0 : steps * 1e9 / elapsed;
     }
 
+    /** Chase mice along 'field' instead of turning at random; call before the runner starts. */
+    public void steerWith(DistanceField field) { this.field = field; }
+
+    /**
+     * Record how late each wake-up from the runner's sleep is (nanoseconds past the requested time)
+     * into 'h'; call before the runner starts.
+     */
+    public void recordWakeups(Histogram h) { this.wakeups = h; }
+
     @Override public void run() {
+        startedNanos = System.nanoTime();
         try {
             while (!Thread.currentThread().isInterrupted() && snake.isAlive()) {
-                clock.waitIfPaused();
-
-                maybeTurn();
-                Board.MoveResult res = board.step(snake);
-                if (res == Board.MoveResult.HIT_OBSTACLE) {
-                    randomTurn();
-                } else if (res == Board.MoveResult.ATE_TURBO) {
-                    turboTicks = Math.min(200, turboTicks + 60);
+                if (!clock.enterStep()) break;
+                int sleep;
+                try {
+                    sleep = stepOnce();
+                } finally {
+                    clock.exitStep();
+                }
+                if (sleep > 0) {
+                    long t0 = System.nanoTime();
+                    Thread.sleep(sleep);
+                    Histogram h = wakeups;
+                    if (h != null) h.record(System.nanoTime() - t0 - TimeUnit.MILLISECONDS.toNanos(sleep));
                 }
-
-                int sleep = (turboTicks > 0) ? turboSleepMs : baseSleepMs;
-                if (turboTicks > 0) turboTicks--;
-                Thread.sleep(sleep);
             }
         } catch (InterruptedException ie) {
             Thread.currentThread().interrupt();
@@ -49,7 +99,37 @@ public final class SnakeRunner implements Runnable {
         }
     }
 
+    /**
+     * One move with its turbo bookkeeping, for schedulers that own the timing (a {@link TimingWheel}).
+     * Returns the pause in milliseconds before the next move, or -1 once the snake is dead.
+     */
+    public int stepOnce() {
+        if (!snake.isAlive()) return -1;
+        if (startedNanos == 0) startedNanos = System.nanoTime();
+        maybeTurn();
+        Board.MoveResult res = board.step(snake);
+        steps++;
+        if (res == Board.MoveResult.HIT_OBSTACLE) {
+            randomTurn();
+        } else if (res == Board.MoveResult.ATE_TURBO) {
+            turboTicks = Math.min(200, turboTicks + 60);
+        } else if (res == Board.MoveResult.ATE_MOUSE) {
+            miceEaten++;
+        }
+
+        int sleep = (turboTicks > 0) ? turboSleepMs : baseSleepMs;
+        if (turboTicks > 0) turboTicks--;
+        return sleep;
+    }
+
     private void maybeTurn() {
+        if (field != null) {
+            Direction d = field.bestMove(snake);
+            if (d != null) {
+                snake.turn(d);
+                return;
+            }
+        }
         double p = (turboTicks > 0) ? 0.05 : 0.10;
         if (ThreadLocalRandom.current().nextDouble() < p) randomTurn();
     }
@@ -0,0 +1,13 @@
+package co.eci.snake.core;
+
+/** What snakes move on: the flat {@link Board} or the sparse {@link ChunkedBoard} for huge maps. */
+public interface Arena {
+    int width();
+    int height();
+
+    /** Register the snake's start cell; false (and the snake dies) if another snake covers it. */
+    boolean addSnake(Snake snake);
+
+    /** Move 'snake' one cell in its current direction. One thread per snake at a time. */
+    Board.MoveResult step(Snake snake);
+}
@@ -1,140 +1,720 @@
 package co.eci.snake.core;
 
+import co.eci.snake.metrics.Histogram;
+import co.eci.snake.metrics.MetricsEvents.LockWaitEvent;
+import co.eci.snake.metrics.MetricsEvents.StepEvent;
+
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+public final class Board implements Arena {
+    private static final byte MOUSE = 1;
+    private static final byte OBSTACLE = 1 << 1;
+    private static final byte TURBO = 1 << 2;
+    private static final byte TELEPORT = 1 << 3;
+
+    /** Tiles are TILE x TILE cells; each tile has its own lock. */
+    private static final int TILE_SHIFT = 4;
 
-public final class Board {
     private final int width;
     private final int height;
 
-    // Internal sets guarded by rwLock
-    private final Set<Position> mice = new HashSet<>();
-    private final Set<Position> obstacles = new HashSet<>();
-    private final Set<Position> turbo = new HashSet<>();
-    private final Map<Position, Position> teleports = new HashMap<>();
+    // Cell-indexed state (index = y*width + x): one flag byte per cell plus the teleport
+    // destination table. A cell is guarded by the lock of the tile that contains it.
+    private final byte[] cells;
+    private final int[] teleportTo;
+
+    // Id of the snake whose body covers each cell (0 = none) and the index of cells with neither
+    // items nor bodies; both guarded by the tile locks like 'cells'.
+    private final int[] owner;
+    private final AtomicInteger snakeIds = new AtomicInteger();
+    private final FreeCells free;
+
+    private final int tilesX;
+    private final ReentrantLock[] tileLocks;
+
+    // Item lists for snapshots only; lookups go through 'cells'. Guarded by itemsLock,
+    // which is always taken last (after any tile locks) so lock order stays acyclic.
+    private final CellList mice = new CellList(8);
+    private final CellList obstacles = new CellList(16);
+    private final CellList turbo = new CellList(4);
+    private final CellList teleports = new CellList(4);
+    private final ReentrantLock itemsLock = new ReentrantLock();
+
+    // Spatial index per Item (bucket = tile, updated under its lock) and the teleport cells for
+    // teleport-aware queries (replaced whole, only by addTeleportPair/load)
+    private final ItemIndex[] itemIndex = new ItemIndex[Item.values().length];
+    private volatile int[] teleportCells = new int[0];
+
+    // Spawn randomness: a shared seeded generator for reproducible games, else ThreadLocalRandom.
+    // Replicas never spawn: their items only arrive through the add* methods.
+    private final Random seeded;
+    private final boolean spawns;
+
+    // Receives every change while a recording is active (null otherwise)
+    private volatile BoardRecorder recorder;
+
+    // Instrumentation: step latency, tile lock waits (contended acquisitions only) and results
+    private final Histogram stepNanos = new Histogram();
+    private final Histogram lockWait = new Histogram();
+    private final LongAdder[] results = new LongAdder[MoveResult.values().length];
 
-    private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
+    // Latest published frame; readers never lock.
+    private volatile BoardFrame frame;
 
-    public enum MoveResult { MOVED, ATE_MOUSE, ATE_TURBO, HIT_OBSTACLE }
+    /** HIT_SNAKE and HIT_SELF kill the moving snake; its body is cleared from the board in the same step. */
+    public enum MoveResult { MOVED, ATE_MOUSE, ATE_TURBO, HIT_OBSTACLE, HIT_SNAKE, HIT_SELF }
+
+    /** Items that spawn on free cells. */
+    public enum Item { MOUSE, OBSTACLE, TURBO }
 
     public Board(int width, int height) {
+        this(width, height, null, true);
+        seedItems();
+    }
+
+    /** Board whose item placement is reproducible for a given seed (when steps are applied in a fixed order). */
+    public Board(int width, int height, long seed) {
+        this(width, height, new Random(seed), true);
+        seedItems();
+    }
+
+    private Board(int width, int height, Random seeded, boolean spawns) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("board size must be > 0");
         this.width = width;
         this.height = height;
+        this.seeded = seeded;
+        this.spawns = spawns;
+        this.cells = new byte[width * height];
+        this.teleportTo = new int[width * height];
+        Arrays.fill(teleportTo, -1);
+        this.tilesX = ((width - 1) >> TILE_SHIFT) + 1;
+        int tilesY = ((height - 1) >> TILE_SHIFT) + 1;
+        this.tileLocks = new ReentrantLock[tilesX * tilesY];
+        for (int i = 0; i < tileLocks.length; i++) tileLocks[i] = new ReentrantLock();
+        for (int i = 0; i < results.length; i++) results[i] = new LongAdder();
+        this.owner = new int[width * height];
+        this.free = new FreeCells(width * height, tileLocks.length, 1 << (2 * TILE_SHIFT));
+        for (int c = 0; c < cells.length; c++) free.add(tileOf(c), c);
+        for (int i = 0; i < itemIndex.length; i++) itemIndex[i] = new ItemIndex(width, height, TILE_SHIFT);
+    }
+
+    private void seedItems() {
         // Seed with some items
         for (int i=0;i<6;i++) addMouse();
-        for (int i=0;i<4;i++) addObstacle(randomEmpty());
-        for (int i=0;i<2;i++) addTurbo(randomEmpty());
+        for (int i=0;i<4;i++) spawn(OBSTACLE, obstacles);
+        for (int i=0;i<2;i++) spawn(TURBO, turbo);
+    }
+
+    /**
+     * Live board with the items and snakes of 'state'; the restored snakes are appended to 'snakes'
+     * in capture order. Items respawn randomly from then on.
+     */
+    public static Board restore(BoardState state, List<Snake> snakes) {
+        Board b = new Board(state.width, state.height, null, true);
+        b.load(state, snakes);
+        return b;
+    }
+
+    /**
+     * Like {@link #restore} but the board never spawns items by itself: after eating, the next
+     * items must be added explicitly. Used to replay a recording, which lists every spawn.
+     */
+    public static Board replica(BoardState state, List<Snake> snakes) {
+        Board b = new Board(state.width, state.height, null, false);
+        b.load(state, snakes);
+        return b;
+    }
+
+    /** Single-threaded: only called on a board that is not shared yet. */
+    private void load(BoardState s, List<Snake> out) {
+        for (int c : s.mice) setFlag(c, MOUSE, mice);
+        for (int c : s.obstacles) setFlag(c, OBSTACLE, obstacles);
+        for (int c : s.turbo) setFlag(c, TURBO, turbo);
+        for (int i = 0; i < s.teleports.length; i++) {
+            setFlag(s.teleports[i], TELEPORT, teleports);
+            teleportTo[s.teleports[i]] = s.teleportTargets[i];
+        }
+        teleportCells = s.teleports.clone();
+        int maxId = 0;
+        for (int i = 0; i < s.ids.length; i++) {
+            int from = s.bodyStart[i], to = s.bodyStart[i + 1];
+            Snake snake = Snake.restore(width, s.bodies, from, to, s.maxLength[i],
+                    BoardState.directionOf(s.direction[i]), BoardState.directionOf(s.heading[i]), s.alive[i]);
+            snake.id = s.ids[i];
+            maxId = Math.max(maxId, snake.id);
+            // Dead snakes were cleared from the board by the step that killed them
+            if (snake.id != 0 && snake.isAlive()) {
+                for (int k = from; k < to; k++) occupy(s.bodies[k], snake.id);
+            }
+            out.add(snake);
+        }
+        snakeIds.set(maxId);
     }
 
-    public int width() { return width; }
-    public int height() { return height; }
+    @Override public int width() { return width; }
+    @Override public int height() { return height; }
 
     /** Safe snapshots for UI rendering (avoid iterating live sets). */
     public List<Position> miceSnapshot() {
-        rwLock.readLock().lock();
-        try { return new ArrayList<>(mice); }
-        finally { rwLock.readLock().unlock(); }
+        itemsLock.lock();
+        try { return positions(mice); }
+        finally { itemsLock.unlock(); }
     }
     public List<Position> obstaclesSnapshot() {
-        rwLock.readLock().lock();
-        try { return new ArrayList<>(obstacles); }
-        finally { rwLock.readLock().unlock(); }
+        itemsLock.lock();
+        try { return positions(obstacles); }
+        finally { itemsLock.unlock(); }
     }
     public List<Position> turboSnapshot() {
-        rwLock.readLock().lock();
-        try { return new ArrayList<>(turbo); }
-        finally { rwLock.readLock().unlock(); }
+        itemsLock.lock();
+        try { return positions(turbo); }
+        finally { itemsLock.unlock(); }
     }
     public Map<Position, Position> teleportsSnapshot() {
-        rwLock.readLock().lock();
-        try { return new HashMap<>(teleports); }
-        finally { rwLock.readLock().unlock(); }
+        itemsLock.lock();
+        try {
+            Map<Position, Position> copy = new HashMap<>();
+            for (int i = 0; i < teleports.size(); i++) {
+                int c = teleports.get(i);
+                copy.put(position(c), position(teleportTo[c]));
+            }
+            return copy;
+        } finally { itemsLock.unlock(); }
+    }
+
+    /**
+     * Nearest 'item' to 'from' in steps on the wrapped board (obstacles and bodies are not routed
+     * around), or null if there is none. With 'viaTeleports', a route that steps onto a teleport and
+     * continues from its partner also counts. Lock-free and copy-free (see {@link ItemIndex}).
+     */
+    public Position nearest(Item item, Position from, boolean viaTeleports) {
+        int c = nearestCell(item, index(from), viaTeleports);
+        return c < 0 ? null : position(c);
+    }
+
+    /** Like {@link #nearest(Item, Position, boolean)} on cell indices ({@code y*width + x}); -1 if none. */
+    public int nearestCell(Item item, int from, boolean viaTeleports) {
+        return itemIndex[item.ordinal()].nearest(from, viaTeleports ? teleportCells : null, teleportTo);
+    }
+
+    /** Up to 'k' items closest to 'from', nearest first. */
+    public List<Position> nearest(Item item, Position from, int k, boolean viaTeleports) {
+        return positions(itemIndex[item.ordinal()].nearest(index(from), k, viaTeleports ? teleportCells : null, teleportTo));
+    }
+
+    /** Items at most 'radius' steps from 'from', in no particular order. */
+    public List<Position> within(Item item, Position from, int radius, boolean viaTeleports) {
+        return positions(itemIndex[item.ordinal()].within(index(from), radius, viaTeleports ? teleportCells : null, teleportTo));
+    }
+
+    /** Steps between two positions on the wrapped board, ignoring teleports and obstacles. */
+    public int distance(Position a, Position b) {
+        return itemIndex[0].distance(index(a), index(b));
+    }
+
+    /** Number of tile lock acquisitions by step()/spawns that had to wait. */
+    public long contendedLocks() { return lockWait.count(); }
+
+    /** Total time step()/spawns spent waiting for tile locks, in nanoseconds. */
+    public long lockWaitNanos() { return lockWait.sum(); }
+
+    /** Duration of each step() call, including respawns, in nanoseconds. */
+    public Histogram stepNanos() { return stepNanos; }
+
+    /** Wait time of each contended tile lock acquisition, in nanoseconds. */
+    public Histogram lockWait() { return lockWait; }
+
+    /** Number of steps that returned the given result. */
+    public long results(MoveResult r) { return results[r.ordinal()].sum(); }
+
+    /** Latest frame published by {@link #publishFrame}, or null if none was published yet. Lock-free. */
+    public BoardFrame frame() { return frame; }
+
+    /** Full state of the board and 'snakes' at one instant (all tile locks are held while copying). */
+    public BoardState captureState(Collection<Snake> snakes) {
+        for (ReentrantLock lock : tileLocks) lock.lock();
+        try {
+            return captureLocked(snakes);
+        } finally {
+            for (int t = tileLocks.length - 1; t >= 0; t--) tileLocks[t].unlock();
+        }
+    }
+
+    /**
+     * Start sending every change to 'recorder', beginning with a keyframe of the current state, so
+     * the recording is complete from that point on. Snakes must have been placed with
+     * {@link #addSnake} so their ids are known to the recording.
+     */
+    public void record(BoardRecorder recorder, Collection<Snake> snakes) {
+        for (ReentrantLock lock : tileLocks) lock.lock();
+        try {
+            recorder.keyframe(captureLocked(snakes));
+            this.recorder = recorder;
+        } finally {
+            for (int t = tileLocks.length - 1; t >= 0; t--) tileLocks[t].unlock();
+        }
+    }
+
+    /** Send a keyframe of the current state to the active recorder, if any. */
+    public void keyframe(Collection<Snake> snakes) {
+        if (recorder == null) return;
+        for (ReentrantLock lock : tileLocks) lock.lock();
+        try {
+            BoardRecorder r = recorder;
+            if (r != null) r.keyframe(captureLocked(snakes));
+        } finally {
+            for (int t = tileLocks.length - 1; t >= 0; t--) tileLocks[t].unlock();
+        }
+    }
+
+    public void stopRecording() {
+        for (ReentrantLock lock : tileLocks) lock.lock();
+        try {
+            this.recorder = null;
+        } finally {
+            for (int t = tileLocks.length - 1; t >= 0; t--) tileLocks[t].unlock();
+        }
+    }
+
+    /** Caller holds every tile lock. */
+    private BoardState captureLocked(Collection<Snake> snakes) {
+        int n = snakes.size();
+        int[] ids = new int[n], maxLength = new int[n], bodyStart = new int[n + 1];
+        boolean[] alive = new boolean[n];
+        byte[] direction = new byte[n], heading = new byte[n];
+        int[][] parts = new int[n][];
+        int i = 0;
+        for (Snake s : snakes) {
+            parts[i] = s.cells(width);
+            ids[i] = s.id;
+            alive[i] = s.isAlive();
+            direction[i] = (byte) s.direction().ordinal();
+            heading[i] = BoardState.headingOf(s.heading());
+            maxLength[i] = s.maxLength();
+            bodyStart[i + 1] = bodyStart[i] + parts[i].length;
+            i++;
+        }
+        int[] bodies = new int[bodyStart[n]];
+        for (int s = 0; s < n; s++) System.arraycopy(parts[s], 0, bodies, bodyStart[s], parts[s].length);
+
+        itemsLock.lock();
+        try {
+            int[] tp = teleports.toArray();
+            int[] targets = new int[tp.length];
+            for (int t = 0; t < tp.length; t++) targets[t] = teleportTo[tp[t]];
+            return new BoardState(width, height, mice.toArray(), obstacles.toArray(), turbo.toArray(), tp, targets,
+                    ids, alive, direction, heading, maxLength, bodyStart, bodies);
+        } finally {
+            itemsLock.unlock();
+        }
+    }
+
+    /**
+     * Capture items and snake bodies at one instant and publish them as the new {@link #frame()}.
+     * All tile locks are held (ascending order) while copying, so no step is half-applied in the frame.
+     */
+    public BoardFrame publishFrame(Collection<Snake> snakes) {
+        for (ReentrantLock lock : tileLocks) lock.lock();
+        try {
+            int[][] bodies = new int[snakes.size()][];
+            boolean[] alive = new boolean[bodies.length];
+            int i = 0;
+            for (Snake s : snakes) {
+                bodies[i] = s.cells(width);
+                alive[i++] = s.isAlive();
+            }
+            BoardFrame previous = frame;
+            BoardFrame next;
+            itemsLock.lock();
+            try {
+                int[] tp = teleports.toArray();
+                int[] targets = new int[tp.length];
+                for (int t = 0; t < tp.length; t++) targets[t] = teleportTo[tp[t]];
+                next = new BoardFrame(previous == null ? 0 : previous.epoch() + 1, width, height,
+                        mice.toArray(), obstacles.toArray(), turbo.toArray(), tp, targets, bodies, alive);
+            } finally {
+                itemsLock.unlock();
+            }
+            frame = next;
+            return next;
+        } finally {
+            for (int t = tileLocks.length - 1; t >= 0; t--) tileLocks[t].unlock();
+        }
     }
 
     public void addTeleportPair(Position a, Position b) {
-        rwLock.writeLock().lock();
+        int ca = index(a), cb = index(b);
+        int ta = tileOf(ca), tb = tileOf(cb);
+        lockTiles(ta, tb);
         try {
-            teleports.put(a, b);
-            teleports.put(b, a);
+            setFlag(ca, TELEPORT, teleports);
+            setFlag(cb, TELEPORT, teleports);
+            teleportTo[ca] = cb;
+            teleportTo[cb] = ca;
+            itemsLock.lock();
+            try { teleportCells = teleports.toArray(); } finally { itemsLock.unlock(); }
+            BoardRecorder r = recorder;
+            if (r != null) r.teleport(ca, cb);
         } finally {
-            rwLock.writeLock().unlock();
+            unlockTiles(ta, tb);
         }
     }
 
     public void addObstacle(Position p) {
-        rwLock.writeLock().lock();
-        try { obstacles.add(p); } finally { rwLock.writeLock().unlock(); }
+        int c = index(p);
+        ReentrantLock lock = tileLocks[tileOf(c)];
+        lock.lock();
+        try { setFlag(c, OBSTACLE, obstacles); } finally { lock.unlock(); }
     }
 
+    /** Spawn a mouse on a random free cell; does nothing if the board is full (or this is a replica). */
     public void addMouse() {
-        Position p = randomEmpty();
-        rwLock.writeLock().lock();
-        try { mice.add(p); } finally { rwLock.writeLock().unlock(); }
+        tryAddMouse();
+    }
+
+    /** {@link #addMouse()} that reports whether a mouse was placed: false once the board is full. */
+    boolean tryAddMouse() {
+        return spawn(MOUSE, mice);
+    }
+
+    public void addMouse(Position p) {
+        int c = index(p);
+        ReentrantLock lock = tileLocks[tileOf(c)];
+        lock.lock();
+        try { setFlag(c, MOUSE, mice); } finally { lock.unlock(); }
     }
 
     public void addTurbo(Position p) {
-        rwLock.writeLock().lock();
-        try { turbo.add(p); } finally { rwLock.writeLock().unlock(); }
+        int c = index(p);
+        ReentrantLock lock = tileLocks[tileOf(c)];
+        lock.lock();
+        try { setFlag(c, TURBO, turbo); } finally { lock.unlock(); }
     }
 
-    /** Single-thread critical section: move 'snake' one step based on its current direction. */
-    public MoveResult step(Snake snake) {
-        rwLock.writeLock().lock();
-        try {
-            if (!snake.isAlive()) return MoveResult.MOVED;
-            Position head = snake.head();
-            Direction d = snake.direction();
-            Position next = new Position(head.x() + d.dx, head.y() + d.dy).wrap(width, height);
-
-            if (obstacles.contains(next)) {
-                // Bounce is handled by caller (e.g., change direction); do not advance
-                return MoveResult.HIT_OBSTACLE;
-            }
+    /**
+     * Put the snake's start cell on the board so others collide with it before its first step
+     * (step() does this lazily otherwise). Returns false, killing the snake, if the cell is already
+     * covered by another snake.
+     */
+    @Override public boolean addSnake(Snake snake) {
+        int start = index(snake.headBits());
+        ReentrantLock lock = tileLocks[tileOf(start)];
+        lock.lock();
+        try { return place(snake, start); } finally { lock.unlock(); }
+    }
 
-            // Teleport if present
-            if (teleports.containsKey(next)) {
-                next = teleports.get(next);
-            }
+    /**
+     * Cell (y*width + x) the snake would enter on its next step, after following a teleport.
+     * Read without locks: a hint for planners, the authoritative outcome is {@link #step}.
+     */
+    public int nextCell(Snake snake) {
+        long head = snake.headBits();
+        Direction d = snake.direction();
+        int target = wrap(Snake.y(head) + d.dy, height) * width + wrap(Snake.x(head) + d.dx, width);
+        int dest = teleportTo[target];
+        return dest < 0 ? target : dest;
+    }
 
-            boolean ateMouse = mice.remove(next);
-            boolean ateTurbo = turbo.remove(next);
+    /**
+     * Move 'snake' one step based on its current direction. Only the tiles of the target cell, of its
+     * teleport destination and of the snake's tail are locked, in ascending order, so snakes in
+     * different areas of the board step in parallel. Respawns happen after those locks are released.
+     * A step that kills the snake is retried holding the tiles of its whole body as well, so the body
+     * leaves the board in the same critical section as the collision and no other step or capture
+     * sees it half cleared. A snake must be stepped by one thread at a time (its runner or the engine).
+     */
+    @Override public MoveResult step(Snake snake) {
+        boolean event = StepEvent.TYPE.isEnabled();
+        StepEvent e = null;
+        if (event) { e = new StepEvent(); e.begin(); }
+        long t0 = System.nanoTime();
+        MoveResult r = move(snake);
+        stepNanos.record(System.nanoTime() - t0);
+        results[r.ordinal()].increment();
+        if (event) {
+            e.result = r.name();
+            e.commit();
+        }
+        return r;
+    }
 
-            snake.advance(next, ateMouse);
+    private MoveResult move(Snake snake) {
+        if (!snake.isAlive()) return MoveResult.MOVED;
+        long head = snake.headBits();
+        int tail = index(snake.tailBits());
+        Direction d = snake.direction();
+        int nx = wrap(Snake.x(head) + d.dx, width);
+        int ny = wrap(Snake.y(head) + d.dy, height);
+        int target = ny * width + nx;
 
-            if (ateMouse) {
-                // Spawn a new obstacle elsewhere and a new mouse
-                addObstacle(randomEmpty());
-                addMouse();
-                return MoveResult.ATE_MOUSE;
-            }
-            if (ateTurbo) {
-                // Replenish turbo tile somewhere else
-                addTurbo(randomEmpty());
-                return MoveResult.ATE_TURBO;
+        boolean ateMouse = false, ateTurbo = false, died = false;
+        MoveResult result = MoveResult.MOVED;
+        int[] body = null;      // set once a collision was seen: retry holding the body's tiles too
+        while (true) {
+            // Teleport destination read ahead of locking; re-checked once its tile is held
+            int dest = teleportTo[target];
+            int t1 = tileOf(target);
+            int t2 = dest < 0 ? t1 : tileOf(dest);
+            int t3 = tileOf(tail);
+            int[] held = body == null ? null : tilesOf(body, t1, t2, t3);
+            if (held == null) lockTiles(t1, t2, t3);
+            else lockTiles(held);
+            try {
+                if (teleportTo[target] != dest) continue;
+                if (!snake.isAlive()) return MoveResult.MOVED;
+                if (snake.id == 0 && !place(snake, tail)) {
+                    died = true;
+                    result = MoveResult.HIT_SNAKE;
+                    break;
+                }
+
+                int next = target;
+                byte flags = cells[next];
+                if ((flags & OBSTACLE) != 0) {
+                    // Bounce is handled by caller (e.g., change direction); do not advance
+                    recordStep(snake, d, MoveResult.HIT_OBSTACLE);
+                    return MoveResult.HIT_OBSTACLE;
+                }
+
+                // Teleport if present
+                if ((flags & TELEPORT) != 0) {
+                    next = dest;
+                    flags = cells[next];
+                }
+
+                // Body collision is one read of the occupancy map. Moving onto our own tail is fine
+                // when the tail leaves in the same step.
+                int hit = owner[next];
+                if (hit != 0 && !(hit == snake.id && next == tail && snake.dropsTailOnMove())) {
+                    if (held == null) {
+                        body = snake.cells(width);
+                        continue;
+                    }
+                    snake.kill();
+                    for (int c : body) {
+                        if (owner[c] == snake.id) vacate(c);
+                    }
+                    died = true;
+                    result = hit == snake.id ? MoveResult.HIT_SELF : MoveResult.HIT_SNAKE;
+                    recordStep(snake, d, result);
+                    break;
+                }
+
+                ateMouse = (flags & MOUSE) != 0;
+                ateTurbo = (flags & TURBO) != 0;
+                if (ateMouse) clearFlag(next, MOUSE, mice);
+                if (ateTurbo) clearFlag(next, TURBO, turbo);
+
+                long dropped = snake.advance(next % width, next / width, ateMouse);
+                snake.moved(d);
+                if (dropped != Snake.NONE) vacate(tail);
+                occupy(next, snake.id);
+                if (recorder != null) {
+                    recordStep(snake, d, ateMouse ? MoveResult.ATE_MOUSE : ateTurbo ? MoveResult.ATE_TURBO : MoveResult.MOVED);
+                }
+                break;
+            } finally {
+                if (held == null) unlockTiles(t1, t2, t3);
+                else unlockTiles(held);
             }
-            return MoveResult.MOVED;
-        } finally {
-            rwLock.writeLock().unlock();
         }
+
+        if (died) return result;
+        if (ateMouse) {
+            // Spawn a new obstacle elsewhere and a new mouse
+            spawn(OBSTACLE, obstacles);
+            addMouse();
+            return MoveResult.ATE_MOUSE;
+        }
+        if (ateTurbo) {
+            // Replenish turbo tile somewhere else
+            spawn(TURBO, turbo);
+            return MoveResult.ATE_TURBO;
+        }
+        return MoveResult.MOVED;
+    }
+
+    /** Caller holds the tile locks of the step. */
+    private void recordStep(Snake snake, Direction d, MoveResult result) {
+        BoardRecorder r = recorder;
+        if (r != null) r.stepped(snake.id, d, result);
+    }
+
+    /** Caller holds the tile lock of 'start'. */
+    private boolean place(Snake snake, int start) {
+        if (snake.id != 0) return true;
+        if (owner[start] != 0) {
+            snake.kill();
+            return false;
+        }
+        snake.id = snakeIds.incrementAndGet();
+        occupy(start, snake.id);
+        return true;
     }
 
-    private Position randomEmpty() {
-        var rnd = ThreadLocalRandom.current();
-        // We only consider board objects; snakes are not tracked here—callers avoid overlaps at creation time.
-        for (int guard=0; guard< width*height*3; guard++) {
-            Position p = new Position(rnd.nextInt(width), rnd.nextInt(height));
-            rwLock.readLock().lock();
+    /**
+     * Place an item on a random free cell (no item, no snake body), uniformly over the free cells. Picks
+     * a tile weighted by its free cells, then a free cell within it under that tile's lock (see
+     * {@link FreeCells}). Returns false if the board is full.
+     */
+    private boolean spawn(byte flag, CellList list) {
+        if (!spawns) return false;
+        Random rnd = seeded != null ? seeded : ThreadLocalRandom.current();
+        while (true) {
+            int tile = free.pickTile(rnd);
+            if (tile < 0) return false;
+            ReentrantLock lock = tileLocks[tile];
+            acquire(tile);
             try {
-                if (!mice.contains(p) && !obstacles.contains(p) && !turbo.contains(p) && !teleports.containsKey(p)) {
-                    return p;
+                int c = free.pick(tile, rnd);
+                // -1: the tile filled up between picking it and locking it; retry
+                if (c >= 0) {
+                    setFlag(c, flag, list);
+                    return true;
                 }
             } finally {
-                rwLock.readLock().unlock();
+                lock.unlock();
             }
         }
-        // Fallback
-        return new Position(0,0);
+    }
+
+    // --- tile locking: always ascending tile order, itemsLock innermost ---
+
+    private int tileOf(int c) {
+        return ((c / width) >> TILE_SHIFT) * tilesX + ((c % width) >> TILE_SHIFT);
+    }
+
+    private void lockTiles(int a, int b) {
+        if (a == b) { tileLocks[a].lock(); return; }
+        tileLocks[Math.min(a, b)].lock();
+        tileLocks[Math.max(a, b)].lock();
+    }
+
+    private void unlockTiles(int a, int b) {
+        tileLocks[a].unlock();
+        if (a != b) tileLocks[b].unlock();
+    }
+
+    private void lockTiles(int a, int b, int c) {
+        // Sort the three tile ids, then lock each distinct one in ascending order
+        if (a > b) { int t = a; a = b; b = t; }
+        if (b > c) { int t = b; b = c; c = t; }
+        if (a > b) { int t = a; a = b; b = t; }
+        acquire(a);
+        if (b != a) acquire(b);
+        if (c != b) acquire(c);
+    }
+
+    /** Lock, timing the wait only when the uncontended fast path fails. */
+    private void acquire(int tile) {
+        ReentrantLock lock = tileLocks[tile];
+        if (lock.tryLock()) return;
+        LockWaitEvent e = LockWaitEvent.TYPE.isEnabled() ? new LockWaitEvent() : null;
+        if (e != null) { e.tile = tile; e.begin(); }
+        long t0 = System.nanoTime();
+        lock.lock();
+        lockWait.record(System.nanoTime() - t0);
+        if (e != null) e.commit();
+    }
+
+    private void unlockTiles(int a, int b, int c) {
+        tileLocks[a].unlock();
+        if (b != a) tileLocks[b].unlock();
+        if (c != a && c != b) tileLocks[c].unlock();
+    }
+
+    /** Distinct tiles of 'cells' plus a, b and c, ascending. */
+    private int[] tilesOf(int[] cells, int a, int b, int c) {
+        int[] t = Arrays.copyOf(cells, cells.length + 3);
+        for (int i = 0; i < cells.length; i++) t[i] = tileOf(cells[i]);
+        t[cells.length] = a;
+        t[cells.length + 1] = b;
+        t[cells.length + 2] = c;
+        Arrays.sort(t);
+        int n = 1;
+        for (int i = 1; i < t.length; i++) if (t[i] != t[n - 1]) t[n++] = t[i];
+        return Arrays.copyOf(t, n);
+    }
+
+    /** 'tiles' must be distinct and ascending. */
+    private void lockTiles(int[] tiles) {
+        for (int t : tiles) acquire(t);
+    }
+
+    private void unlockTiles(int[] tiles) {
+        for (int i = tiles.length - 1; i >= 0; i--) tileLocks[tiles[i]].unlock();
+    }
+
+    // --- cell helpers (caller holds the tile lock of 'c') ---
+
+    private void setFlag(int c, byte flag, CellList list) {
+        if ((cells[c] & flag) == 0) {
+            cells[c] |= flag;
+            free.remove(tileOf(c), c);
+            itemsLock.lock();
+            try { list.add(c); } finally { itemsLock.unlock(); }
+            if (flag != TELEPORT) {
+                itemIndex[itemOf(flag).ordinal()].add(c);
+                BoardRecorder r = recorder;
+                if (r != null) r.placed(itemOf(flag), c);
+            }
+        }
+    }
+
+    private void clearFlag(int c, byte flag, CellList list) {
+        if ((cells[c] & flag) != 0) {
+            cells[c] = (byte) (cells[c] & ~flag);
+            if (cells[c] == 0 && owner[c] == 0) free.add(tileOf(c), c);
+            itemsLock.lock();
+            try { list.remove(c); } finally { itemsLock.unlock(); }
+            if (flag != TELEPORT) itemIndex[itemOf(flag).ordinal()].remove(c);
+        }
+    }
+
+    private static Item itemOf(byte flag) {
+        return flag == MOUSE ? Item.MOUSE : flag == OBSTACLE ? Item.OBSTACLE : Item.TURBO;
+    }
+
+    private void occupy(int c, int id) {
+        owner[c] = id;
+        free.remove(tileOf(c), c);
+    }
+
+    private void vacate(int c) {
+        owner[c] = 0;
+        if (cells[c] == 0) free.add(tileOf(c), c);
+    }
+
+    private List<Position> positions(CellList list) {
+        List<Position> out = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++) out.add(position(list.get(i)));
+        return out;
+    }
+
+    private List<Position> positions(int[] cells) {
+        List<Position> out = new ArrayList<>(cells.length);
+        for (int c : cells) out.add(position(c));
+        return out;
+    }
+
+    private int index(Position p) {
+        return Math.floorMod(p.y(), height) * width + Math.floorMod(p.x(), width);
+    }
+
+    private int index(long packed) {
+        return Math.floorMod(Snake.y(packed), height) * width + Math.floorMod(Snake.x(packed), width);
+    }
+
+    private Position position(int c) {
+        return new Position(c % width, c / width);
+    }
+
+    /** Wrap for coordinates at most one cell outside the board (cheaper than floorMod). */
+    private static int wrap(int v, int size) {
+        return v < 0 ? v + size : (v >= size ? v - size : v);
     }
 }
@@ -0,0 +1,62 @@
+package co.eci.snake.core;
+
+/**
+ * Immutable, versioned view of the whole game (board items plus every snake body) captured at
+ * a single instant. Cells are packed as {@code y*width + x}; use {@link #x(int)} / {@link #y(int)}
+ * to unpack. Frames are published by {@link Board#publishFrame} and read lock-free via
+ * {@link Board#frame()}.
+ */
+public final class BoardFrame {
+    private final long epoch;
+    private final int width;
+    private final int height;
+    private final int[] mice;
+    private final int[] obstacles;
+    private final int[] turbo;
+    private final int[] teleports;
+    private final int[] teleportTargets;
+    private final int[][] snakes;
+    private final boolean[] alive;
+
+    BoardFrame(long epoch, int width, int height, int[] mice, int[] obstacles, int[] turbo,
+               int[] teleports, int[] teleportTargets, int[][] snakes, boolean[] alive) {
+        this.epoch = epoch;
+        this.width = width;
+        this.height = height;
+        this.mice = mice;
+        this.obstacles = obstacles;
+        this.turbo = turbo;
+        this.teleports = teleports;
+        this.teleportTargets = teleportTargets;
+        this.snakes = snakes;
+        this.alive = alive;
+    }
+
+    /** Monotonic frame number; a newer frame always has a larger epoch. */
+    public long epoch() { return epoch; }
+    public int width() { return width; }
+    public int height() { return height; }
+
+    public int x(int cell) { return cell % width; }
+    public int y(int cell) { return cell / width; }
+
+    public int miceCount() { return mice.length; }
+    public int mouse(int i) { return mice[i]; }
+
+    public int obstacleCount() { return obstacles.length; }
+    public int obstacle(int i) { return obstacles[i]; }
+
+    public int turboCount() { return turbo.length; }
+    public int turbo(int i) { return turbo[i]; }
+
+    public int teleportCount() { return teleports.length; }
+    public int teleport(int i) { return teleports[i]; }
+    public int teleportTarget(int i) { return teleportTargets[i]; }
+
+    /** Snakes appear in the order they were passed to {@link Board#publishFrame}. */
+    public int snakeCount() { return snakes.length; }
+    public boolean snakeAlive(int s) { return alive[s]; }
+    public int snakeLength(int s) { return snakes[s].length; }
+    /** Body cell {@code i} of snake {@code s}; index 0 is the head. */
+    public int snakeCell(int s, int i) { return snakes[s][i]; }
+}
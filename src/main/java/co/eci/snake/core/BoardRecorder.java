@@ -0,0 +1,21 @@
+package co.eci.snake.core;
+
+/**
+ * Receives every change a {@link Board} makes, for recording (see {@link Board#record}).
+ * Calls are made while the board holds the locks of the tiles involved, so two changes that touch
+ * the same cells are always reported in the order they happened: replaying the calls one after
+ * another reproduces the game. Implementations must be quick, must not block for long and must not
+ * call back into the board.
+ */
+public interface BoardRecorder {
+    /** Snake {@code snakeId} moved (or tried to) towards {@code dir} with the given outcome. */
+    void stepped(int snakeId, Direction dir, Board.MoveResult result);
+
+    /** An item appeared on {@code cell}: spawned after a step or added through the board's API. */
+    void placed(Board.Item item, int cell);
+
+    void teleport(int a, int b);
+
+    /** Full state, captured while no step is in progress; the first call is the initial state. */
+    void keyframe(BoardState state);
+}
@@ -0,0 +1,133 @@
+package co.eci.snake.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Complete game state at one instant: items as arrays of cell indices ({@code y*width + x}), the
+ * teleport table and every snake's body, growth budget, direction and heading. Captured by
+ * {@link Board#captureState} and turned back into a live board by {@link Board#restore} or
+ * {@link Board#replica}. Immutable; the arrays are never exposed.
+ * <p>
+ * {@link #writeTo}/{@link #read} use a flat layout of ints, in the buffer's byte order, so large
+ * states are copied in bulk: width, height, the four item arrays (length-prefixed, teleport targets
+ * right after the teleports), the snake count, per-snake {@code id, maxLength, alive} as ints and
+ * {@code direction, heading} as bytes, then the body offsets and all bodies concatenated, head first.
+ */
+public final class BoardState {
+    private static final int NO_HEADING = -1;
+
+    final int width;
+    final int height;
+    final int[] mice;
+    final int[] obstacles;
+    final int[] turbo;
+    final int[] teleports;
+    final int[] teleportTargets;
+    // Per snake, in capture order
+    final int[] ids;
+    final boolean[] alive;
+    final byte[] direction;
+    final byte[] heading;
+    final int[] maxLength;
+    // Snake s covers bodies[bodyStart[s] .. bodyStart[s+1])
+    final int[] bodyStart;
+    final int[] bodies;
+
+    BoardState(int width, int height, int[] mice, int[] obstacles, int[] turbo, int[] teleports,
+               int[] teleportTargets, int[] ids, boolean[] alive, byte[] direction, byte[] heading,
+               int[] maxLength, int[] bodyStart, int[] bodies) {
+        this.width = width;
+        this.height = height;
+        this.mice = mice;
+        this.obstacles = obstacles;
+        this.turbo = turbo;
+        this.teleports = teleports;
+        this.teleportTargets = teleportTargets;
+        this.ids = ids;
+        this.alive = alive;
+        this.direction = direction;
+        this.heading = heading;
+        this.maxLength = maxLength;
+        this.bodyStart = bodyStart;
+        this.bodies = bodies;
+    }
+
+    public int width() { return width; }
+    public int height() { return height; }
+    public int snakeCount() { return ids.length; }
+
+    /** Board-assigned id of snake {@code s} (0 if it was never placed). */
+    public int snakeId(int s) { return ids[s]; }
+
+    static byte headingOf(Direction d) { return d == null ? NO_HEADING : (byte) d.ordinal(); }
+
+    static Direction directionOf(byte ordinal) { return ordinal < 0 ? null : Direction.values()[ordinal]; }
+
+    /** Bytes {@link #writeTo} produces. */
+    public int encodedSize() {
+        int n = ids.length;
+        int ints = 2 + 4 + mice.length + obstacles.length + turbo.length + 2 * teleports.length
+                + 1 + 3 * n + (n + 1) + bodies.length;
+        return ints * Integer.BYTES + 2 * n;
+    }
+
+    public void writeTo(ByteBuffer out) {
+        out.putInt(width).putInt(height);
+        putArray(out, mice);
+        putArray(out, obstacles);
+        putArray(out, turbo);
+        putArray(out, teleports);
+        out.asIntBuffer().put(teleportTargets);
+        out.position(out.position() + teleportTargets.length * Integer.BYTES);
+
+        int n = ids.length;
+        out.putInt(n);
+        for (int s = 0; s < n; s++) {
+            out.putInt(ids[s]).putInt(maxLength[s]).putInt(alive[s] ? 1 : 0);
+            out.put(direction[s]).put(heading[s]);
+        }
+        out.asIntBuffer().put(bodyStart);
+        out.position(out.position() + bodyStart.length * Integer.BYTES);
+        out.asIntBuffer().put(bodies);
+        out.position(out.position() + bodies.length * Integer.BYTES);
+    }
+
+    /** Decode a state written by {@link #writeTo}, advancing the buffer past it. */
+    public static BoardState read(ByteBuffer in) {
+        int width = in.getInt(), height = in.getInt();
+        int[] mice = getArray(in, in.getInt());
+        int[] obstacles = getArray(in, in.getInt());
+        int[] turbo = getArray(in, in.getInt());
+        int[] teleports = getArray(in, in.getInt());
+        int[] targets = getArray(in, teleports.length);
+
+        int n = in.getInt();
+        int[] ids = new int[n], maxLength = new int[n];
+        boolean[] alive = new boolean[n];
+        byte[] direction = new byte[n], heading = new byte[n];
+        for (int s = 0; s < n; s++) {
+            ids[s] = in.getInt();
+            maxLength[s] = in.getInt();
+            alive[s] = in.getInt() != 0;
+            direction[s] = in.get();
+            heading[s] = in.get();
+        }
+        int[] bodyStart = getArray(in, n + 1);
+        int[] bodies = getArray(in, bodyStart[n]);
+        return new BoardState(width, height, mice, obstacles, turbo, teleports, targets,
+                ids, alive, direction, heading, maxLength, bodyStart, bodies);
+    }
+
+    private static void putArray(ByteBuffer out, int[] a) {
+        out.putInt(a.length);
+        out.asIntBuffer().put(a);
+        out.position(out.position() + a.length * Integer.BYTES);
+    }
+
+    private static int[] getArray(ByteBuffer in, int length) {
+        int[] a = new int[length];
+        in.asIntBuffer().get(a);
+        in.position(in.position() + length * Integer.BYTES);
+        return a;
+    }
+}
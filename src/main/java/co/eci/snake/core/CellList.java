@@ -0,0 +1,38 @@
+package co.eci.snake.core;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of packed cell indices ({@code y*width + x}) with allocation-free
+ * add/remove. Item counts on the board are small, so removal is a short scan plus
+ * a swap with the last element. Not thread-safe: callers guard it with the board's locks.
+ */
+final class CellList {
+    private int[] cells;
+    private int size;
+
+    CellList(int initialCapacity) {
+        this.cells = new int[Math.max(4, initialCapacity)];
+    }
+
+    int size() { return size; }
+
+    int get(int i) { return cells[i]; }
+
+    void add(int cell) {
+        if (size == cells.length) cells = Arrays.copyOf(cells, size * 2);
+        cells[size++] = cell;
+    }
+
+    boolean remove(int cell) {
+        for (int i = 0; i < size; i++) {
+            if (cells[i] == cell) {
+                cells[i] = cells[--size];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int[] toArray() { return Arrays.copyOf(cells, size); }
+}
@@ -0,0 +1,340 @@
+package co.eci.snake.core;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Torus for very large maps (e.g. 100k x 100k) whose memory follows the area actually visited.
+ * Cells are grouped in {@code CHUNK x CHUNK} chunks that are allocated the first time a snake
+ * touches them and populated from a per-chunk {@link DensityMap}; a chunk nobody visited costs one
+ * null slot in a region directory that is itself allocated lazily. Viewers never allocate chunks.
+ * <p>
+ * Each chunk has its own lock and item flags (one byte per cell). Body occupancy ({@code int} ids)
+ * is only held while a snake is inside the chunk; the array goes back to a pool, already zeroed,
+ * when the last body cell leaves, so vacated chunks cost their flags only. A step locks the chunks of its target
+ * and tail cells (ordered by chunk row, then column), a fatal step those of the whole body too. Eaten items
+ * respawn inside the same chunk, so density stays what the map configured. Population is seeded per chunk, so a chunk's initial items
+ * do not depend on the order chunks are visited in. Teleports are not supported here.
+ */
+public final class ChunkedBoard implements Arena {
+    public static final int CHUNK_SHIFT = 6;
+    public static final int CHUNK = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK - 1;
+    /** Regions group REGION x REGION chunks in the directory. */
+    private static final int REGION_SHIFT = 6;
+    private static final int REGION_MASK = (1 << REGION_SHIFT) - 1;
+    private static final int SPAWN_TRIES = 32;
+    private static final int OWNER_POOL = 1024;
+
+    public static final byte MOUSE = 1;
+    public static final byte OBSTACLE = 1 << 1;
+    public static final byte TURBO = 1 << 2;
+
+    /** Items a chunk starts with. */
+    public record Density(int mice, int obstacles, int turbo) {}
+
+    @FunctionalInterface
+    public interface DensityMap {
+        Density at(int chunkX, int chunkY);
+    }
+
+    private final int width;
+    private final int height;
+    private final int chunksX;
+    private final int regionsX;
+    private final AtomicReferenceArray<AtomicReferenceArray<Chunk>> regions;
+    private final DensityMap density;
+    private final long seed;
+    private final AtomicInteger snakeIds = new AtomicInteger();
+    private final AtomicInteger chunks = new AtomicInteger();
+    // Zeroed owner arrays ready for reuse, and how many exist (in chunks or pooled)
+    private final ConcurrentLinkedQueue<int[]> ownerPool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger ownerArrays = new AtomicInteger();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    private static final class Chunk {
+        final int cx, cy;
+        final int w, h;                     // cells of the chunk inside the board (edge chunks are partial)
+        final byte[] cells = new byte[CHUNK * CHUNK];
+        final ReentrantLock lock = new ReentrantLock();
+        int[] owner;                        // snake id per cell, null while no body is inside; guarded by 'lock'
+        int bodies;                         // non-zero entries of 'owner'
+        final SplittableRandom rnd;         // guarded by 'lock' once published
+
+        Chunk(int cx, int cy, int w, int h, long seed) {
+            this.cx = cx;
+            this.cy = cy;
+            this.w = w;
+            this.h = h;
+            this.rnd = new SplittableRandom(seed ^ (cx * 0x9E3779B97F4A7C15L) ^ (cy * 0xC2B2AE3D27D4EB4FL));
+        }
+
+        boolean before(Chunk o) { return cy != o.cy ? cy < o.cy : cx < o.cx; }
+
+        int owner(int l) { return owner == null ? 0 : owner[l]; }
+    }
+
+    public ChunkedBoard(int width, int height, long seed, DensityMap density) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("board size must be > 0");
+        this.width = width;
+        this.height = height;
+        this.seed = seed;
+        this.density = density;
+        this.chunksX = ((width - 1) >> CHUNK_SHIFT) + 1;
+        int chunksY = ((height - 1) >> CHUNK_SHIFT) + 1;
+        this.regionsX = ((chunksX - 1) >> REGION_SHIFT) + 1;
+        int regionsY = ((chunksY - 1) >> REGION_SHIFT) + 1;
+        this.regions = new AtomicReferenceArray<>(regionsX * regionsY);
+    }
+
+    /** Same density everywhere. */
+    public ChunkedBoard(int width, int height, long seed, Density uniform) {
+        this(width, height, seed, (cx, cy) -> uniform);
+    }
+
+    @Override public int width() { return width; }
+    @Override public int height() { return height; }
+
+    /** Chunks allocated so far. */
+    public int chunkCount() { return chunks.get(); }
+
+    /** Owner arrays allocated, whether in a chunk or pooled. */
+    int ownerArrays() { return ownerArrays.get(); }
+
+    /** Rough heap used by chunk storage (flags plus owner arrays in use or pooled), in bytes. */
+    public long chunkBytes() {
+        return (long) chunks.get() * (CHUNK * CHUNK + 128) + (long) ownerArrays.get() * CHUNK * CHUNK * Integer.BYTES;
+    }
+
+    @Override public boolean addSnake(Snake snake) {
+        long head = snake.headBits();
+        int x = Math.floorMod(Snake.x(head), width), y = Math.floorMod(Snake.y(head), height);
+        Chunk c = chunk(x >> CHUNK_SHIFT, y >> CHUNK_SHIFT);
+        c.lock.lock();
+        try { return place(snake, c, local(x, y)); } finally { c.lock.unlock(); }
+    }
+
+    /**
+     * A step that kills the snake is retried holding the chunks of its whole body as well, so the body
+     * leaves the board in the same critical section as the collision and no other step sees it half cleared.
+     */
+    @Override public Board.MoveResult step(Snake snake) {
+        if (!snake.isAlive()) return Board.MoveResult.MOVED;
+        long head = snake.headBits();
+        long tailBits = snake.tailBits();
+        Direction d = snake.direction();
+        int nx = wrap(Snake.x(head) + d.dx, width);
+        int ny = wrap(Snake.y(head) + d.dy, height);
+        int tx = Snake.x(tailBits), ty = Snake.y(tailBits);
+        Chunk target = chunk(nx >> CHUNK_SHIFT, ny >> CHUNK_SHIFT);
+        Chunk tail = chunk(tx >> CHUNK_SHIFT, ty >> CHUNK_SHIFT);
+
+        long[] body = null;     // set once a collision was seen: retry holding the body's chunks too
+        while (true) {
+            Chunk[] held = body == null ? null : chunksOf(body, target, tail);
+            if (held == null) lock(target, tail);
+            else lock(held);
+            try {
+                if (!snake.isAlive()) return Board.MoveResult.MOVED;
+                if (snake.id == 0 && !place(snake, tail, local(tx, ty))) return Board.MoveResult.HIT_SNAKE;
+
+                int l = local(nx, ny);
+                byte flags = target.cells[l];
+                if ((flags & OBSTACLE) != 0) return Board.MoveResult.HIT_OBSTACLE;
+
+                int hit = target.owner(l);
+                if (hit != 0 && !(hit == snake.id && nx == tx && ny == ty && snake.dropsTailOnMove())) {
+                    if (held == null) {
+                        body = snake.bodyBits();
+                        continue;
+                    }
+                    snake.kill();
+                    for (long b : body) {
+                        int x = Snake.x(b), y = Snake.y(b);
+                        Chunk c = chunk(x >> CHUNK_SHIFT, y >> CHUNK_SHIFT);
+                        int bl = local(x, y);
+                        if (c.owner(bl) == snake.id) vacate(c, bl);
+                    }
+                    return hit == snake.id ? Board.MoveResult.HIT_SELF : Board.MoveResult.HIT_SNAKE;
+                }
+
+                boolean ateMouse = (flags & MOUSE) != 0;
+                boolean ateTurbo = (flags & TURBO) != 0;
+                target.cells[l] = 0;
+                long dropped = snake.advance(nx, ny, ateMouse);
+                snake.moved(d);
+                if (dropped != Snake.NONE) vacate(tail, local(tx, ty));
+                occupy(target, l, snake.id);
+                // Respawn in the same chunk (its lock is held) to keep the configured density
+                if (ateMouse) {
+                    spawn(target, OBSTACLE);
+                    spawn(target, MOUSE);
+                    return Board.MoveResult.ATE_MOUSE;
+                }
+                if (ateTurbo) {
+                    spawn(target, TURBO);
+                    return Board.MoveResult.ATE_TURBO;
+                }
+                return Board.MoveResult.MOVED;
+            } finally {
+                if (held == null) unlock(target, tail);
+                else unlock(held);
+            }
+        }
+    }
+
+    /**
+     * Copy the flags and body owners of chunk (cx, cy) into the caller's CHUNK*CHUNK buffers,
+     * indexed {@code (y % CHUNK) * CHUNK + (x % CHUNK)}. Returns false, copying nothing, if the chunk
+     * was never allocated (it then holds no snakes; its items do not exist yet).
+     */
+    public boolean copyChunk(int cx, int cy, byte[] cellsOut, int[] ownerOut) {
+        Chunk c = existing(cx, cy);
+        if (c == null) return false;
+        c.lock.lock();
+        try {
+            System.arraycopy(c.cells, 0, cellsOut, 0, c.cells.length);
+            if (c.owner != null) System.arraycopy(c.owner, 0, ownerOut, 0, c.owner.length);
+            else Arrays.fill(ownerOut, 0);
+            return true;
+        } finally {
+            c.lock.unlock();
+        }
+    }
+
+    // --- chunks ---
+
+    private Chunk existing(int cx, int cy) {
+        AtomicReferenceArray<Chunk> region = regions.get((cy >> REGION_SHIFT) * regionsX + (cx >> REGION_SHIFT));
+        return region == null ? null : region.get(slot(cx, cy));
+    }
+
+    /** Chunk (cx, cy), allocating and populating it on first use. */
+    private Chunk chunk(int cx, int cy) {
+        int r = (cy >> REGION_SHIFT) * regionsX + (cx >> REGION_SHIFT);
+        AtomicReferenceArray<Chunk> region = regions.get(r);
+        if (region == null) {
+            regions.compareAndSet(r, null, new AtomicReferenceArray<>(1 << (2 * REGION_SHIFT)));
+            region = regions.get(r);
+        }
+        int s = slot(cx, cy);
+        Chunk c = region.get(s);
+        if (c != null) return c;
+        Chunk fresh = new Chunk(cx, cy, Math.min(CHUNK, width - (cx << CHUNK_SHIFT)),
+                Math.min(CHUNK, height - (cy << CHUNK_SHIFT)), seed);
+        Density dens = density.at(cx, cy);
+        // Populated before publication, so no lock is needed yet
+        for (int i = 0; i < dens.mice(); i++) spawn(fresh, MOUSE);
+        for (int i = 0; i < dens.obstacles(); i++) spawn(fresh, OBSTACLE);
+        for (int i = 0; i < dens.turbo(); i++) spawn(fresh, TURBO);
+        if (region.compareAndSet(s, null, fresh)) {
+            chunks.incrementAndGet();
+            return fresh;
+        }
+        return region.get(s);
+    }
+
+    private static int slot(int cx, int cy) {
+        return (cy & REGION_MASK) << REGION_SHIFT | (cx & REGION_MASK);
+    }
+
+    private static int local(int x, int y) {
+        return (y & CHUNK_MASK) << CHUNK_SHIFT | (x & CHUNK_MASK);
+    }
+
+    private static void lock(Chunk a, Chunk b) {
+        if (a == b) { a.lock.lock(); return; }
+        Chunk first = a.before(b) ? a : b;
+        first.lock.lock();
+        (first == a ? b : a).lock.lock();
+    }
+
+    private static void unlock(Chunk a, Chunk b) {
+        a.lock.unlock();
+        if (a != b) b.lock.unlock();
+    }
+
+    /** Distinct chunks of 'body' plus a and b, in lock order. */
+    private Chunk[] chunksOf(long[] body, Chunk a, Chunk b) {
+        Chunk[] all = new Chunk[body.length + 2];
+        for (int i = 0; i < body.length; i++) {
+            all[i] = chunk(Snake.x(body[i]) >> CHUNK_SHIFT, Snake.y(body[i]) >> CHUNK_SHIFT);
+        }
+        all[body.length] = a;
+        all[body.length + 1] = b;
+        Arrays.sort(all, (p, q) -> p.cy != q.cy ? Integer.compare(p.cy, q.cy) : Integer.compare(p.cx, q.cx));
+        int n = 1;
+        for (int i = 1; i < all.length; i++) if (all[i] != all[n - 1]) all[n++] = all[i];
+        return Arrays.copyOf(all, n);
+    }
+
+    /** 'chunks' must be distinct and in lock order. */
+    private static void lock(Chunk[] chunks) {
+        for (Chunk c : chunks) c.lock.lock();
+    }
+
+    private static void unlock(Chunk[] chunks) {
+        for (int i = chunks.length - 1; i >= 0; i--) chunks[i].lock.unlock();
+    }
+
+    /** Caller holds c's lock. */
+    private boolean place(Snake snake, Chunk c, int l) {
+        if (snake.id != 0) return true;
+        if (c.owner(l) != 0) {
+            snake.kill();
+            return false;
+        }
+        snake.id = snakeIds.incrementAndGet();
+        occupy(c, l, snake.id);
+        return true;
+    }
+
+    /** Caller holds c's lock. */
+    private void occupy(Chunk c, int l, int id) {
+        if (c.owner == null) {
+            int[] a = ownerPool.poll();
+            if (a != null) {
+                pooled.decrementAndGet();
+            } else {
+                a = new int[CHUNK * CHUNK];
+                ownerArrays.incrementAndGet();
+            }
+            c.owner = a;
+        }
+        c.owner[l] = id;
+        c.bodies++;
+    }
+
+    /** Caller holds c's lock; cell 'l' holds a body. */
+    private void vacate(Chunk c, int l) {
+        c.owner[l] = 0;
+        if (--c.bodies > 0) return;
+        // All entries are zero again: recycle without clearing
+        if (pooled.incrementAndGet() <= OWNER_POOL) {
+            ownerPool.add(c.owner);
+        } else {
+            pooled.decrementAndGet();
+            ownerArrays.decrementAndGet();
+        }
+        c.owner = null;
+    }
+
+    /** Put 'flag' on a random empty cell of 'c'; gives up after a few probes on a crowded chunk. */
+    private static void spawn(Chunk c, byte flag) {
+        for (int i = 0; i < SPAWN_TRIES; i++) {
+            int l = c.rnd.nextInt(c.h) << CHUNK_SHIFT | c.rnd.nextInt(c.w);
+            if (c.cells[l] == 0 && c.owner(l) == 0) {
+                c.cells[l] = flag;
+                return;
+            }
+        }
+    }
+
+    private static int wrap(int v, int size) {
+        return v < 0 ? v + size : (v >= size ? v - size : v);
+    }
+}
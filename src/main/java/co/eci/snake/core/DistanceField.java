@@ -0,0 +1,145 @@
+package co.eci.snake.core;
+
+import java.util.Arrays;
+
+/**
+ * Steps from every cell to the nearest mouse, shared by all AI snakes. {@link #update} runs one
+ * multi-source BFS from the mice of a {@link BoardFrame}, backwards along the moves a snake can make:
+ * wrap-around edges, obstacles and snake bodies block, and stepping onto a teleport lands on its
+ * partner. {@link #bestMove} then costs four array reads per snake, so thousands of AI snakes pay for
+ * one field per frame instead of one search each.
+ * <p>
+ * One thread updates (whoever publishes frames); any number of threads read. Updates alternate
+ * between two buffers, so a reader that is still looking at the previous field may, rarely, see a
+ * cell of the next one; the worst outcome is a less than optimal turn.
+ */
+public final class DistanceField {
+    /** Distance of cells from which no mouse can be reached. */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    /** Distance of obstacle and body cells. */
+    public static final int BLOCKED = -1;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int width;
+    private final int height;
+    private volatile int[] dist;            // published field, null before the first update
+    private int[] spare;
+    private final int[] queue;
+    private final int[] teleportTo;          // written before 'dist' is published
+    private int[] teleports = new int[0];    // cells set in teleportTo
+    private volatile long epoch = -1;
+    private volatile long computeNanos;
+
+    public DistanceField(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.spare = new int[width * height];
+        this.queue = new int[width * height];
+        this.teleportTo = new int[width * height];
+        Arrays.fill(teleportTo, -1);
+    }
+
+    /** Epoch of the frame the field was computed from, -1 before the first update. */
+    public long epoch() { return epoch; }
+
+    /** Time the last update took, in nanoseconds. */
+    public long computeNanos() { return computeNanos; }
+
+    /** Steps from 'cell' to the nearest mouse, {@link #BLOCKED} or {@link #UNREACHABLE}. */
+    public int distance(int cell) {
+        int[] d = dist;
+        return d == null ? UNREACHABLE : d[cell];
+    }
+
+    /** Recompute from 'f' unless the field already reflects it. Single writer. */
+    public void update(BoardFrame f) {
+        if (f.width() != width || f.height() != height) throw new IllegalArgumentException("frame size differs from the field");
+        if (f.epoch() == epoch) return;
+        long t0 = System.nanoTime();
+        updateTeleports(f);
+        int[] d = spare;
+        Arrays.fill(d, UNREACHABLE);
+        for (int i = 0; i < f.obstacleCount(); i++) d[f.obstacle(i)] = BLOCKED;
+        for (int s = 0; s < f.snakeCount(); s++) {
+            if (!f.snakeAlive(s)) continue;
+            for (int i = 0; i < f.snakeLength(s); i++) d[f.snakeCell(s, i)] = BLOCKED;
+        }
+        int head = 0, tail = 0;
+        for (int i = 0; i < f.miceCount(); i++) {
+            int m = f.mouse(i);
+            if (d[m] == UNREACHABLE) {
+                d[m] = 0;
+                queue[tail++] = m;
+            }
+        }
+        int w = width, h = height, last = w * h;
+        boolean jumps = teleports.length > 0;
+        while (head < tail) {
+            int v = queue[head++];
+            int next = d[v] + 1;
+            // A snake lands on v by stepping onto v itself or, if v is a teleport, onto its partner;
+            // it got there from one of that cell's four neighbours (unrolled, with wrap-around)
+            int e = jumps && teleportTo[v] >= 0 ? teleportTo[v] : v;
+            int y = e / w, row = y * w, x = e - row;
+            int u = x == 0 ? e + w - 1 : e - 1;
+            if (d[u] == UNREACHABLE) { d[u] = next; queue[tail++] = u; }
+            u = x == w - 1 ? row : e + 1;
+            if (d[u] == UNREACHABLE) { d[u] = next; queue[tail++] = u; }
+            u = y == 0 ? e + last - w : e - w;
+            if (d[u] == UNREACHABLE) { d[u] = next; queue[tail++] = u; }
+            u = y == h - 1 ? x : e + w;
+            if (d[u] == UNREACHABLE) { d[u] = next; queue[tail++] = u; }
+        }
+        spare = dist == null ? new int[d.length] : dist;
+        dist = d;
+        epoch = f.epoch();
+        computeNanos = System.nanoTime() - t0;
+    }
+
+    /**
+     * Direction that brings 'snake' closest to a mouse, preferring its current one on ties and never
+     * reversing. Falls back to any unblocked move when no mouse is reachable; null if every move is
+     * blocked (or before the first update).
+     */
+    public Direction bestMove(Snake snake) {
+        int[] d = dist;
+        if (d == null) return null;
+        long h = snake.headBits();
+        int x = Snake.x(h), y = Snake.y(h);
+        Direction heading = snake.heading();
+        Direction current = snake.direction();
+        Direction best = null;
+        int bestDist = BLOCKED;
+        for (Direction dir : DIRECTIONS) {
+            if (heading != null && dir.dx == -heading.dx && dir.dy == -heading.dy) continue;
+            int target = wrap(y + dir.dy, height) * width + wrap(x + dir.dx, width);
+            int land = teleportTo[target];
+            int dd = d[land < 0 ? target : land];
+            if (dd == BLOCKED) continue;
+            if (best == null || dd < bestDist || (dd == bestDist && dir == current)) {
+                best = dir;
+                bestDist = dd;
+            }
+        }
+        return best;
+    }
+
+    private void updateTeleports(BoardFrame f) {
+        if (f.teleportCount() == teleports.length) {
+            boolean same = true;
+            for (int i = 0; i < teleports.length && same; i++) same = teleports[i] == f.teleport(i);
+            if (same) return;
+        }
+        for (int c : teleports) teleportTo[c] = -1;
+        teleports = new int[f.teleportCount()];
+        for (int i = 0; i < teleports.length; i++) {
+            teleports[i] = f.teleport(i);
+            teleportTo[teleports[i]] = f.teleportTarget(i);
+        }
+    }
+
+    private static int wrap(int v, int size) {
+        return v < 0 ? v + size : v >= size ? v - size : v;
+    }
+}
@@ -0,0 +1,123 @@
+package co.eci.snake.core;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Index of the free cells of a board, partitioned by lock tile. Each tile keeps a swap-remove
+ * array of its free cells (O(1) add, remove and random pick); a Fenwick tree over the per-tile
+ * free counts lets {@link #pickTile} choose a tile in proportion to its free cells in O(log tiles).
+ * <p>
+ * Picks are uniform over all free cells: {@link #pickTile} draws a rank in {@code [0, free cells)}
+ * and returns the tile holding it, {@link #pick} then takes a cell of that tile uniformly. Nothing is
+ * rejected, so a spawn costs one draw however full the board is; only a tile that emptied between the
+ * two calls sends the caller round again.
+ * <p>
+ * Per-tile state is guarded by that tile's lock (held by the caller). The tree is updated with atomic
+ * adds, so steps in different tiles never wait for each other; a concurrent reader may see it halfway
+ * through an update, which at worst picks a tile that has no free cell left.
+ */
+final class FreeCells {
+    private final int tiles;
+    private final int tileCells;
+    private final int[] dense;   // tile t owns dense[t*tileCells .. t*tileCells + count[t])
+    private final int[] slot;    // cell -> position in dense, or -1 when not free
+    private final int[] count;   // free cells per tile
+
+    // Fenwick tree over count[], 1-based: weights[i] sums the counts of tiles (i - (i & -i), i]
+    private final AtomicIntegerArray weights;
+    private final int topStep;
+
+    FreeCells(int cells, int tiles, int tileCells) {
+        this.tiles = tiles;
+        this.tileCells = tileCells;
+        this.dense = new int[tiles * tileCells];
+        this.slot = new int[cells];
+        Arrays.fill(slot, -1);
+        this.count = new int[tiles];
+        this.weights = new AtomicIntegerArray(tiles + 1);
+        this.topStep = Integer.highestOneBit(tiles);
+    }
+
+    boolean contains(int cell) { return slot[cell] >= 0; }
+
+    int count(int tile) { return count[tile]; }
+
+    /** Free cells of 'tile', in index order. */
+    int[] cells(int tile) {
+        int[] c = Arrays.copyOfRange(dense, tile * tileCells, tile * tileCells + count[tile]);
+        Arrays.sort(c);
+        return c;
+    }
+
+    /** Tiles with at least one free cell; a scan, for tests and diagnostics. */
+    int openTiles() {
+        int open = 0;
+        for (int t = 0; t < tiles; t++) if (count[t] > 0) open++;
+        return open;
+    }
+
+    /** Free cells on the whole board, as of the last completed updates. */
+    int size() {
+        int sum = 0;
+        for (int i = tiles; i > 0; i -= i & -i) sum += weights.get(i);
+        return sum;
+    }
+
+    void add(int tile, int cell) {
+        if (slot[cell] >= 0) return;
+        int at = tile * tileCells + count[tile]++;
+        dense[at] = cell;
+        slot[cell] = at;
+        weigh(tile, 1);
+    }
+
+    void remove(int tile, int cell) {
+        int at = slot[cell];
+        if (at < 0) return;
+        int last = tile * tileCells + --count[tile];
+        int moved = dense[last];
+        dense[at] = moved;
+        slot[moved] = at;
+        slot[cell] = -1;
+        weigh(tile, -1);
+    }
+
+    /** Random free cell of 'tile', or -1 if it has none (it filled up since {@link #pickTile} chose it). */
+    int pick(int tile, Random rnd) {
+        int n = count[tile];
+        return n == 0 ? -1 : dense[tile * tileCells + rnd.nextInt(n)];
+    }
+
+    /** Random tile, weighted by its free cells a moment ago, or -1 if the board is full. */
+    int pickTile(Random rnd) {
+        while (true) {
+            int total = size();
+            if (total <= 0) return -1;
+            int tile = tileOfRank(rnd.nextInt(total));
+            // Past the last tile only when the tree changed during the descent
+            if (tile < tiles) return tile;
+        }
+    }
+
+    /** Tile holding the free cell of rank 'r', counting tile by tile: the first tile whose prefix sum exceeds r. */
+    private int tileOfRank(int r) {
+        int pos = 0;
+        for (int step = topStep; step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next <= tiles) {
+                int w = weights.get(next);
+                if (w <= r) {
+                    pos = next;
+                    r -= w;
+                }
+            }
+        }
+        return pos;
+    }
+
+    private void weigh(int tile, int delta) {
+        for (int i = tile + 1; i <= tiles; i += i & -i) weights.getAndAdd(i, delta);
+    }
+}
@@ -0,0 +1,212 @@
+package co.eci.snake.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Grid-bucket index of one item kind for nearest, k-nearest and radius queries. Buckets are the
+ * board's lock tiles, so a bucket only changes under its tile lock; each change swaps in a new small
+ * array, and queries read the buckets without locking. Distances are snake steps on the torus
+ * (wrapped Manhattan), ignoring obstacles and bodies. Optionally a query also considers routes through
+ * one teleport: step onto it (the distance to it) and continue from its partner.
+ * <p>
+ * Queries walk rings of buckets outward from the start and stop once no unvisited bucket can beat
+ * what was found. Like {@link Board#nextCell} they are hints: items may change while a query runs.
+ */
+final class ItemIndex {
+    private static final int[] EMPTY = {};
+
+    private final int width;
+    private final int height;
+    private final int shift;
+    private final int size;
+    private final int tilesX;
+    private final int tilesY;
+    // Whether the last bucket column/row is narrower than the others (it then shortens wrapped paths)
+    private final boolean partialX;
+    private final boolean partialY;
+    private final AtomicReferenceArray<int[]> buckets;
+
+    ItemIndex(int width, int height, int shift) {
+        this.width = width;
+        this.height = height;
+        this.shift = shift;
+        this.size = 1 << shift;
+        this.tilesX = ((width - 1) >> shift) + 1;
+        this.tilesY = ((height - 1) >> shift) + 1;
+        this.partialX = (width & (size - 1)) != 0;
+        this.partialY = (height & (size - 1)) != 0;
+        this.buckets = new AtomicReferenceArray<>(tilesX * tilesY);
+        for (int i = 0; i < tilesX * tilesY; i++) buckets.set(i, EMPTY);
+    }
+
+    // --- updates: caller holds the tile lock of 'cell' ---
+
+    void add(int cell) {
+        int b = bucketOf(cell);
+        int[] old = buckets.get(b);
+        int[] next = Arrays.copyOf(old, old.length + 1);
+        next[old.length] = cell;
+        buckets.set(b, next);
+    }
+
+    void remove(int cell) {
+        int b = bucketOf(cell);
+        int[] old = buckets.get(b);
+        for (int i = 0; i < old.length; i++) {
+            if (old[i] != cell) continue;
+            if (old.length == 1) {
+                buckets.set(b, EMPTY);
+            } else {
+                int[] next = Arrays.copyOf(old, old.length - 1);
+                if (i < next.length) next[i] = old[old.length - 1];
+                buckets.set(b, next);
+            }
+            return;
+        }
+    }
+
+    // --- queries ---
+
+    /** Cell of the item closest to 'from' (cell index), or -1 if there is none. */
+    int nearest(int from, int[] teleports, int[] teleportTo) {
+        int[] best = {-1, Integer.MAX_VALUE};
+        Sink sink = new Sink() {
+            @Override public int limit() { return best[1] - 1; }
+            @Override public void offer(int cell, int dist) {
+                if (dist < best[1]) { best[0] = cell; best[1] = dist; }
+            }
+        };
+        search(from, 0, sink);
+        if (teleports != null) {
+            for (int t : teleports) {
+                int d = distance(from, t);
+                if (d < best[1]) search(teleportTo[t], d, sink);
+            }
+        }
+        return best[0];
+    }
+
+    /** Up to 'k' item cells in increasing distance from 'from'. */
+    int[] nearest(int from, int k, int[] teleports, int[] teleportTo) {
+        if (k <= 0) return EMPTY;
+        // Sorted by distance; a cell reached again by a shorter route keeps only the shorter one
+        int[] cells = new int[k], dists = new int[k];
+        int[] n = {0};
+        Sink sink = new Sink() {
+            @Override public int limit() { return n[0] < k ? Integer.MAX_VALUE : dists[k - 1] - 1; }
+            @Override public void offer(int cell, int dist) {
+                int at = -1;
+                for (int i = 0; i < n[0]; i++) if (cells[i] == cell) { at = i; break; }
+                if (at >= 0) {
+                    if (dists[at] <= dist) return;
+                    System.arraycopy(cells, at + 1, cells, at, n[0] - at - 1);
+                    System.arraycopy(dists, at + 1, dists, at, n[0] - at - 1);
+                    n[0]--;
+                } else if (n[0] == k && dist >= dists[k - 1]) {
+                    return;
+                }
+                int i = Math.min(n[0], k - 1);
+                while (i > 0 && dists[i - 1] > dist) {
+                    cells[i] = cells[i - 1];
+                    dists[i] = dists[i - 1];
+                    i--;
+                }
+                cells[i] = cell;
+                dists[i] = dist;
+                if (n[0] < k) n[0]++;
+            }
+        };
+        search(from, 0, sink);
+        if (teleports != null) {
+            for (int t : teleports) {
+                int d = distance(from, t);
+                if (d <= sink.limit()) search(teleportTo[t], d, sink);
+            }
+        }
+        return Arrays.copyOf(cells, n[0]);
+    }
+
+    /** Item cells at most 'radius' steps from 'from', in no particular order. */
+    int[] within(int from, int radius, int[] teleports, int[] teleportTo) {
+        if (radius < 0) return EMPTY;
+        int[][] found = {new int[16]};
+        int[] n = {0};
+        Sink sink = new Sink() {
+            @Override public int limit() { return radius; }
+            @Override public void offer(int cell, int dist) {
+                if (n[0] == found[0].length) found[0] = Arrays.copyOf(found[0], n[0] * 2);
+                found[0][n[0]++] = cell;
+            }
+        };
+        search(from, 0, sink);
+        // One search offers each cell once; routes through teleports can offer it again
+        boolean again = false;
+        if (teleports != null) {
+            for (int t : teleports) {
+                int d = distance(from, t);
+                if (d <= radius) {
+                    search(teleportTo[t], d, sink);
+                    again = true;
+                }
+            }
+        }
+        int[] cells = found[0];
+        if (!again) return Arrays.copyOf(cells, n[0]);
+        Arrays.sort(cells, 0, n[0]);
+        int unique = 0;
+        for (int i = 0; i < n[0]; i++) if (unique == 0 || cells[i] != cells[unique - 1]) cells[unique++] = cells[i];
+        return Arrays.copyOf(cells, unique);
+    }
+
+    /** Steps between two cells on the torus. */
+    int distance(int a, int b) {
+        int dx = Math.abs(a % width - b % width), dy = Math.abs(a / width - b / width);
+        return Math.min(dx, width - dx) + Math.min(dy, height - dy);
+    }
+
+    private interface Sink {
+        /** Largest distance still of interest. */
+        int limit();
+        void offer(int cell, int dist);
+    }
+
+    /** Offer every item within the sink's limit to it, adding 'offset' to each distance. */
+    private void search(int from, int offset, Sink sink) {
+        int bx = (from % width) >> shift, by = (from / width) >> shift;
+        // Bucket offsets covering each axis exactly once
+        int loX = tilesX / 2, hiX = (tilesX - 1) / 2, loY = tilesY / 2, hiY = (tilesY - 1) / 2;
+        int rings = Math.max(Math.max(loX, hiX), Math.max(loY, hiY));
+        for (int r = 0; r <= rings; r++) {
+            if (offset + ringBound(r) > sink.limit()) return;
+            for (int dy = -Math.min(r, loY); dy <= Math.min(r, hiY); dy++) {
+                int ty = Math.floorMod(by + dy, tilesY);
+                if (Math.abs(dy) == r) {
+                    for (int dx = -Math.min(r, loX); dx <= Math.min(r, hiX); dx++) scan(from, offset, bx + dx, ty, sink);
+                } else {
+                    // Inside the ring only its left and right columns are new
+                    if (r <= loX) scan(from, offset, bx - r, ty, sink);
+                    if (r <= hiX) scan(from, offset, bx + r, ty, sink);
+                }
+            }
+        }
+    }
+
+    private void scan(int from, int offset, int tx, int ty, Sink sink) {
+        for (int cell : buckets.get(ty * tilesX + Math.floorMod(tx, tilesX))) {
+            int d = offset + distance(from, cell);
+            if (d <= sink.limit()) sink.offer(cell, d);
+        }
+    }
+
+    /** Lower bound on the steps to any cell in a bucket of ring 'r'. */
+    private int ringBound(int r) {
+        int bx = Math.max(0, (r - 1 - (partialX ? 1 : 0)) * size + 1);
+        int by = Math.max(0, (r - 1 - (partialY ? 1 : 0)) * size + 1);
+        return r == 0 ? 0 : Math.min(bx, by);
+    }
+
+    private int bucketOf(int cell) {
+        return ((cell / width) >> shift) * tilesX + ((cell % width) >> shift);
+    }
+}
@@ -1,23 +1,53 @@
 package co.eci.snake.core;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.locks.StampedLock;
 
+/**
+ * A snake's body and heading. One thread at a time advances it (its runner, under the board's tile
+ * locks) while any number of threads read it. Reads are optimistic: they copy what they need and
+ * validate the stamp, retrying under the read lock only if an advance overlapped. Nothing here uses
+ * monitors, so virtual-thread runners never pin their carrier on a snake.
+ */
 public final class Snake {
-    private final Deque<Position> body = new ArrayDeque<>();
+    /** Returned by the packed advance when no tail segment was dropped. */
+    static final long NONE = -1L;
+
+    // Body as a ring buffer of packed (x, y) segments, head at index 'first'; grows by doubling.
+    // Written under the write lock; readers mask indices with their own copy of 'body', so a torn
+    // read stays in bounds and is thrown away by validate().
+    private final StampedLock lock = new StampedLock();
+    private long[] body = new long[8];
+    private int first = 0;
+    private int size = 0;
     private volatile Direction direction;
+    // Direction of the last move actually made (null before the first one)
+    private volatile Direction heading;
     private volatile boolean alive = true;
     private int maxLength = 5;
+    // Board-assigned id used in its occupancy map (0 = not on a board yet); written under the
+    // start cell's tile lock before the snake's first step
+    int id = 0;
 
-    private Snake(Position start, Direction dir) {
-        body.addFirst(start);
+    private Snake(int x, int y, Direction dir) {
+        addFirst(pack(x, y));
         this.direction = dir;
     }
 
     public static Snake of(int x, int y, Direction dir) {
-        return new Snake(new Position(x,y), dir);
+        return new Snake(x, y, dir);
+    }
+
+    /** Snake with the body cells[from..to) (cell indices, head first), as captured in a {@link BoardState}. */
+    static Snake restore(int width, int[] cells, int from, int to, int maxLength,
+                         Direction dir, Direction heading, boolean alive) {
+        Snake s = new Snake(cells[from] % width, cells[from] / width, dir);
+        for (int i = from + 1; i < to; i++) s.addLast(pack(cells[i] % width, cells[i] / width));
+        s.maxLength = maxLength;
+        s.heading = heading;
+        s.alive = alive;
+        return s;
     }
 
     public boolean isAlive() { return alive; }
@@ -26,28 +56,202 @@ public final class Snake {
     public Direction direction() { return direction; }
 
     public void turn(Direction d) {
-        // No-op if opposite immediate reversal is undesired; allow any for simplicity
+        // Reversing into the neck would always be a self-collision, so it is ignored
+        Direction h = heading;
+        if (h != null && d.dx == -h.dx && d.dy == -h.dy) return;
         this.direction = d;
     }
 
-    public synchronized Position head() {
-        return body.peekFirst();
+    void moved(Direction d) { this.heading = d; }
+
+    Direction heading() { return heading; }
+
+    int maxLength() {
+        long stamp = lock.tryOptimisticRead();
+        int m = maxLength;
+        if (lock.validate(stamp)) return m;
+        stamp = lock.readLock();
+        try {
+            return maxLength;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public Position head() {
+        long h = headBits();
+        return new Position(x(h), y(h));
+    }
+
+    public Position tail() {
+        long t = tailBits();
+        return new Position(x(t), y(t));
+    }
+
+    /** Allocation-free head for the board: packed (x, y), see {@link #x(long)} / {@link #y(long)}. */
+    long headBits() { return segmentBits(0); }
+
+    long tailBits() { return segmentBits(-1); }
+
+    public List<Position> snapshot() {
+        long[] segs = bodyBits();
+        List<Position> out = new ArrayList<>(segs.length);
+        for (long s : segs) out.add(new Position(x(s), y(s)));
+        return out;
+    }
+
+    /**
+     * Copy the body, head first, as cell indices (y*width + x) into the caller's buffer without
+     * allocating. Returns the body length; if it is larger than {@code out.length} only the first
+     * {@code out.length} cells were written and the caller should retry with a bigger buffer.
+     */
+    public int copyCells(int width, int[] out) {
+        long stamp = lock.tryOptimisticRead();
+        int n = copyCells0(width, out);
+        if (lock.validate(stamp)) return n;
+        stamp = lock.readLock();
+        try {
+            return copyCells0(width, out);
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
-    public synchronized List<Position> snapshot() {
-        return new ArrayList<>(body);
+    /** Body as packed (x, y) segments, head first; for boards whose cell index would overflow an int. */
+    long[] bodyBits() {
+        long stamp = lock.tryOptimisticRead();
+        long[] out = bodyBits0();
+        if (lock.validate(stamp)) return out;
+        stamp = lock.readLock();
+        try {
+            return bodyBits0();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Body packed as cell indices (y*width + x), head first. */
+    int[] cells(int width) {
+        long[] segs = bodyBits();
+        int[] out = new int[segs.length];
+        for (int i = 0; i < segs.length; i++) out[i] = y(segs[i]) * width + x(segs[i]);
+        return out;
     }
 
     /** Advance head to newHead; if grow=true, increase length, else maintain maxLength. */
-    public synchronized void advance(Position newHead, boolean grow) {
-        if (!alive) return;
-        body.addFirst(newHead);
-        if (grow) maxLength++;
-        while (body.size() > maxLength) body.removeLast();
+    public void advance(Position newHead, boolean grow) {
+        advance(newHead.x(), newHead.y(), grow);
+    }
+
+    /** Allocation-free advance; returns the packed dropped tail or {@link #NONE}. */
+    long advance(int x, int y, boolean grow) {
+        if (!alive) return NONE;
+        long stamp = lock.writeLock();
+        try {
+            addFirst(pack(x, y));
+            if (grow) maxLength++;
+            long dropped = NONE;
+            while (size > maxLength) {
+                dropped = segment(size - 1);
+                size--;
+            }
+            return dropped;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** True if the next non-growing advance drops the current tail. */
+    boolean dropsTailOnMove() {
+        long stamp = lock.tryOptimisticRead();
+        boolean drops = size >= maxLength;
+        if (lock.validate(stamp)) return drops;
+        stamp = lock.readLock();
+        try {
+            return size >= maxLength;
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     /** Simple length API for stats/paint order (optional). */
-    public synchronized int length() {
-        return body.size();
+    public int length() {
+        long stamp = lock.tryOptimisticRead();
+        int n = size;
+        if (lock.validate(stamp)) return n;
+        stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    static long pack(int x, int y) { return ((long) y << 32) | (x & 0xFFFFFFFFL); }
+    static int x(long packed) { return (int) packed; }
+    static int y(long packed) { return (int) (packed >>> 32); }
+
+    private long segment(int i) {
+        return body[(first + i) & (body.length - 1)];
+    }
+
+    /** Segment 'i' (-1 for the tail), read optimistically. */
+    private long segmentBits(int i) {
+        long stamp = lock.tryOptimisticRead();
+        long s = segment0(i);
+        if (lock.validate(stamp)) return s;
+        stamp = lock.readLock();
+        try {
+            return segment0(i);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // The *0 readers below tolerate racing an advance: only validated results are used.
+
+    private long segment0(int i) {
+        long[] b = body;
+        int at = i < 0 ? first + size - 1 : first + i;
+        return b[at & (b.length - 1)];
+    }
+
+    private int copyCells0(int width, int[] out) {
+        long[] b = body;
+        int f = first, n = size, mask = b.length - 1;
+        for (int i = 0, m = Math.min(n, out.length); i < m; i++) {
+            long s = b[(f + i) & mask];
+            out[i] = y(s) * width + x(s);
+        }
+        return n;
+    }
+
+    private long[] bodyBits0() {
+        long[] b = body;
+        int f = first, n = Math.min(size, b.length), mask = b.length - 1;
+        long[] out = new long[n];
+        for (int i = 0; i < n; i++) out[i] = b[(f + i) & mask];
+        return out;
+    }
+
+    private void addLast(long s) {
+        if (size == body.length) grow();
+        body[(first + size) & (body.length - 1)] = s;
+        size++;
+    }
+
+    private void addFirst(long s) {
+        if (size == body.length) grow();
+        first = (first - 1) & (body.length - 1);
+        body[first] = s;
+        size++;
+    }
+
+    /** Unroll into a buffer twice as large, head at index 0. */
+    private void grow() {
+        long[] grown = new long[body.length * 2];
+        for (int i = 0; i < size; i++) grown[i] = segment(i);
+        body = grown;
+        first = 0;
     }
 }
@@ -1,12 +1,18 @@
 package co.eci.snake.core.engine;
 
 import co.eci.snake.core.GameState;
+import co.eci.snake.metrics.Histogram;
+import co.eci.snake.metrics.MetricsEvents.TickEvent;
 
 import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
 
 public final class GameClock implements AutoCloseable {
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
@@ -14,6 +20,21 @@ public final class GameClock implements AutoCloseable {
     private final Runnable tick;
     private final java.util.concurrent.atomic.AtomicReference<GameState> state = new AtomicReference<>(GameState.STOPPED);
 
+    // Pause gate: a fresh latch per pause, opened by resume()/stop(). Waiters park in the latch
+    // instead of Object.wait(), so virtual-thread runners release their carrier while paused.
+    private static final CountDownLatch OPEN = new CountDownLatch(0);
+    private final ReentrantLock transitions = new ReentrantLock();
+    private volatile CountDownLatch gate = OPEN;
+
+    // Tick drift: how late each tick started versus its fixed-rate schedule; and tick run time
+    private final Histogram tickDrift = new Histogram();
+    private final Histogram tickNanos = new Histogram();
+
+    // Steps in flight (runner moves, wheel tasks, ticks); quiesce() waits for this to reach zero
+    private final AtomicInteger inStep = new AtomicInteger();
+    private volatile Thread quiescer;
+    private final Histogram quiesceNanos = new Histogram();
+
     public GameClock(long periodMillis, Runnable tick) {
         if (periodMillis <= 0) throw new IllegalArgumentException("periodMillis must be > 0");
         this.periodMillis = periodMillis;
@@ -22,29 +43,67 @@ public final class GameClock implements AutoCloseable {
 
     public void start() {
         if (state.compareAndSet(GameState.STOPPED, GameState.RUNNING)) {
-            scheduler.scheduleAtFixedRate(() -> {
-                if (state.get() == GameState.RUNNING) tick.run();
+            long origin = System.nanoTime();
+            long period = TimeUnit.MILLISECONDS.toNanos(periodMillis);
+            scheduler.scheduleAtFixedRate(new Runnable() {
+                private long n = 0;
+                @Override public void run() {
+                    long start = System.nanoTime();
+                    long drift = start - (origin + n++ * period);
+                    tickDrift.record(drift);
+                    if (state.get() != GameState.RUNNING) return;
+                    inStep.incrementAndGet();
+                    try {
+                        if (state.get() != GameState.RUNNING) return;
+                        TickEvent e = TickEvent.TYPE.isEnabled() ? new TickEvent() : null;
+                        if (e != null) { e.drift = drift; e.begin(); }
+                        tick.run();
+                        tickNanos.record(System.nanoTime() - start);
+                        if (e != null) e.commit();
+                    } finally {
+                        exitStep();
+                    }
+                }
             }, 0, periodMillis, TimeUnit.MILLISECONDS);
         }
     }
 
-    public void pause()  { state.set(GameState.PAUSED); }
+    public void pause() {
+        transitions.lock();
+        try {
+            if (state.get() == GameState.PAUSED) return;
+            gate = new CountDownLatch(1);   // before the state, so a waiter that sees PAUSED finds it
+            state.set(GameState.PAUSED);
+        } finally {
+            transitions.unlock();
+        }
+    }
 
-    public synchronized void resume() {
-        if (state.get() == GameState.PAUSED) {
-            state.set(GameState.RUNNING);
-            notifyAll();
+    public void resume() {
+        transitions.lock();
+        try {
+            if (state.compareAndSet(GameState.PAUSED, GameState.RUNNING)) gate.countDown();
+        } finally {
+            transitions.unlock();
         }
+    }
 
+    public void stop() {
+        transitions.lock();
+        try {
+            // Paused runners are let go rather than left waiting for a resume that never comes
+            if (state.getAndSet(GameState.STOPPED) == GameState.PAUSED) gate.countDown();
+        } finally {
+            transitions.unlock();
+        }
     }
-    public void stop()   { state.set(GameState.STOPPED); }
-    @Override public void close() { scheduler.shutdownNow(); }
 
+    @Override public void close() { scheduler.shutdownNow(); }
 
-    public synchronized void waitIfPaused() {
+    public void waitIfPaused() {
         while (state.get() == GameState.PAUSED) {
             try {
-                wait();
+                gate.await();
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 break;
@@ -52,6 +111,64 @@ public final class GameClock implements AutoCloseable {
         }
     }
 
+    /**
+     * Start a step that changes the game; blocks while paused, so a runner that was asleep when the
+     * clock paused cannot step until it resumes. Returns false (without entering) if the thread is
+     * interrupted while waiting; otherwise {@link #exitStep()} must follow.
+     */
+    public boolean enterStep() {
+        while (true) {
+            waitIfPaused();
+            if (Thread.currentThread().isInterrupted()) return false;
+            inStep.incrementAndGet();
+            if (state.get() != GameState.PAUSED) return true;
+            // Paused in between: back out so quiesce() can finish, then wait
+            exitStep();
+        }
+    }
+
+    public void exitStep() {
+        if (inStep.decrementAndGet() == 0) {
+            Thread q = quiescer;
+            if (q != null) LockSupport.unpark(q);
+        }
+    }
+
+    /**
+     * Pause and wait until no step or tick is in flight; from then until {@link #resume()} nothing
+     * changes the game, so the caller can inspect or capture it consistently. Returns the wait in
+     * nanoseconds (also recorded in {@link #quiesceNanos()}). Must not be called from inside a step
+     * or a tick.
+     */
+    public long quiesce() {
+        long t0 = System.nanoTime();
+        pause();
+        quiescer = Thread.currentThread();
+        try {
+            // Bounded park: the unpark from exitStep() can race with a second quiescer
+            while (inStep.get() != 0) LockSupport.parkNanos(this, TimeUnit.MICROSECONDS.toNanos(50));
+        } finally {
+            quiescer = null;
+        }
+        long nanos = System.nanoTime() - t0;
+        quiesceNanos.record(nanos);
+        return nanos;
+    }
+
+    /** Steps and ticks in progress right now. */
+    public int stepsInFlight() { return inStep.get(); }
+
+    /** Time each {@link #quiesce()} took, in nanoseconds. */
+    public Histogram quiesceNanos() { return quiesceNanos; }
+
+    public long periodMillis() { return periodMillis; }
+
+    /** Lateness of each tick against its fixed-rate schedule, in nanoseconds. */
+    public Histogram tickDrift() { return tickDrift; }
+
+    /** Run time of each tick callback, in nanoseconds. */
+    public Histogram tickNanos() { return tickNanos; }
+
     public boolean isRunning() { return state.get() == GameState.RUNNING; }
     public boolean isPaused()  { return state.get() == GameState.PAUSED; }
 }
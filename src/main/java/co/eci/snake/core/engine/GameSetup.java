@@ -0,0 +1,67 @@
+package co.eci.snake.core.engine;
+
+import co.eci.snake.core.Arena;
+import co.eci.snake.core.Board;
+import co.eci.snake.core.ChunkedBoard;
+import co.eci.snake.core.Direction;
+import co.eci.snake.core.Snake;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Builds the board and snakes from system properties; shared by the Swing app and headless runs. */
+public final class GameSetup {
+    private GameSetup() {}
+
+    /** {@code board.width}, {@code board.height} and, if set, {@code seed} for reproducible item placement. */
+    public static Board board() {
+        int width = Integer.getInteger("board.width", 60);
+        int height = Integer.getInteger("board.height", 36);
+        Long seed = Long.getLong("seed");
+        return seed != null ? new Board(width, height, seed) : new Board(width, height);
+    }
+
+    /**
+     * Sparse board for huge maps: {@code board.width}/{@code board.height} (default 100000 each) and
+     * per-chunk item counts {@code chunk.mice} (2), {@code chunk.obstacles} (1), {@code chunk.turbo} (1).
+     */
+    public static ChunkedBoard chunkedBoard() {
+        int width = Integer.getInteger("board.width", 100_000);
+        int height = Integer.getInteger("board.height", 100_000);
+        Long seed = Long.getLong("seed");
+        var density = new ChunkedBoard.Density(Integer.getInteger("chunk.mice", 2),
+                Integer.getInteger("chunk.obstacles", 1), Integer.getInteger("chunk.turbo", 1));
+        return new ChunkedBoard(width, height, seed != null ? seed : System.nanoTime(), density);
+    }
+
+    /** {@code snakes} snakes spaced across the board and registered on it. */
+    public static List<Snake> snakes(Arena board) {
+        return snakes(board, Integer.getInteger("snakes", 2));
+    }
+
+    /** 'n' snakes spaced across the board and registered on it. */
+    public static List<Snake> snakes(Arena board, int n) {
+        int width = board.width();
+        int height = board.height();
+        List<Snake> snakes = new ArrayList<>(n);
+        // Place snakes spaced across the board; with too many for one diagonal, use an even lattice
+        boolean lattice = width / Math.max(1, n) < 3;
+        int cols = Math.max(1, (int) Math.ceil(Math.sqrt(n * (double) width / height)));
+        int rows = Math.max(1, (n + cols - 1) / cols);
+        for (int i=0; i<n; i++) {
+            int x, y;
+            if (lattice) {
+                x = (int) ((i % cols) * (long) width / cols);
+                y = (int) ((i / cols) * (long) height / rows);
+            } else {
+                x = (i * (width / Math.max(1, n))) % Math.max(1, width-1) + 1;
+                y = (i * 3) % Math.max(1, height-1) + 1;
+            }
+            Direction d = Direction.values()[i % Direction.values().length];
+            Snake snake = Snake.of(x, y, d);
+            board.addSnake(snake);
+            snakes.add(snake);
+        }
+        return snakes;
+    }
+}
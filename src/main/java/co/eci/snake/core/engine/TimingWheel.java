@@ -0,0 +1,269 @@
+package co.eci.snake.core.engine;
+
+import co.eci.snake.metrics.Histogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Hierarchical timing wheel for many periodic tasks (one per snake) instead of one sleeping thread
+ * each. A single timer thread advances the wheel every {@code tickMillis}; everything due in that
+ * slot is handed to a small worker pool in batches of {@code wheel.batch} (default 512). A task
+ * returns the milliseconds until its next run (negative to stop), so each snake keeps its own speed
+ * and switches to turbo just by returning a shorter delay. Next runs are measured from the previous
+ * due time, not from when the task actually ran, so late wakeups do not slow a snake down.
+ * <p>
+ * Level 0 has 256 one-tick slots; three more levels of 64 slots each cover 2^26 ticks and cascade
+ * down when level 0 wraps. Scheduling and cascading take one lock; workers reschedule a whole batch
+ * under a single acquisition. While the {@link GameClock} is paused the wheel stops turning, and each
+ * task runs as a clock step so {@link GameClock#quiesce()} also waits for batches in progress.
+ */
+public final class TimingWheel implements AutoCloseable {
+    private static final int L0_BITS = 8, LN_BITS = 6, LEVELS = 4;
+    private static final long MAX_SPAN = 1L << (L0_BITS + (LEVELS - 1) * LN_BITS);
+
+    private static final class Entry {
+        final LongSupplier task;
+        long due;           // tick
+        Entry next;
+
+        Entry(LongSupplier task) { this.task = task; }
+    }
+
+    private final long tickNanos;
+    private final GameClock clock;
+    private final int batchSize = Integer.getInteger("wheel.batch", 512);
+    private final ExecutorService workers;
+    private final Thread timer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Entry[][] slots = new Entry[LEVELS][];
+    private long now = 0;               // last tick processed; guarded by lock
+    private volatile long origin;       // nanoTime of tick 0, shifted forward while paused
+    private volatile boolean running = false;
+
+    private final Histogram lateness = new Histogram();
+    private final LongAdder runs = new LongAdder();
+    private final AtomicInteger tasks = new AtomicInteger();
+    private volatile long batches = 0;  // timer thread only writes
+
+    /** 'clock' (may be null) freezes the wheel while paused and sees each task as a step; it need not be running. */
+    public TimingWheel(long tickMillis, int workerThreads, GameClock clock) {
+        this(tickMillis, workerPool(workerThreads), clock);
+    }
+
+    /** Wheel whose batches run on 'workers'; tests pass one that runs them inline and drive {@link #advance} by hand. */
+    TimingWheel(long tickMillis, ExecutorService workers, GameClock clock) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis must be > 0");
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.clock = clock;
+        slots[0] = new Entry[1 << L0_BITS];
+        for (int l = 1; l < LEVELS; l++) slots[l] = new Entry[1 << LN_BITS];
+        this.workers = workers;
+        this.timer = new Thread(this::turn, "wheel-timer");
+        timer.setDaemon(true);
+    }
+
+    private static ExecutorService workerPool(int threads) {
+        AtomicInteger n = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "wheel-worker-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Uses {@code wheel.tickMs} (default 5) and {@code wheel.workers} (default: available processors). */
+    public TimingWheel(GameClock clock) {
+        this(Long.getLong("wheel.tickMs", 5L),
+                Integer.getInteger("wheel.workers", Runtime.getRuntime().availableProcessors()), clock);
+    }
+
+    /** Run 'task' after 'delayMillis', then again after each delay it returns until that is negative. */
+    public void schedule(LongSupplier task, long delayMillis) {
+        Entry e = new Entry(task);
+        tasks.incrementAndGet();
+        lock.lock();
+        try {
+            e.due = now + Math.max(1, ticks(delayMillis));
+            place(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void start() {
+        if (running) return;
+        running = true;
+        origin = System.nanoTime();
+        timer.start();
+    }
+
+    @Override public void close() {
+        running = false;
+        LockSupport.unpark(timer);
+        workers.shutdownNow();
+        try {
+            timer.join();
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** How late each task ran against its due time, in nanoseconds. */
+    public Histogram lateness() { return lateness; }
+
+    /** Task runs so far. */
+    public long runs() { return runs.sum(); }
+
+    /** Tasks still scheduled. */
+    public int tasks() { return tasks.get(); }
+
+    /** Batches handed to the workers so far. */
+    public long batches() { return batches; }
+
+    public long tickMillis() { return TimeUnit.NANOSECONDS.toMillis(tickNanos); }
+
+    private long ticks(long millis) {
+        return (TimeUnit.MILLISECONDS.toNanos(millis) + tickNanos - 1) / tickNanos;
+    }
+
+    /** Insert into the level whose range covers e.due; lock held, e.due > now. */
+    private void place(Entry e) {
+        long delta = e.due - now;
+        if (delta >= MAX_SPAN) e.due = now + MAX_SPAN - 1;
+        int level = 0, shift = 0;
+        long span = 1L << L0_BITS;
+        while (delta >= span) {
+            shift = L0_BITS + level * LN_BITS;
+            level++;
+            span <<= LN_BITS;
+        }
+        Entry[] wheel = slots[level];
+        int idx = (int) (e.due >>> shift) & (wheel.length - 1);
+        e.next = wheel[idx];
+        wheel[idx] = e;
+    }
+
+    // --- timer thread ---
+
+    private void turn() {
+        long processed = 0;
+        while (running) {
+            long due = origin + (processed + 1) * tickNanos;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            if (clock != null && clock.isPaused()) {
+                // Frozen: slide the schedule so resuming does not fire a burst of overdue ticks
+                origin += tickNanos;
+                continue;
+            }
+            advance(++processed);
+        }
+    }
+
+    /** Make 'tick' (the one after the current tick) current: cascade, then dispatch its slot. One caller at a time. */
+    void advance(long tick) {
+        Entry due0;
+        lock.lock();
+        try {
+            now = tick;
+            cascade();
+            int idx = (int) now & (slots[0].length - 1);
+            due0 = slots[0][idx];
+            slots[0][idx] = null;
+        } finally {
+            lock.unlock();
+        }
+        dispatch(due0);
+    }
+
+    /** When level 0 wraps, move the next slot of each higher level down. Lock held. */
+    private void cascade() {
+        int shift = L0_BITS;
+        for (int level = 1; level < LEVELS; level++) {
+            if ((now & ((1L << shift) - 1)) != 0) return;
+            Entry[] wheel = slots[level];
+            int idx = (int) (now >>> shift) & (wheel.length - 1);
+            Entry e = wheel[idx];
+            wheel[idx] = null;
+            while (e != null) {
+                Entry next = e.next;
+                place(e);
+                e = next;
+            }
+            shift += LN_BITS;
+        }
+    }
+
+    private void dispatch(Entry list) {
+        while (list != null) {
+            Entry head = list;
+            int n = 1;
+            while (n < batchSize && list.next != null) {
+                list = list.next;
+                n++;
+            }
+            Entry rest = list.next;
+            list.next = null;
+            list = rest;
+            batches++;
+            try {
+                workers.execute(() -> runBatch(head));
+            } catch (RuntimeException closed) {
+                return;
+            }
+        }
+    }
+
+    // --- worker threads ---
+
+    private void runBatch(Entry head) {
+        List<Entry> again = new ArrayList<>();
+        long start = origin;
+        for (Entry e = head; e != null; ) {
+            Entry next = e.next;
+            e.next = null;
+            lateness.record(System.nanoTime() - (start + e.due * tickNanos));
+            // Interrupted while paused: the wheel is closing
+            if (clock != null && !clock.enterStep()) return;
+            long delay;
+            try {
+                delay = e.task.getAsLong();
+            } catch (Throwable t) {
+                delay = -1;     // A failing task is dropped, like a runner thread that died
+            } finally {
+                if (clock != null) clock.exitStep();
+            }
+            runs.increment();
+            if (delay >= 0) {
+                e.due += Math.max(1, ticks(delay));
+                again.add(e);
+            } else {
+                tasks.decrementAndGet();
+            }
+            e = next;
+        }
+        if (again.isEmpty()) return;
+        lock.lock();
+        try {
+            for (Entry e : again) {
+                if (e.due <= now) e.due = now + 1;
+                place(e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package co.eci.snake.host;
+
+import co.eci.snake.concurrency.LockstepEngine;
+import co.eci.snake.core.Board;
+import co.eci.snake.core.Snake;
+import co.eci.snake.metrics.Histogram;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * One game on a {@link RoomHost}: its own board, snakes and {@link LockstepEngine}, ticked by the
+ * host's shared workers rather than threads of its own. A room is never ticked by two threads at once.
+ * <p>
+ * Each tick may run for up to {@link #budgetNanos()} of wall time, measured with {@link System#nanoTime()}
+ * around the engine tick: that is how long the room holds a shared worker, preemption included. A tick
+ * that takes longer pushes the next one back by as many periods as it overran (at most {@value #MAX_BACKOFF}, so one GC pause does not park
+ * a room for seconds); a heavy room slows itself down instead of delaying the rooms that share its
+ * workers.
+ */
+public final class Room {
+    public enum State { RUNNING, PAUSED, FINISHED, CLOSED }
+
+    /** Most tick periods an overrun can skip. */
+    public static final int MAX_BACKOFF = 8;
+
+    private final int id;
+    private final Board board;
+    private final List<Snake> snakes;
+    private final LockstepEngine engine;
+    private final long tickMillis;
+    private final long budgetNanos;
+    private final Histogram hostTicks;
+    private final LongSupplier nanoClock;
+    private final AtomicReference<State> state = new AtomicReference<>(State.RUNNING);
+
+    // Only the tick in progress writes these
+    private volatile long ticks;
+    private volatile long steps;
+    private volatile long miceEaten;
+    private volatile int alive;
+    private volatile long overruns;
+    private volatile long tickNanos;
+    private volatile long maxTickNanos;
+
+    Room(int id, Board board, List<Snake> snakes, long seed, long tickMillis, long budgetNanos, Histogram hostTicks) {
+        this(id, board, snakes, seed, tickMillis, budgetNanos, hostTicks, System::nanoTime);
+    }
+
+    /** As above, timing ticks with 'nanoClock' instead of {@link System#nanoTime()}. */
+    Room(int id, Board board, List<Snake> snakes, long seed, long tickMillis, long budgetNanos, Histogram hostTicks,
+         LongSupplier nanoClock) {
+        this.id = id;
+        this.board = board;
+        this.snakes = List.copyOf(snakes);
+        this.engine = LockstepEngine.sequential(board, this.snakes, seed);
+        this.tickMillis = tickMillis;
+        this.budgetNanos = budgetNanos;
+        this.hostTicks = hostTicks;
+        this.nanoClock = nanoClock;
+        this.alive = this.snakes.size();
+    }
+
+    public int id() { return id; }
+    public Board board() { return board; }
+    public List<Snake> snakes() { return snakes; }
+    public State state() { return state.get(); }
+    public long tickMillis() { return tickMillis; }
+    public long budgetNanos() { return budgetNanos; }
+
+    public long ticks() { return ticks; }
+    public long steps() { return steps; }
+    public long miceEaten() { return miceEaten; }
+    public int alive() { return alive; }
+
+    /** Ticks that went over the budget and delayed the next one. */
+    public long overruns() { return overruns; }
+
+    /** Wall time spent in ticks so far, in nanoseconds. */
+    public long tickNanos() { return tickNanos; }
+    public long maxTickNanos() { return maxTickNanos; }
+
+    /** Stop ticking until {@link #resume()}; a tick already running finishes. */
+    public boolean pause() { return state.compareAndSet(State.RUNNING, State.PAUSED); }
+
+    public boolean resume() { return state.compareAndSet(State.PAUSED, State.RUNNING); }
+
+    /** Stop for good; the host drops the room at its next due tick. */
+    void close() {
+        state.set(State.CLOSED);
+        engine.close();
+    }
+
+    /** One tick for the host's timing wheel; returns the delay until the next one, negative to stop. */
+    long tick() {
+        State s = state.get();
+        if (s == State.PAUSED) return tickMillis;
+        if (s != State.RUNNING) return -1;
+        long t0 = nanoClock.getAsLong();
+        engine.run();
+        long spent = nanoClock.getAsLong() - t0;
+
+        long moved = 0;
+        int living = 0;
+        for (int i = 0; i < snakes.size(); i++) {
+            moved += engine.steps(i);
+            if (snakes.get(i).isAlive()) living++;
+        }
+        steps = moved;
+        alive = living;
+        miceEaten = engine.miceEaten();
+        ticks++;
+        tickNanos += spent;
+        if (spent > maxTickNanos) maxTickNanos = spent;
+        hostTicks.record(spent);
+        if (living == 0 && state.compareAndSet(State.RUNNING, State.FINISHED)) return -1;
+        if (spent <= budgetNanos) return tickMillis;
+        overruns++;
+        return tickMillis * Math.min(MAX_BACKOFF, (spent + budgetNanos - 1) / budgetNanos);
+    }
+}
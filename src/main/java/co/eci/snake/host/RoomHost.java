@@ -0,0 +1,95 @@
+package co.eci.snake.host;
+
+import co.eci.snake.core.Board;
+import co.eci.snake.core.Snake;
+import co.eci.snake.core.engine.GameSetup;
+import co.eci.snake.core.engine.TimingWheel;
+import co.eci.snake.metrics.Histogram;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many independent {@link Room}s in one process. Every room is a task on one shared
+ * {@link TimingWheel}, so a room costs memory but no thread: the wheel's timer and its
+ * {@code host.workers} (default: available processors) workers tick all of them. Rooms due in the same
+ * wheel slot run in arrival order, and the per-room tick budget (wall time, see {@link Room}) keeps a
+ * heavy room from holding a worker for more than its share.
+ * <p>
+ * Rooms tick every {@code room.tickMs} (default 80) with a budget of {@code room.budgetMicros}
+ * (default 2000) unless created with their own.
+ */
+public final class RoomHost implements AutoCloseable {
+    private final TimingWheel wheel;
+    private final Map<Integer, Room> rooms = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger removed = new AtomicInteger();
+    private final Histogram tickNanos = new Histogram();
+    private final long tickMillis = Long.getLong("room.tickMs", 80L);
+    private final long budgetNanos = TimeUnit.MICROSECONDS.toNanos(Long.getLong("room.budgetMicros", 2000L));
+
+    public RoomHost() {
+        this(Integer.getInteger("host.workers", Runtime.getRuntime().availableProcessors()));
+    }
+
+    public RoomHost(int workers) {
+        this.wheel = new TimingWheel(Long.getLong("wheel.tickMs", 5L), workers, null);
+        wheel.start();
+    }
+
+    /** New running room with the default tick period and budget. */
+    public Room create(int width, int height, int snakes, long seed) {
+        return create(width, height, snakes, seed, tickMillis, budgetNanos);
+    }
+
+    public Room create(int width, int height, int snakeCount, long seed, long tickMillis, long budgetNanos) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis must be > 0");
+        if (budgetNanos <= 0) throw new IllegalArgumentException("budgetNanos must be > 0");
+        Board board = new Board(width, height, seed);
+        List<Snake> snakes = GameSetup.snakes(board, snakeCount);
+        Room room = new Room(nextId.incrementAndGet(), board, snakes, seed, tickMillis, budgetNanos, tickNanos);
+        rooms.put(room.id(), room);
+        created.incrementAndGet();
+        // Spread first ticks over a period so rooms created together do not all share one slot
+        wheel.schedule(room::tick, 1 + ThreadLocalRandom.current().nextLong(tickMillis));
+        return room;
+    }
+
+    /** Stop and forget room 'id'; false if there is no such room. */
+    public boolean remove(int id) {
+        Room room = rooms.remove(id);
+        if (room == null) return false;
+        room.close();
+        removed.incrementAndGet();
+        return true;
+    }
+
+    /** The room with this id, or null. */
+    public Room room(int id) { return rooms.get(id); }
+
+    /** Live view of the hosted rooms, finished ones included until they are removed. */
+    public Collection<Room> rooms() { return Collections.unmodifiableCollection(rooms.values()); }
+
+    public int size() { return rooms.size(); }
+    public int created() { return created.get(); }
+    public int removed() { return removed.get(); }
+
+    /** Run time of every room tick, in nanoseconds. */
+    public Histogram tickNanos() { return tickNanos; }
+
+    /** How late room ticks started against their due time, in nanoseconds. */
+    public Histogram lateness() { return wheel.lateness(); }
+
+    @Override public void close() {
+        wheel.close();
+        for (Room room : rooms.values()) room.close();
+        rooms.clear();
+    }
+}
@@ -0,0 +1,86 @@
+package co.eci.snake.metrics;
+
+import co.eci.snake.concurrency.SnakeRunner;
+import co.eci.snake.core.Board;
+import co.eci.snake.core.engine.GameClock;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pollable view over the engine's instrumentation: step latency, tile lock waits and move results
+ * from the {@link Board}, tick drift from the {@link GameClock} and per-runner step rates.
+ * Sources are read on demand; nothing here is on the simulation's hot path.
+ */
+public final class EngineMetrics {
+    private final Board board;
+    private final GameClock clock;
+    private final List<SnakeRunner> runners;
+
+    /** {@code clock} may be null (headless lockstep without a clock); {@code runners} may be empty. */
+    public EngineMetrics(Board board, GameClock clock, List<SnakeRunner> runners) {
+        this.board = board;
+        this.clock = clock;
+        this.runners = List.copyOf(runners);
+    }
+
+    public record Snapshot(long steps, long stepP50Nanos, long stepP99Nanos, long stepMaxNanos,
+                           long lockWaits, long lockWaitTotalNanos, long lockWaitP99Nanos,
+                           Map<Board.MoveResult, Long> results,
+                           long ticks, long tickDriftP50Nanos, long tickDriftP99Nanos, long tickDriftMaxNanos,
+                           int runners, double runnerRateMin, double runnerRateAvg, double runnerRateConfigured) {}
+
+    public Snapshot snapshot() {
+        Histogram step = board.stepNanos();
+        Histogram wait = board.lockWait();
+        Map<Board.MoveResult, Long> results = new EnumMap<>(Board.MoveResult.class);
+        for (Board.MoveResult r : Board.MoveResult.values()) results.put(r, board.results(r));
+
+        Histogram drift = clock != null ? clock.tickDrift() : new Histogram();
+        double min = runners.isEmpty() ? 0.0 : Double.MAX_VALUE, sum = 0.0, configured = 0.0;
+        for (SnakeRunner r : runners) {
+            double rate = r.achievedStepsPerSecond();
+            min = Math.min(min, rate);
+            sum += rate;
+            configured = r.configuredStepsPerSecond();
+        }
+        return new Snapshot(step.count(), step.percentile(50), step.percentile(99), step.max(),
+                wait.count(), wait.sum(), wait.percentile(99), results,
+                drift.count(), drift.percentile(50), drift.percentile(99), drift.max(),
+                runners.size(), min, runners.isEmpty() ? 0.0 : sum / runners.size(), configured);
+    }
+
+    /** Multi-line, human-readable dump of {@link #snapshot()}. */
+    public String dump() {
+        Snapshot s = snapshot();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("step      n=%d p50=%.1fus p99=%.1fus max=%.1fus%n",
+                s.steps(), s.stepP50Nanos() / 1e3, s.stepP99Nanos() / 1e3, s.stepMaxNanos() / 1e3));
+        sb.append(String.format("lockwait  n=%d total=%.1fms p99=%.1fus%n",
+                s.lockWaits(), s.lockWaitTotalNanos() / 1e6, s.lockWaitP99Nanos() / 1e3));
+        sb.append("results  ");
+        s.results().forEach((r, n) -> sb.append(' ').append(r).append('=').append(n));
+        sb.append(System.lineSeparator());
+        sb.append(String.format("tick      n=%d drift p50=%.2fms p99=%.2fms max=%.2fms%n",
+                s.ticks(), s.tickDriftP50Nanos() / 1e6, s.tickDriftP99Nanos() / 1e6, s.tickDriftMaxNanos() / 1e6));
+        sb.append(String.format("runners   n=%d steps/sec min=%.1f avg=%.1f configured=%.1f%n",
+                s.runners(), s.runnerRateMin(), s.runnerRateAvg(), s.runnerRateConfigured()));
+        return sb.toString();
+    }
+
+    /** Print {@link #dump()} every {@code periodMillis} on a daemon thread; close the result to stop. */
+    public AutoCloseable startDump(long periodMillis, PrintStream out) {
+        ScheduledExecutorService exec = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        exec.scheduleAtFixedRate(() -> out.print(dump()), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        return exec::shutdownNow;
+    }
+}
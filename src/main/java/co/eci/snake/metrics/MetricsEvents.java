@@ -0,0 +1,41 @@
+package co.eci.snake.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Custom JFR events emitted by the engine. All are disabled by default; enable them in a JFR
+ * configuration (e.g. {@code snake.Step#enabled=true}). Emitters check the event's
+ * {@code TYPE.isEnabled()} first so a disabled event costs no allocation.
+ */
+public final class MetricsEvents {
+    private MetricsEvents() {}
+
+    @Name("snake.Step") @Label("Board Step") @Category("Snake Race")
+    @Description("One Board.step call") @Enabled(false) @StackTrace(false)
+    public static final class StepEvent extends Event {
+        public static final EventType TYPE = EventType.getEventType(StepEvent.class);
+        @Label("Result") public String result;
+    }
+
+    @Name("snake.TileLockWait") @Label("Tile Lock Wait") @Category("Snake Race")
+    @Description("A step or spawn had to wait for a tile lock") @Enabled(false) @StackTrace(false)
+    public static final class LockWaitEvent extends Event {
+        public static final EventType TYPE = EventType.getEventType(LockWaitEvent.class);
+        @Label("Tile") public int tile;
+    }
+
+    @Name("snake.Tick") @Label("Clock Tick") @Category("Snake Race")
+    @Description("One GameClock tick") @Enabled(false) @StackTrace(false)
+    public static final class TickEvent extends Event {
+        public static final EventType TYPE = EventType.getEventType(TickEvent.class);
+        @Label("Drift") @Timespan(Timespan.NANOSECONDS) public long drift;
+    }
+}
@@ -0,0 +1,96 @@
+package co.eci.snake.persist;
+
+import co.eci.snake.core.Board;
+import co.eci.snake.core.BoardState;
+import co.eci.snake.core.Snake;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Saved game: the board's {@link BoardState} plus each snake's remaining turbo ticks, which live in
+ * its {@code SnakeRunner} (or the {@code LockstepEngine}). {@link #capture} pauses the board only
+ * while the state is copied; {@link #write} and {@link #load} go through memory-mapped files in
+ * little-endian order (native on x86 and ARM), so the int arrays are plain bulk copies.
+ * <p>
+ * Layout: magic {@code "SNKC"}, version (short), snake count, turbo ticks per snake, then the
+ * encoded state.
+ */
+public final class Checkpoint {
+    private static final int MAGIC = 0x534E4B43; // "SNKC"
+    private static final short VERSION = 1;
+
+    private final BoardState state;
+    private final int[] turboTicks;
+
+    private Checkpoint(BoardState state, int[] turboTicks) {
+        this.state = state;
+        this.turboTicks = turboTicks;
+    }
+
+    /**
+     * Copy the live game. Steps wait only while the board is copied (all tile locks held); turbo
+     * ticks are read right after, from {@code turboTicks.applyAsInt(i)} for snake {@code i}.
+     */
+    public static Checkpoint capture(Board board, List<Snake> snakes, IntUnaryOperator turboTicks) {
+        BoardState state = board.captureState(snakes);
+        int[] turbo = new int[snakes.size()];
+        for (int i = 0; i < turbo.length; i++) turbo[i] = turboTicks.applyAsInt(i);
+        return new Checkpoint(state, turbo);
+    }
+
+    public BoardState state() { return state; }
+
+    public int snakeCount() { return turboTicks.length; }
+
+    public int turboTicks(int i) { return turboTicks[i]; }
+
+    /** New live board from this checkpoint; its snakes are appended to 'snakes' in saved order. */
+    public Board restore(List<Snake> snakes) {
+        return Board.restore(state, snakes);
+    }
+
+    /**
+     * Write to 'file' through a temporary file that is forced to disk before it is renamed over 'file',
+     * so a crash mid-write, of the process or of the machine, never leaves a truncated checkpoint.
+     */
+    public void write(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        int size = Integer.BYTES + Short.BYTES + Integer.BYTES * (1 + turboTicks.length) + state.encodedSize();
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(MAGIC).putShort(VERSION).putInt(turboTicks.length);
+            out.asIntBuffer().put(turboTicks);
+            out.position(out.position() + turboTicks.length * Integer.BYTES);
+            state.writeTo(out);
+            out.force();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static Checkpoint load(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            in.order(ByteOrder.LITTLE_ENDIAN);
+            if (in.remaining() < 10 || in.getInt() != MAGIC) throw new IOException("not a checkpoint: " + file);
+            short version = in.getShort();
+            if (version != VERSION) throw new IOException("unsupported checkpoint version " + version);
+            int[] turbo = new int[in.getInt()];
+            in.asIntBuffer().get(turbo);
+            in.position(in.position() + turbo.length * Integer.BYTES);
+            BoardState state = BoardState.read(in);
+            if (state.snakeCount() != turbo.length) throw new IOException("corrupt checkpoint: " + file);
+            return new Checkpoint(state, turbo);
+        }
+    }
+}
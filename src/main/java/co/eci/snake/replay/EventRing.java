@@ -0,0 +1,57 @@
+package co.eci.snake.replay;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded multi-producer, single-consumer queue of longs. Producers claim consecutive sequence
+ * numbers (the claim order is the event order), fill their slots and publish them; the consumer
+ * takes published slots strictly in sequence. A producer that finds the ring full spins until the
+ * consumer frees space, so nothing is ever dropped.
+ */
+final class EventRing {
+    private final long[] values;
+    private final AtomicLongArray published;   // seq + 1 once slot (seq & mask) holds event 'seq'
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;             // next sequence the consumer reads
+
+    EventRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.values = new long[size];
+        this.published = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    /** Reserve 'n' consecutive slots and return the first sequence; waits while the ring is full. */
+    long claim(int n) {
+        long seq = claimed.getAndAdd(n);
+        int spins = 0;
+        while (seq + n - consumed > values.length) {
+            if (++spins < 100) Thread.onSpinWait(); else Thread.yield();
+        }
+        return seq;
+    }
+
+    void put(long seq, long value) {
+        int i = (int) seq & mask;
+        values[i] = value;
+        published.set(i, seq + 1);
+    }
+
+    /** Consumer only: copy up to out.length published events, in order; returns how many. */
+    int drain(long[] out) {
+        long seq = consumed;
+        int n = 0;
+        while (n < out.length) {
+            int i = (int) (seq + n) & mask;
+            if (published.get(i) != seq + n + 1) break;
+            out[n++] = values[i];
+        }
+        consumed = seq + n;
+        return n;
+    }
+
+    /** True if every claimed event has been drained. */
+    boolean isEmpty() { return consumed == claimed.get(); }
+}
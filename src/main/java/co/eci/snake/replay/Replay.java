@@ -0,0 +1,177 @@
+package co.eci.snake.replay;
+
+import co.eci.snake.core.Board;
+import co.eci.snake.core.BoardState;
+import co.eci.snake.core.Direction;
+import co.eci.snake.core.Position;
+import co.eci.snake.core.Snake;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static co.eci.snake.replay.ReplayFormat.*;
+
+/**
+ * Plays back a file written by {@link ReplayRecorder} on a {@link Board#replica}, single-threaded
+ * and as fast as the CPU allows. Steps go through {@link Board#step} with the recorded direction, and
+ * items appear exactly where they were recorded. Steps were recorded under the tile locks they
+ * changed, dead bodies included, so the recorded order is a valid serial order of the game and the
+ * replay reproduces it exactly; a step whose result differs from the recorded one counts as a
+ * divergence, which only a damaged file or a changed rule can cause.
+ * <p>
+ * The file is memory-mapped and indexed once on open; {@link #seek} restores the nearest keyframe
+ * at or before the target tick and plays forward from there.
+ */
+public final class Replay {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final Board.MoveResult[] RESULTS = Board.MoveResult.values();
+    private static final Board.Item[] ITEMS = Board.Item.values();
+
+    private final ByteBuffer data;
+    // Keyframe index: tick and position of the state bytes, in file order
+    private long[] keyframeTicks = new long[16];
+    private int[] keyframeAt = new int[16];
+    private int keyframes = 0;
+    private final long totalTicks;
+
+    private Board board;
+    private List<Snake> snakes;
+    private Snake[] byId;
+    private long tick;
+    private long steps;
+    private long divergences;
+
+    private Replay(ByteBuffer data) {
+        this.data = data;
+        if (data.remaining() < HEADER_BYTES || data.getInt(0) != MAGIC) throw new IllegalArgumentException("not a replay file");
+        if (data.getShort(4) != VERSION) throw new IllegalArgumentException("unsupported replay version " + data.getShort(4));
+        this.totalTicks = index();
+        if (keyframes == 0) throw new IllegalArgumentException("replay has no initial keyframe");
+        restore(0);
+    }
+
+    public static Replay open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            return new Replay(map);
+        }
+    }
+
+    public Board board() { return board; }
+    public List<Snake> snakes() { return snakes; }
+
+    /** Ticks completed so far in the current playback. */
+    public long tick() { return tick; }
+
+    /** Ticks in the whole recording. */
+    public long totalTicks() { return totalTicks; }
+
+    /** Steps replayed since the last seek/restore. */
+    public long steps() { return steps; }
+
+    /** Replayed steps whose result differed from the recorded one. */
+    public long divergences() { return divergences; }
+
+    /** Jump to the start of 'target' (0 = initial state), using the closest earlier keyframe. */
+    public void seek(long target) {
+        if (target < 0 || target > totalTicks) throw new IllegalArgumentException("tick out of range: " + target);
+        int k = Arrays.binarySearch(keyframeTicks, 0, keyframes, target);
+        // Several keyframes can share a tick; any of them is fine, but binarySearch may miss the last
+        if (k < 0) k = -k - 2;
+        if (target < tick || keyframeTicks[k] > tick) restore(k);
+        play(target);
+    }
+
+    /** Play until 'target' ticks have completed or the recording ends. */
+    public void play(long target) {
+        ByteBuffer in = data;
+        int w = board.width();
+        while (tick < target && in.hasRemaining()) {
+            int tag = in.get() & 0xFF;
+            switch (tag & 7) {
+                case STEP -> {
+                    Snake s = byId[getVarint(in)];
+                    s.turn(DIRECTIONS[tag >>> 3 & 3]);
+                    if (board.step(s) != RESULTS[tag >>> 5]) divergences++;
+                    steps++;
+                }
+                case ITEM -> {
+                    int c = getVarint(in);
+                    Position p = new Position(c % w, c / w);
+                    switch (ITEMS[tag >>> 3 & 3]) {
+                        case MOUSE -> board.addMouse(p);
+                        case OBSTACLE -> board.addObstacle(p);
+                        case TURBO -> board.addTurbo(p);
+                    }
+                }
+                case TELEPORT -> {
+                    int a = getVarint(in), b = getVarint(in);
+                    board.addTeleportPair(new Position(a % w, a / w), new Position(b % w, b / w));
+                }
+                case TICK -> tick++;
+                case KEYFRAME -> {
+                    getVarint(in);
+                    int size = in.getInt();
+                    in.position(in.position() + size);
+                }
+                case END -> in.position(in.limit());
+                default -> throw new IllegalStateException("corrupt replay: tag " + tag + " at " + (in.position() - 1));
+            }
+        }
+    }
+
+    /** Play the rest of the recording. */
+    public void playToEnd() { play(Long.MAX_VALUE); }
+
+    private void restore(int k) {
+        ByteBuffer in = data.duplicate();
+        in.position(keyframeAt[k]);
+        BoardState state = BoardState.read(in);
+        snakes = new ArrayList<>(state.snakeCount());
+        board = Board.replica(state, snakes);
+        int maxId = 0;
+        for (int s = 0; s < state.snakeCount(); s++) maxId = Math.max(maxId, state.snakeId(s));
+        byId = new Snake[maxId + 1];
+        for (int s = 0; s < state.snakeCount(); s++) byId[state.snakeId(s)] = snakes.get(s);
+        tick = keyframeTicks[k];
+        steps = 0;
+        divergences = 0;
+        data.position(in.position());
+    }
+
+    /** Scan every record once to find the keyframes; returns the number of ticks. A missing END is tolerated. */
+    private long index() {
+        ByteBuffer in = data.duplicate();
+        in.position(HEADER_BYTES);
+        long ticks = 0;
+        while (in.hasRemaining()) {
+            int tag = in.get() & 0xFF;
+            switch (tag & 7) {
+                case STEP, ITEM -> getVarint(in);
+                case TELEPORT -> { getVarint(in); getVarint(in); }
+                case TICK -> ticks++;
+                case KEYFRAME -> {
+                    long t = getVarint(in);
+                    int size = in.getInt();
+                    if (keyframes == keyframeTicks.length) {
+                        keyframeTicks = Arrays.copyOf(keyframeTicks, keyframes * 2);
+                        keyframeAt = Arrays.copyOf(keyframeAt, keyframes * 2);
+                    }
+                    keyframeTicks[keyframes] = t;
+                    keyframeAt[keyframes++] = in.position();
+                    in.position(in.position() + size);
+                }
+                case END -> { return ticks; }
+                default -> throw new IllegalStateException("corrupt replay: tag " + tag + " at " + (in.position() - 1));
+            }
+        }
+        return ticks;
+    }
+}
@@ -0,0 +1,43 @@
+package co.eci.snake.replay;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Replay file layout. After the header ({@code MAGIC}, {@code VERSION}) comes a stream of records,
+ * each starting with a tag byte whose low 3 bits are the record type:
+ * <ul>
+ *   <li>{@code STEP}: direction in bits 3-4, move result in bits 5-7, then the snake id (varint)</li>
+ *   <li>{@code ITEM}: item in bits 3-4, then the cell (varint)</li>
+ *   <li>{@code TELEPORT}: the two cells of the pair (varints)</li>
+ *   <li>{@code TICK}: end of a tick, no payload</li>
+ *   <li>{@code KEYFRAME}: tick (varint), state size (int), then the encoded {@code BoardState}</li>
+ *   <li>{@code END}: clean end of the recording</li>
+ * </ul>
+ * The first record is always the keyframe of tick 0. Cells are {@code y*width + x}.
+ */
+final class ReplayFormat {
+    private ReplayFormat() {}
+
+    static final int MAGIC = 0x534E4B52; // "SNKR"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 6;
+
+    static final int STEP = 0, ITEM = 1, TELEPORT = 2, TICK = 3, KEYFRAME = 4, END = 5;
+
+    static void putVarint(ByteBuffer out, int v) {
+        while ((v & ~0x7F) != 0) {
+            out.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.put((byte) v);
+    }
+
+    static int getVarint(ByteBuffer in) {
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            v |= (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package co.eci.snake.replay;
+
+import co.eci.snake.core.Board;
+import co.eci.snake.core.BoardRecorder;
+import co.eci.snake.core.BoardState;
+import co.eci.snake.core.Direction;
+import co.eci.snake.core.Snake;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static co.eci.snake.replay.ReplayFormat.*;
+
+/**
+ * Records a game to an append-only replay file (see {@link ReplayFormat}). Simulation threads only
+ * push one or two longs per change into an {@link EventRing}; a dedicated writer thread encodes them
+ * and writes through a buffered {@link FileChannel}. Every {@code keyframeTicks} ticks a full
+ * {@link BoardState} is captured so a {@link Replay} can seek without replaying from the start.
+ */
+public final class ReplayRecorder implements BoardRecorder, AutoCloseable {
+    private static final long TYPE_SHIFT = 56;
+
+    private final Board board;
+    private final List<Snake> snakes;
+    private final int keyframeTicks;
+    private final EventRing ring = new EventRing(Integer.getInteger("replay.ringSize", 1 << 16));
+    // Captured states in marker order; captures hold every tile lock, so they never interleave
+    private final ConcurrentLinkedQueue<BoardState> keyframes = new ConcurrentLinkedQueue<>();
+    private final FileChannel channel;
+    private final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16);
+    private final Thread writer;
+    private volatile boolean closing = false;
+    private IOException failure;        // written by the writer thread, read after join
+    private long ticks = 0;             // tick() caller only
+    private volatile long written = 0;  // written by the writer thread only
+
+    private ReplayRecorder(Path file, Board board, Collection<Snake> snakes, int keyframeTicks) throws IOException {
+        this.board = board;
+        this.snakes = List.copyOf(snakes);
+        this.keyframeTicks = Math.max(1, keyframeTicks);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buf.putInt(MAGIC).putShort(VERSION);
+        this.writer = new Thread(this::writeLoop, "replay-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Start recording 'board' to 'file'. {@code replay.keyframeTicks} (default 100) sets the keyframe
+     * interval. Snakes must already be registered with {@link Board#addSnake}.
+     */
+    public static ReplayRecorder start(Path file, Board board, Collection<Snake> snakes) throws IOException {
+        return start(file, board, snakes, Integer.getInteger("replay.keyframeTicks", 100));
+    }
+
+    static ReplayRecorder start(Path file, Board board, Collection<Snake> snakes, int keyframeTicks) throws IOException {
+        ReplayRecorder r = new ReplayRecorder(file, board, snakes, keyframeTicks);
+        board.record(r, r.snakes);
+        return r;
+    }
+
+    /** Mark the end of a simulation tick. Called by the single thread that drives ticks (the clock). */
+    public void tick() {
+        append(TICK, 0);
+        if (++ticks % keyframeTicks == 0) board.keyframe(snakes);
+    }
+
+    /** Bytes written to the file so far. */
+    public long bytesWritten() { return written; }
+
+    @Override public void stepped(int snakeId, Direction dir, Board.MoveResult result) {
+        append(STEP, (long) dir.ordinal() << 40 | (long) result.ordinal() << 32 | (snakeId & 0xFFFFFFFFL));
+    }
+
+    @Override public void placed(Board.Item item, int cell) {
+        append(ITEM, (long) item.ordinal() << 32 | (cell & 0xFFFFFFFFL));
+    }
+
+    @Override public void teleport(int a, int b) {
+        long seq = ring.claim(2);
+        ring.put(seq, (long) TELEPORT << TYPE_SHIFT | (a & 0xFFFFFFFFL));
+        ring.put(seq + 1, b & 0xFFFFFFFFL);
+    }
+
+    @Override public void keyframe(BoardState state) {
+        keyframes.add(state);
+        append(KEYFRAME, 0);
+    }
+
+    private void append(int type, long payload) {
+        ring.put(ring.claim(1), (long) type << TYPE_SHIFT | payload);
+    }
+
+    /** Stop recording, drain everything still queued, write the end marker and close the file. */
+    @Override public void close() throws IOException {
+        board.stopRecording();
+        closing = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) throw failure;
+    }
+
+    // --- writer thread ---
+
+    private void writeLoop() {
+        long[] batch = new long[1024];
+        long tick = 0;
+        boolean teleportPending = false;
+        try {
+            while (true) {
+                int n = ring.drain(batch);
+                if (n == 0) {
+                    if (closing && ring.isEmpty()) break;
+                    if (buf.position() > 0) flush();
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(200));
+                    continue;
+                }
+                for (int i = 0; i < n; i++) {
+                    long e = batch[i];
+                    if (buf.remaining() < 16) flush();
+                    if (teleportPending) {
+                        // Second half of a teleport pair (claimed together, may straddle batches)
+                        putVarint(buf, (int) e);
+                        teleportPending = false;
+                        continue;
+                    }
+                    int type = (int) (e >>> TYPE_SHIFT);
+                    switch (type) {
+                        case STEP -> {
+                            buf.put((byte) (STEP | (int) (e >>> 40 & 3) << 3 | (int) (e >>> 32 & 7) << 5));
+                            putVarint(buf, (int) e);
+                        }
+                        case ITEM -> {
+                            buf.put((byte) (ITEM | (int) (e >>> 32 & 3) << 3));
+                            putVarint(buf, (int) e);
+                        }
+                        case TELEPORT -> {
+                            buf.put((byte) TELEPORT);
+                            putVarint(buf, (int) e);
+                            teleportPending = true;
+                        }
+                        case TICK -> {
+                            buf.put((byte) TICK);
+                            tick++;
+                        }
+                        case KEYFRAME -> writeKeyframe(tick, keyframes.poll());
+                        default -> throw new IllegalStateException("bad event type " + type);
+                    }
+                }
+            }
+            buf.put((byte) END);
+            flush();
+        } catch (IOException e) {
+            failure = e;
+            // Keep draining so producers never block on a full ring
+            while (!(closing && ring.isEmpty())) {
+                if (ring.drain(batch) == 0) LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        } finally {
+            try { channel.close(); } catch (IOException e) { if (failure == null) failure = e; }
+        }
+    }
+
+    private void writeKeyframe(long tick, BoardState state) throws IOException {
+        int size = state.encodedSize();
+        if (buf.remaining() < size + 16) flush();
+        buf.put((byte) KEYFRAME);
+        putVarint(buf, (int) tick);
+        buf.putInt(size);
+        if (buf.remaining() >= size) {
+            state.writeTo(buf);
+            return;
+        }
+        // Larger than the write buffer: encode it on its own
+        flush();
+        ByteBuffer big = ByteBuffer.allocate(size);
+        state.writeTo(big);
+        big.flip();
+        while (big.hasRemaining()) written += channel.write(big);
+    }
+
+    private void flush() throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) written += channel.write(buf);
+        buf.clear();
+    }
+}
@@ -0,0 +1,209 @@
+package co.eci.snake.spectate;
+
+import co.eci.snake.core.BoardFrame;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Turns published {@link BoardFrame}s into spectator messages. Each message is
+ * {@code int length, byte type, payload} (length counts type and payload), big-endian:
+ * <ul>
+ *   <li>{@code KEYFRAME}: epoch (long), width, height, mice, obstacles and turbo as
+ *       count + cells, teleports as count + (cell, target) pairs, then per snake: alive (byte),
+ *       length and cells, head first.</li>
+ *   <li>{@code DELTA}: epoch (long), items added and items removed as count + (kind byte, cell),
+ *       then count + snake updates: index, op byte and, for {@code ADVANCE}, the new head cells
+ *       oldest first plus the number of tail cells removed; for {@code REPLACE}, the whole body.</li>
+ * </ul>
+ * Item kinds are the board's bit flags: 1 mouse, 2 obstacle, 4 turbo. A delta applies to the state
+ * after the previous message. Call {@link #advanceTo} after each frame.
+ * Single-threaded: owned by the server loop.
+ */
+final class FrameEncoder {
+    static final byte KEYFRAME = 1, DELTA = 2;
+    static final byte ADVANCE = 1, DIED = 2, REPLACE = 3;
+    static final byte MOUSE = 1, OBSTACLE = 2, TURBO = 4;
+
+    /** A snake that moved further than this between two frames is sent whole. */
+    private static final int MAX_ADVANCE = 32;
+
+    private BoardFrame last;
+    private byte[] lastFlags = new byte[0];   // item kinds per cell in 'last'
+    private byte[] curFlags = new byte[0];    // item kinds per cell in 'pending'
+    private BoardFrame pending;               // frame the last delta was encoded for
+    private ByteBuffer out = ByteBuffer.allocate(1 << 16);
+
+    /** Last frame encoded; deltas are relative to it. */
+    BoardFrame last() { return last; }
+
+    byte[] keyframe(BoardFrame f) {
+        begin(KEYFRAME);
+        out.putLong(f.epoch()).putInt(f.width()).putInt(f.height());
+        ensure(4 * (f.miceCount() + f.obstacleCount() + f.turboCount() + 2 * f.teleportCount() + 5));
+        out.putInt(f.miceCount());
+        for (int i = 0; i < f.miceCount(); i++) out.putInt(f.mouse(i));
+        out.putInt(f.obstacleCount());
+        for (int i = 0; i < f.obstacleCount(); i++) out.putInt(f.obstacle(i));
+        out.putInt(f.turboCount());
+        for (int i = 0; i < f.turboCount(); i++) out.putInt(f.turbo(i));
+        out.putInt(f.teleportCount());
+        for (int i = 0; i < f.teleportCount(); i++) out.putInt(f.teleport(i)).putInt(f.teleportTarget(i));
+        out.putInt(f.snakeCount());
+        for (int s = 0; s < f.snakeCount(); s++) putBody(f, s, true);
+        return finish();
+    }
+
+    /**
+     * Delta from {@link #last()} to 'f', or null if the frames cannot be diffed (first frame, other
+     * board size, snake set or teleports changed): send a keyframe instead.
+     */
+    byte[] delta(BoardFrame f) {
+        BoardFrame p = last;
+        if (p == null || p.width() != f.width() || p.height() != f.height()
+                || p.snakeCount() != f.snakeCount() || p.teleportCount() != f.teleportCount()) {
+            return null;
+        }
+        begin(DELTA);
+        out.putLong(f.epoch());
+
+        mark(f, curFlags);
+        pending = f;
+        // Added: kinds in 'f' missing from 'last'; removed: the other way round
+        int countAt = out.position();
+        out.putInt(0);
+        int added = 0;
+        added += putChanges(f, curFlags, lastFlags, MOUSE);
+        added += putChanges(f, curFlags, lastFlags, OBSTACLE);
+        added += putChanges(f, curFlags, lastFlags, TURBO);
+        out.putInt(countAt, added);
+        countAt = out.position();
+        out.putInt(0);
+        int removed = 0;
+        removed += putChanges(p, lastFlags, curFlags, MOUSE);
+        removed += putChanges(p, lastFlags, curFlags, OBSTACLE);
+        removed += putChanges(p, lastFlags, curFlags, TURBO);
+        out.putInt(countAt, removed);
+
+        countAt = out.position();
+        out.putInt(0);
+        int updates = 0;
+        for (int s = 0; s < f.snakeCount(); s++) if (putSnakeUpdate(p, f, s)) updates++;
+        out.putInt(countAt, updates);
+        return finish();
+    }
+
+    /** Remember 'f' as the base of the next delta, whether or not a delta was encoded for it. */
+    void advanceTo(BoardFrame f) {
+        if (pending == f) {
+            clear(last, lastFlags);
+            byte[] t = lastFlags; lastFlags = curFlags; curFlags = t;
+        } else {
+            if (pending != null) clear(pending, curFlags);
+            int cells = f.width() * f.height();
+            if (lastFlags.length != cells) {
+                lastFlags = new byte[cells];
+                curFlags = new byte[cells];
+            } else if (last != null) {
+                clear(last, lastFlags);
+            }
+            mark(f, lastFlags);
+        }
+        pending = null;
+        last = f;
+    }
+
+    private static void mark(BoardFrame f, byte[] flags) {
+        for (int i = 0; i < f.miceCount(); i++) flags[f.mouse(i)] |= MOUSE;
+        for (int i = 0; i < f.obstacleCount(); i++) flags[f.obstacle(i)] |= OBSTACLE;
+        for (int i = 0; i < f.turboCount(); i++) flags[f.turbo(i)] |= TURBO;
+    }
+
+    private static void clear(BoardFrame f, byte[] flags) {
+        for (int i = 0; i < f.miceCount(); i++) flags[f.mouse(i)] = 0;
+        for (int i = 0; i < f.obstacleCount(); i++) flags[f.obstacle(i)] = 0;
+        for (int i = 0; i < f.turboCount(); i++) flags[f.turbo(i)] = 0;
+    }
+
+    /** Write (kind, cell) for each cell of kind 'k' listed in 'f' whose flag is set in 'has' but not in 'other'. */
+    private int putChanges(BoardFrame f, byte[] has, byte[] other, byte k) {
+        int n = k == MOUSE ? f.miceCount() : k == OBSTACLE ? f.obstacleCount() : f.turboCount();
+        int written = 0;
+        for (int i = 0; i < n; i++) {
+            int c = k == MOUSE ? f.mouse(i) : k == OBSTACLE ? f.obstacle(i) : f.turbo(i);
+            if ((has[c] & k) != 0 && (other[c] & k) == 0) {
+                ensure(5);
+                out.put(k).putInt(c);
+                written++;
+            }
+        }
+        return written;
+    }
+
+    private boolean putSnakeUpdate(BoardFrame p, BoardFrame f, int s) {
+        boolean wasAlive = p.snakeAlive(s) && p.snakeLength(s) > 0;
+        boolean alive = f.snakeAlive(s) && f.snakeLength(s) > 0;
+        if (!alive) {
+            if (!wasAlive) return false;
+            ensure(5);
+            out.putInt(s).put(DIED);
+            return true;
+        }
+        int pl = wasAlive ? p.snakeLength(s) : 0, cl = f.snakeLength(s);
+        // New heads: cells in front of the previous head
+        int k = -1;
+        if (pl > 0) {
+            int prevHead = p.snakeCell(s, 0);
+            for (int i = 0; i < Math.min(cl, MAX_ADVANCE + 1); i++) {
+                if (f.snakeCell(s, i) == prevHead) { k = i; break; }
+            }
+        }
+        int dropped = pl - (cl - k);
+        if (k >= 0 && dropped >= 0 && sameTail(p, f, s, k)) {
+            if (k == 0 && dropped == 0) return false;
+            ensure(13 + 4 * k);
+            out.putInt(s).put(ADVANCE).putInt(k);
+            for (int i = k - 1; i >= 0; i--) out.putInt(f.snakeCell(s, i));
+            out.putInt(dropped);
+            return true;
+        }
+        ensure(9);
+        out.putInt(s).put(REPLACE);
+        putBody(f, s, false);
+        return true;
+    }
+
+    /** True if the body after the 'k' new heads matches the start of the previous body. */
+    private static boolean sameTail(BoardFrame p, BoardFrame f, int s, int k) {
+        for (int i = k; i < f.snakeLength(s); i++) {
+            if (f.snakeCell(s, i) != p.snakeCell(s, i - k)) return false;
+        }
+        return true;
+    }
+
+    private void putBody(BoardFrame f, int s, boolean withAlive) {
+        int len = f.snakeAlive(s) || withAlive ? f.snakeLength(s) : 0;
+        ensure(5 + 4 * len);
+        if (withAlive) out.put((byte) (f.snakeAlive(s) ? 1 : 0));
+        out.putInt(len);
+        for (int i = 0; i < len; i++) out.putInt(f.snakeCell(s, i));
+    }
+
+    private void begin(byte type) {
+        out.clear();
+        out.putInt(0).put(type);
+    }
+
+    private byte[] finish() {
+        out.putInt(0, out.position() - Integer.BYTES);
+        return Arrays.copyOf(out.array(), out.position());
+    }
+
+    private void ensure(int bytes) {
+        if (out.remaining() >= bytes) return;
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+        out.flip();
+        bigger.put(out);
+        out = bigger;
+    }
+}
@@ -0,0 +1,202 @@
+package co.eci.snake.spectate;
+
+import co.eci.snake.core.BoardFrame;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static co.eci.snake.spectate.FrameEncoder.*;
+
+/**
+ * Minimal spectator: connects to a {@link SpectatorServer} and rebuilds the game from its keyframes
+ * and deltas. Blocking and single-threaded; call {@link #next} in a loop. Run it directly to watch a
+ * game from the terminal: {@code SpectatorClient [host] [port] [seconds]}.
+ */
+public final class SpectatorClient implements AutoCloseable {
+    private final Socket socket;
+    private final DataInputStream in;
+
+    private long epoch = -1;
+    private int width, height;
+    private byte[] items = new byte[0];    // item kinds per cell
+    private int[] teleports = new int[0];
+    private int[] teleportTargets = new int[0];
+    private final List<ArrayDeque<Integer>> bodies = new ArrayList<>();   // head first
+    private boolean[] alive = new boolean[0];
+    private long keyframes, deltas, bytes;
+
+    public SpectatorClient(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+    }
+
+    /** Epoch of the last frame applied, -1 before the first keyframe. */
+    public long epoch() { return epoch; }
+    public int width() { return width; }
+    public int height() { return height; }
+    public long keyframes() { return keyframes; }
+    public long deltas() { return deltas; }
+    public long bytes() { return bytes; }
+
+    /** Item kinds at 'cell' as bit flags: 1 mouse, 2 obstacle, 4 turbo. */
+    public int items(int cell) { return items[cell]; }
+
+    public int snakeCount() { return bodies.size(); }
+    public boolean snakeAlive(int s) { return alive[s]; }
+
+    /** Body of snake 's', head first. */
+    public int[] snakeBody(int s) {
+        return bodies.get(s).stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /** Read and apply one message; false once the server closed the connection. */
+    public boolean next() throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return false;
+        }
+        bytes += Integer.BYTES + length;
+        byte type = in.readByte();
+        switch (type) {
+            case KEYFRAME -> readKeyframe();
+            case DELTA -> readDelta();
+            default -> throw new IOException("unknown message type " + type);
+        }
+        return true;
+    }
+
+    /** True if the rebuilt state equals 'f' (same epoch, items, teleports and bodies). */
+    public boolean matches(BoardFrame f) {
+        if (f.epoch() != epoch || f.width() != width || f.height() != height || f.snakeCount() != bodies.size()) return false;
+        byte[] expected = new byte[width * height];
+        for (int i = 0; i < f.miceCount(); i++) expected[f.mouse(i)] |= MOUSE;
+        for (int i = 0; i < f.obstacleCount(); i++) expected[f.obstacle(i)] |= OBSTACLE;
+        for (int i = 0; i < f.turboCount(); i++) expected[f.turbo(i)] |= TURBO;
+        if (!Arrays.equals(expected, items) || f.teleportCount() != teleports.length) return false;
+        for (int i = 0; i < teleports.length; i++) {
+            if (f.teleport(i) != teleports[i] || f.teleportTarget(i) != teleportTargets[i]) return false;
+        }
+        for (int s = 0; s < bodies.size(); s++) {
+            if (f.snakeAlive(s) != alive[s]) return false;
+            if (!alive[s]) continue;
+            int[] body = snakeBody(s);
+            if (body.length != f.snakeLength(s)) return false;
+            for (int i = 0; i < body.length; i++) if (body[i] != f.snakeCell(s, i)) return false;
+        }
+        return true;
+    }
+
+    @Override public void close() throws IOException {
+        socket.close();
+    }
+
+    private void readKeyframe() throws IOException {
+        epoch = in.readLong();
+        width = in.readInt();
+        height = in.readInt();
+        items = new byte[width * height];
+        readItems(MOUSE);
+        readItems(OBSTACLE);
+        readItems(TURBO);
+        int n = in.readInt();
+        teleports = new int[n];
+        teleportTargets = new int[n];
+        for (int i = 0; i < n; i++) {
+            teleports[i] = in.readInt();
+            teleportTargets[i] = in.readInt();
+        }
+        int snakes = in.readInt();
+        bodies.clear();
+        alive = new boolean[snakes];
+        for (int s = 0; s < snakes; s++) {
+            alive[s] = in.readByte() != 0;
+            bodies.add(readBody());
+        }
+        keyframes++;
+    }
+
+    private void readItems(byte kind) throws IOException {
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) items[in.readInt()] |= kind;
+    }
+
+    private void readDelta() throws IOException {
+        if (epoch < 0) throw new IOException("delta before the first keyframe");
+        epoch = in.readLong();
+        int added = in.readInt();
+        for (int i = 0; i < added; i++) {
+            byte kind = in.readByte();
+            items[in.readInt()] |= kind;
+        }
+        int removed = in.readInt();
+        for (int i = 0; i < removed; i++) {
+            byte kind = in.readByte();
+            items[in.readInt()] &= (byte) ~kind;
+        }
+        int updates = in.readInt();
+        for (int u = 0; u < updates; u++) {
+            int s = in.readInt();
+            byte op = in.readByte();
+            ArrayDeque<Integer> body = bodies.get(s);
+            switch (op) {
+                case ADVANCE -> {
+                    int heads = in.readInt();
+                    for (int i = 0; i < heads; i++) body.addFirst(in.readInt());
+                    int tails = in.readInt();
+                    for (int i = 0; i < tails; i++) body.pollLast();
+                    alive[s] = true;
+                }
+                case DIED -> {
+                    body.clear();
+                    alive[s] = false;
+                }
+                case REPLACE -> {
+                    bodies.set(s, readBody());
+                    alive[s] = true;
+                }
+                default -> throw new IOException("unknown snake update " + op);
+            }
+        }
+        deltas++;
+    }
+
+    private ArrayDeque<Integer> readBody() throws IOException {
+        int len = in.readInt();
+        ArrayDeque<Integer> body = new ArrayDeque<>(Math.max(len, 4));
+        for (int i = 0; i < len; i++) body.addLast(in.readInt());
+        return body;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 7777;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : Long.MAX_VALUE;
+        try (var client = new SpectatorClient(host, port)) {
+            long start = System.nanoTime(), nextReport = start + 1_000_000_000L;
+            long lastBytes = 0;
+            while (client.next()) {
+                long now = System.nanoTime();
+                if (now < nextReport) continue;
+                int alive = 0, mice = 0;
+                for (int s = 0; s < client.snakeCount(); s++) if (client.snakeAlive(s)) alive++;
+                for (byte b : client.items) if ((b & MOUSE) != 0) mice++;
+                System.out.printf("epoch=%d board=%dx%d alive=%d/%d mice=%d keyframes=%d deltas=%d %.1f KB/s%n",
+                        client.epoch(), client.width(), client.height(), alive, client.snakeCount(), mice,
+                        client.keyframes(), client.deltas(), (client.bytes() - lastBytes) / 1024.0);
+                lastBytes = client.bytes();
+                nextReport += 1_000_000_000L;
+                if ((now - start) / 1_000_000_000L >= seconds) break;
+            }
+        }
+    }
+}
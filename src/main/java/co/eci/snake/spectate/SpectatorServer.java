@@ -0,0 +1,237 @@
+package co.eci.snake.spectate;
+
+import co.eci.snake.core.Board;
+import co.eci.snake.core.BoardFrame;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Streams a board to TCP spectators (protocol in {@link FrameEncoder}). One selector thread polls
+ * {@link Board#frame()} every {@code spectate.pollMs} (default 20) ms, encodes each new frame once
+ * as a delta and queues the same bytes on every client. The simulation is never touched: whoever
+ * drives the game keeps publishing frames and the server only reads them.
+ * <p>
+ * Each client has a bounded queue ({@code spectate.clientBufferBytes}, default 256 KiB). When a delta
+ * does not fit, the client's queued messages are dropped (except one already partly written) and it
+ * gets a fresh keyframe once its queue has drained below half the limit. The kernel send buffer is
+ * pinned to {@code spectate.socketBufferBytes} (default 64 KiB) so slow clients are noticed early.
+ */
+public final class SpectatorServer implements AutoCloseable {
+    private final Board board;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final Thread loop;
+    private final long pollMs = Long.getLong("spectate.pollMs", 20L);
+    private final int clientLimit = Integer.getInteger("spectate.clientBufferBytes", 256 * 1024);
+    private final int socketBuffer = Integer.getInteger("spectate.socketBufferBytes", 64 * 1024);
+    private final ByteBuffer discard = ByteBuffer.allocate(512);
+    private final FrameEncoder encoder = new FrameEncoder();
+    private final List<Client> clients = new ArrayList<>();
+    private byte[] keyframe;            // keyframe of encoder.last(), encoded on demand
+    private volatile boolean running = true;
+
+    // Loop thread only writes these
+    private volatile int connected;
+    private volatile long frames;
+    private volatile long keyframesSent;
+    private volatile long deltasSent;
+    private volatile long drops;
+    private volatile long bytesSent;
+
+    private static final class Client {
+        final SocketChannel channel;
+        final ArrayDeque<ByteBuffer> queue = new ArrayDeque<>();
+        int queued;            // bytes left to write
+        boolean synced;        // has a keyframe and every delta since
+
+        Client(SocketChannel channel) { this.channel = channel; }
+    }
+
+    private SpectatorServer(Board board, InetSocketAddress address) throws IOException {
+        this.board = board;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(address, 512);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        this.loop = new Thread(this::serve, "spectator-server");
+        loop.setDaemon(true);
+        loop.start();
+    }
+
+    /** Listen on 'port' (0 picks a free one) on all interfaces. */
+    public static SpectatorServer start(Board board, int port) throws IOException {
+        return new SpectatorServer(board, new InetSocketAddress(port));
+    }
+
+    public int port() {
+        return server.socket().getLocalPort();
+    }
+
+    public int clients() { return connected; }
+    public long frames() { return frames; }
+    public long keyframesSent() { return keyframesSent; }
+    public long deltasSent() { return deltasSent; }
+
+    /** Times a slow client's queue was dropped and it had to resync from a keyframe. */
+    public long drops() { return drops; }
+    public long bytesSent() { return bytesSent; }
+
+    @Override public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            loop.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- selector thread ---
+
+    private void serve() {
+        try {
+            while (running) {
+                selector.select(pollMs);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) accept();
+                    else {
+                        Client c = (Client) key.attachment();
+                        if (key.isReadable()) read(key, c);
+                        if (key.isValid() && key.isWritable()) flush(key, c);
+                    }
+                }
+                BoardFrame f = board.frame();
+                BoardFrame last = encoder.last();
+                if (f != null && (last == null || f.epoch() > last.epoch())) broadcast(f);
+            }
+        } catch (IOException e) {
+            // Selector or server socket failed; nothing left to serve
+        } finally {
+            for (Client c : clients) closeQuietly(c.channel);
+            closeQuietly(server);
+            closeQuietly(selector);
+            connected = 0;
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch;
+        while ((ch = server.accept()) != null) {
+            ch.configureBlocking(false);
+            ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            // A fixed kernel buffer keeps the per-client limit meaningful (autotuning can grow to megabytes)
+            ch.setOption(StandardSocketOptions.SO_SNDBUF, socketBuffer);
+            Client c = new Client(ch);
+            clients.add(c);
+            connected = clients.size();
+            SelectionKey key = ch.register(selector, SelectionKey.OP_READ, c);
+            // Start from the frame the next delta will be based on
+            if (encoder.last() != null) sendKeyframe(key, c);
+        }
+    }
+
+    /** Spectators never send anything; reading only notices disconnects. */
+    private void read(SelectionKey key, Client c) {
+        try {
+            discard.clear();
+            if (c.channel.read(discard) < 0) drop(key, c);
+        } catch (IOException e) {
+            drop(key, c);
+        }
+    }
+
+    private void broadcast(BoardFrame f) {
+        frames++;
+        if (clients.isEmpty()) {
+            encoder.advanceTo(f);
+            keyframe = null;
+            return;
+        }
+        byte[] delta = encoder.delta(f);
+        encoder.advanceTo(f);
+        keyframe = null;
+        for (Client c : new ArrayList<>(clients)) {
+            SelectionKey key = c.channel.keyFor(selector);
+            if (key == null || !key.isValid()) continue;
+            if (delta == null) c.synced = false;
+            if (!c.synced) {
+                if (c.queued <= clientLimit / 2) sendKeyframe(key, c);
+            } else if (c.queued + delta.length > clientLimit) {
+                // Too slow: forget the backlog and catch up from a keyframe later
+                ByteBuffer partial = c.queue.peekFirst();
+                c.queue.clear();
+                c.queued = 0;
+                if (partial != null && partial.position() > 0) {
+                    c.queue.add(partial);
+                    c.queued = partial.remaining();
+                }
+                c.synced = false;
+                drops++;
+            } else {
+                enqueue(key, c, delta);
+                deltasSent++;
+            }
+        }
+    }
+
+    private void sendKeyframe(SelectionKey key, Client c) {
+        if (keyframe == null) keyframe = encoder.keyframe(encoder.last());
+        c.synced = true;
+        keyframesSent++;
+        enqueue(key, c, keyframe);
+    }
+
+    private void enqueue(SelectionKey key, Client c, byte[] message) {
+        c.queue.add(ByteBuffer.wrap(message));
+        c.queued += message.length;
+        flush(key, c);
+    }
+
+    /** Write as much as the socket takes now; wait for OP_WRITE for the rest. */
+    private void flush(SelectionKey key, Client c) {
+        try {
+            ByteBuffer b;
+            while ((b = c.queue.peekFirst()) != null) {
+                int n = c.channel.write(b);
+                c.queued -= n;
+                bytesSent += n;
+                if (b.hasRemaining()) break;
+                c.queue.pollFirst();
+            }
+            key.interestOps(c.queue.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } catch (IOException e) {
+            drop(key, c);
+        }
+    }
+
+    private void drop(SelectionKey key, Client c) {
+        key.cancel();
+        closeQuietly(c.channel);
+        clients.remove(c);
+        connected = clients.size();
+    }
+
+    private static void closeQuietly(AutoCloseable c) {
+        try {
+            c.close();
+        } catch (Exception ignored) {
+            // Already failing or shutting down
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package co.eci.snake.ui.legacy;
+
+import co.eci.snake.core.ChunkedBoard;
+import co.eci.snake.core.Position;
+import co.eci.snake.core.Snake;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+
+import static co.eci.snake.core.ChunkedBoard.CHUNK;
+import static co.eci.snake.core.ChunkedBoard.CHUNK_SHIFT;
+
+/**
+ * Window onto a {@link ChunkedBoard}, centred on the followed snake's head. Only the chunks that
+ * intersect the window are copied and drawn, so painting costs the visible area whatever the map
+ * size. Chunks no snake has visited yet are shaded as unexplored. EDT only.
+ */
+final class ChunkViewport extends JPanel {
+    private static final Color UNEXPLORED = new Color(18, 18, 24);
+    private static final Color OBSTACLE = new Color(180, 60, 60);
+    private static final Color MOUSE = new Color(80, 200, 80);
+    private static final Color TURBO = new Color(240, 240, 90);
+    private static final Color HEAD = new Color(90, 160, 230);
+    private static final Color BODY = new Color(70, 120, 180);
+
+    private final ChunkedBoard board;
+    private final List<Snake> snakes;
+    private final int cell = Integer.getInteger("cell.size", 8);
+    private final byte[] chunkCells = new byte[CHUNK * CHUNK];
+    private final int[] chunkOwner = new int[CHUNK * CHUNK];
+    private int followed = 0;
+
+    ChunkViewport(ChunkedBoard board, List<Snake> snakes) {
+        this.board = board;
+        this.snakes = snakes;
+        setBackground(Color.BLACK);
+        setFocusable(true);
+    }
+
+    @Override protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (snakes.isEmpty()) return;
+        // Follow the first live snake, keeping the last one while all are dead
+        for (int i = 0; i < snakes.size() && !snakes.get(followed).isAlive(); i++) {
+            if (snakes.get(i).isAlive()) followed = i;
+        }
+        Position head = snakes.get(followed).head();
+        int w = board.width(), h = board.height();
+        int cols = Math.min(w, getWidth() / cell + 1), rows = Math.min(h, getHeight() / cell + 1);
+        int ox = Math.floorMod(head.x() - cols / 2, w), oy = Math.floorMod(head.y() - rows / 2, h);
+
+        // Walk the window in spans that stay inside one chunk (and do not cross the wrap seam)
+        for (int sy = 0; sy < rows; ) {
+            int wy = (oy + sy) % h;
+            int spanY = Math.min(rows - sy, Math.min(CHUNK - (wy & (CHUNK - 1)), h - wy));
+            for (int sx = 0; sx < cols; ) {
+                int wx = (ox + sx) % w;
+                int spanX = Math.min(cols - sx, Math.min(CHUNK - (wx & (CHUNK - 1)), w - wx));
+                if (board.copyChunk(wx >> CHUNK_SHIFT, wy >> CHUNK_SHIFT, chunkCells, chunkOwner)) {
+                    drawSpan(g, sx, sy, wx, wy, spanX, spanY);
+                } else {
+                    g.setColor(UNEXPLORED);
+                    g.fillRect(sx * cell, sy * cell, spanX * cell, spanY * cell);
+                }
+                sx += spanX;
+            }
+            sy += spanY;
+        }
+        g.setColor(HEAD);
+        g.fillRect(((head.x() - ox + w) % w) * cell, ((head.y() - oy + h) % h) * cell, cell, cell);
+    }
+
+    private void drawSpan(Graphics g, int sx, int sy, int wx, int wy, int spanX, int spanY) {
+        for (int dy = 0; dy < spanY; dy++) {
+            int row = ((wy + dy) & (CHUNK - 1)) << CHUNK_SHIFT;
+            for (int dx = 0; dx < spanX; dx++) {
+                int l = row | ((wx + dx) & (CHUNK - 1));
+                Color c;
+                if (chunkOwner[l] != 0) c = BODY;
+                else if (chunkCells[l] == ChunkedBoard.MOUSE) c = MOUSE;
+                else if (chunkCells[l] == ChunkedBoard.OBSTACLE) c = OBSTACLE;
+                else if (chunkCells[l] == ChunkedBoard.TURBO) c = TURBO;
+                else continue;
+                g.setColor(c);
+                g.fillRect((sx + dx) * cell, (sy + dy) * cell, cell - 1, cell - 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package co.eci.snake.ui.legacy;
+
+import co.eci.snake.concurrency.SnakeRunner;
+import co.eci.snake.core.ChunkedBoard;
+import co.eci.snake.core.Direction;
+import co.eci.snake.core.Snake;
+import co.eci.snake.core.engine.GameClock;
+import co.eci.snake.core.engine.GameSetup;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/** {@code -Dboard.chunked=true}: huge sparse map with a viewport that follows the first live snake. */
+public final class ChunkedApp {
+    private final GameClock clock;
+    private boolean paused = false;
+
+    private ChunkedApp() {
+        ChunkedBoard board = GameSetup.chunkedBoard();
+        List<Snake> snakes = GameSetup.snakes(board);
+        ChunkViewport viewport = new ChunkViewport(board, snakes);
+        JLabel status = new JLabel(" ");
+
+        JFrame frame = new JFrame("SnakeRace — " + board.width() + "x" + board.height());
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setLayout(new BorderLayout());
+        frame.add(viewport, BorderLayout.CENTER);
+        frame.add(status, BorderLayout.SOUTH);
+        frame.setSize(new Dimension(900, 580));
+        frame.setLocationRelativeTo(null);
+
+        // The clock only gates pause here; runners pace themselves
+        this.clock = new GameClock(1000, () -> {});
+        clock.start();
+        var exec = Executors.newVirtualThreadPerTaskExecutor();
+        for (Snake s : snakes) exec.submit(new SnakeRunner(s, board, clock));
+
+        InputMap im = viewport.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        ActionMap am = viewport.getActionMap();
+        im.put(KeyStroke.getKeyStroke("SPACE"), "pause");
+        am.put("pause", new AbstractAction() {
+            @Override public void actionPerformed(ActionEvent e) {
+                paused = !paused;
+                if (paused) clock.pause(); else clock.resume();
+            }
+        });
+        if (!snakes.isEmpty()) {
+            String[] keys = {"UP", "DOWN", "LEFT", "RIGHT"};
+            Direction[] dirs = {Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT};
+            for (int i = 0; i < keys.length; i++) {
+                Direction d = dirs[i];
+                im.put(KeyStroke.getKeyStroke(keys[i]), "p1_" + keys[i]);
+                am.put("p1_" + keys[i], new AbstractAction() {
+                    @Override public void actionPerformed(ActionEvent e) { snakes.get(0).turn(d); }
+                });
+            }
+        }
+
+        new Timer(1000 / Math.max(1, Integer.getInteger("render.maxFps", 30)), e -> {
+            long alive = snakes.stream().filter(Snake::isAlive).count();
+            status.setText(String.format(" snakes alive %d/%d   chunks %d (%.1f MB)", alive, snakes.size(),
+                    board.chunkCount(), board.chunkBytes() / 1e6));
+            viewport.repaint();
+        }).start();
+        frame.setVisible(true);
+    }
+
+    public static void launch() {
+        SwingUtilities.invokeLater(ChunkedApp::new);
+    }
+}
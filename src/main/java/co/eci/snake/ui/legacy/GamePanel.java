@@ -0,0 +1,209 @@
+package co.eci.snake.ui.legacy;
+
+import co.eci.snake.core.Board;
+import co.eci.snake.core.BoardFrame;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Incremental renderer. The grid, obstacles and teleports live in a cached background image; the
+ * visible picture is kept in a canvas image that is updated only on cells whose content changed since
+ * the last frame, and only the bounding box of those cells is repainted. All state is EDT-confined;
+ * {@link RenderScheduler} decides when a frame is synced.
+ */
+final class GamePanel extends JPanel {
+    private static final Color GRID = new Color(30, 30, 30);
+    private static final Color OBSTACLE = new Color(180, 60, 60);
+    private static final Color MOUSE = new Color(80, 200, 80);
+    private static final Color TURBO = new Color(240, 240, 90);
+    private static final Color TELEPORT = new Color(200, 80, 220);
+    private static final Color HEAD = new Color(90, 160, 230);
+    private static final Color BODY = new Color(70, 120, 180);
+
+    // What the canvas shows on a cell above the background
+    private static final byte EMPTY = 0, K_MOUSE = 1, K_TURBO = 2, K_BODY = 3, K_HEAD = 4;
+
+    private final Board board;
+    private final int cell = Integer.getInteger("cell.size", 16);
+
+    private BufferedImage background;
+    private BufferedImage canvas;
+    private Graphics2D canvasG;
+    private int cols, rows;             // board cells covered by the canvas (the visible part)
+    private byte[] shown;               // kind drawn on the canvas, per board cell
+    private byte[] want;                // scratch: kind required by the frame being synced
+    private int[] shownCells = new int[64];
+    private int shownCount;
+    private int[] nextCells = new int[64];
+    private int nextCount;
+    private int obstaclesDrawn, teleportsDrawn;
+    private long syncedEpoch = -1;
+
+    // Dirty bounds (in cells) collected while syncing a frame
+    private int dirtyMinX, dirtyMinY, dirtyMaxX, dirtyMaxY;
+
+    GamePanel(Board board) {
+        this.board = board;
+        setBackground(Color.BLACK);
+        setFocusable(true);
+        addComponentListener(new ComponentAdapter() {
+            @Override public void componentResized(ComponentEvent e) {
+                // Visible area changed: rebuild the images on the next frame
+                canvas = null;
+                syncedEpoch = -1;
+                if (onFrame() != null) repaint();
+            }
+        });
+    }
+
+    /**
+     * Bring the canvas up to date with the latest published frame. Returns the panel area that changed
+     * and must be painted (the caller repaints it), or null if nothing changed. EDT only.
+     */
+    Rectangle onFrame() {
+        BoardFrame f = board.frame();
+        if (f == null || f.epoch() == syncedEpoch) return null;
+        syncedEpoch = f.epoch();
+        if (canvas == null || f.obstacleCount() < obstaclesDrawn || f.teleportCount() != teleportsDrawn) {
+            if (!rebuild(f)) return null;
+            syncDynamic(f);
+            return new Rectangle(0, 0, getWidth(), getHeight());
+        }
+
+        dirtyMinX = dirtyMinY = Integer.MAX_VALUE;
+        dirtyMaxX = dirtyMaxY = -1;
+        // Obstacles only accumulate; new ones are appended to the frame's list
+        Graphics2D bg = background.createGraphics();
+        bg.setColor(OBSTACLE);
+        for (int i = obstaclesDrawn; i < f.obstacleCount(); i++) {
+            int c = f.obstacle(i);
+            fillCell(bg, f.x(c), f.y(c));
+            paintCell(c, f.width(), shown[c]);
+        }
+        bg.dispose();
+        obstaclesDrawn = f.obstacleCount();
+
+        syncDynamic(f);
+        if (dirtyMaxX < 0) return null;
+        return new Rectangle(dirtyMinX * cell, dirtyMinY * cell,
+                (dirtyMaxX - dirtyMinX + 1) * cell, (dirtyMaxY - dirtyMinY + 1) * cell);
+    }
+
+    @Override protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (canvas != null) g.drawImage(canvas, 0, 0, null);
+    }
+
+    /** Recreate background and canvas for the visible area; false if there is nothing to draw yet. */
+    private boolean rebuild(BoardFrame f) {
+        int w = f.width(), h = f.height();
+        int pw = getWidth() > 0 ? getWidth() : w * cell;
+        int ph = getHeight() > 0 ? getHeight() : h * cell;
+        cols = Math.min(w, (pw + cell - 1) / cell);
+        rows = Math.min(h, (ph + cell - 1) / cell);
+        if (cols <= 0 || rows <= 0) { canvas = null; return false; }
+
+        background = new BufferedImage(cols * cell, rows * cell, BufferedImage.TYPE_INT_RGB);
+        Graphics2D bg = background.createGraphics();
+        bg.setColor(Color.BLACK);
+        bg.fillRect(0, 0, cols * cell, rows * cell);
+        bg.setColor(GRID);
+        for (int x = 0; x < cols; x++) bg.drawLine(x * cell, 0, x * cell, rows * cell);
+        for (int y = 0; y < rows; y++) bg.drawLine(0, y * cell, cols * cell, y * cell);
+        bg.setColor(OBSTACLE);
+        for (int i = 0; i < f.obstacleCount(); i++) {
+            int c = f.obstacle(i);
+            fillCell(bg, f.x(c), f.y(c));
+        }
+        bg.setColor(TELEPORT);
+        for (int i = 0; i < f.teleportCount(); i++) {
+            int c = f.teleport(i);
+            if (f.x(c) < cols && f.y(c) < rows) bg.drawRect(f.x(c) * cell + 2, f.y(c) * cell + 2, cell - 4, cell - 4);
+        }
+        bg.dispose();
+        obstaclesDrawn = f.obstacleCount();
+        teleportsDrawn = f.teleportCount();
+
+        canvas = new BufferedImage(cols * cell, rows * cell, BufferedImage.TYPE_INT_RGB);
+        if (canvasG != null) canvasG.dispose();
+        canvasG = canvas.createGraphics();
+        canvasG.drawImage(background, 0, 0, null);
+        canvasG.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+
+        if (shown == null || shown.length != w * h) {
+            shown = new byte[w * h];
+            want = new byte[w * h];
+        } else {
+            Arrays.fill(shown, EMPTY);
+        }
+        shownCount = 0;
+        dirtyMinX = dirtyMinY = Integer.MAX_VALUE;
+        dirtyMaxX = dirtyMaxY = -1;
+        return true;
+    }
+
+    /** Diff mice, turbo and snakes against what the canvas shows and repaint only differing cells. */
+    private void syncDynamic(BoardFrame f) {
+        nextCount = 0;
+        for (int i = 0; i < f.miceCount(); i++) mark(f.mouse(i), K_MOUSE);
+        for (int i = 0; i < f.turboCount(); i++) mark(f.turbo(i), K_TURBO);
+        for (int s = 0; s < f.snakeCount(); s++) {
+            int len = f.snakeLength(s);
+            // Dead snakes have been cleared from the board
+            if (len == 0 || !f.snakeAlive(s)) continue;
+            for (int i = 1; i < len; i++) mark(f.snakeCell(s, i), K_BODY);
+            mark(f.snakeCell(s, 0), K_HEAD);
+        }
+
+        int w = f.width();
+        // Cells drawn last frame that changed or disappeared, then cells that are new or changed
+        for (int i = 0; i < shownCount; i++) {
+            int c = shownCells[i];
+            if (want[c] != shown[c]) paintCell(c, w, want[c]);
+        }
+        for (int i = 0; i < nextCount; i++) {
+            int c = nextCells[i];
+            if (want[c] != shown[c]) paintCell(c, w, want[c]);
+            want[c] = EMPTY;
+        }
+        int[] t = shownCells; shownCells = nextCells; nextCells = t;
+        shownCount = nextCount;
+    }
+
+    private void mark(int c, byte kind) {
+        if (want[c] == EMPTY) {
+            if (nextCount == nextCells.length) nextCells = Arrays.copyOf(nextCells, nextCount * 2);
+            nextCells[nextCount++] = c;
+        }
+        want[c] = kind;
+    }
+
+    /** Restore the background under cell 'c', draw 'kind' on top and extend the dirty bounds. */
+    private void paintCell(int c, int w, byte kind) {
+        shown[c] = kind;
+        int x = c % w, y = c / w;
+        if (x >= cols || y >= rows) return;
+        int px = x * cell, py = y * cell;
+        canvasG.drawImage(background, px, py, px + cell, py + cell, px, py, px + cell, py + cell, null);
+        switch (kind) {
+            case K_MOUSE -> { canvasG.setColor(MOUSE); canvasG.fillOval(px + cell/4, py + cell/4, cell/2, cell/2); }
+            case K_TURBO -> { canvasG.setColor(TURBO); canvasG.fillRect(px+2, py+2, cell-4, cell-4); }
+            case K_BODY -> { canvasG.setColor(BODY); canvasG.fillRect(px+2, py+2, cell-4, cell-4); }
+            case K_HEAD -> { canvasG.setColor(HEAD); canvasG.fillRect(px+1, py+1, cell-2, cell-2); }
+            default -> { }
+        }
+        dirtyMinX = Math.min(dirtyMinX, x);
+        dirtyMinY = Math.min(dirtyMinY, y);
+        dirtyMaxX = Math.max(dirtyMaxX, x);
+        dirtyMaxY = Math.max(dirtyMaxY, y);
+    }
+
+    private void fillCell(Graphics2D g, int x, int y) {
+        if (x < cols && y < rows) g.fillRect(x * cell, y * cell, cell, cell);
+    }
+}
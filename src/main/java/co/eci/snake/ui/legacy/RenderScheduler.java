@@ -0,0 +1,82 @@
+package co.eci.snake.ui.legacy;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Paces rendering independently of the simulation clock. At most one render task is queued on the
+ * EDT at a time: while one is pending, further frames are coalesced (skipped) instead of piling up
+ * in front of input events. The render interval adapts to the measured sync+paint cost so rendering
+ * uses at most {@code render.edtShare} of the EDT, between {@code render.minFps} and {@code render.maxFps}.
+ * Input handling therefore waits at most about one frame's paint time.
+ */
+final class RenderScheduler implements AutoCloseable {
+    private final GamePanel panel;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "render-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean pending = new AtomicBoolean(false);
+
+    private final long minIntervalNanos;
+    private final long maxIntervalNanos;
+    private final double edtShare;
+
+    // Exponentially weighted average of sync+paint time, written on the EDT
+    private volatile double avgCostNanos = 0;
+    private volatile long intervalNanos;
+    private volatile long rendered = 0;
+    private volatile long skipped = 0;
+
+    RenderScheduler(GamePanel panel) {
+        this.panel = panel;
+        this.minIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, Integer.getInteger("render.maxFps", 60));
+        this.maxIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, Integer.getInteger("render.minFps", 5));
+        double share = Double.parseDouble(System.getProperty("render.edtShare", "0.5"));
+        this.edtShare = Math.min(1.0, Math.max(0.05, share));
+        this.intervalNanos = minIntervalNanos;
+    }
+
+    void start() {
+        timer.schedule(this::tick, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /** Current target frames per second. */
+    double targetFps() { return 1e9 / intervalNanos; }
+    long rendered() { return rendered; }
+    /** Frames dropped because the previous one was still queued or painting. */
+    long skipped() { return skipped; }
+
+    @Override public void close() { timer.shutdownNow(); }
+
+    private void tick() {
+        if (pending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::render);
+        } else {
+            skipped++;
+        }
+        timer.schedule(this::tick, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** EDT: sync the canvas and paint the changed area right away, so the measured cost is complete. */
+    private void render() {
+        try {
+            long t0 = System.nanoTime();
+            Rectangle dirty = panel.onFrame();
+            if (dirty == null) return;
+            panel.paintImmediately(dirty);
+            long cost = System.nanoTime() - t0;
+            double avg = avgCostNanos == 0 ? cost : avgCostNanos * 0.9 + cost * 0.1;
+            avgCostNanos = avg;
+            intervalNanos = Math.max(minIntervalNanos, Math.min(maxIntervalNanos, (long) (avg / edtShare)));
+            rendered++;
+        } finally {
+            pending.set(false);
+        }
+    }
+}
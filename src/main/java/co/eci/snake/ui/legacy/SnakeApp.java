@@ -1,19 +1,31 @@
 package co.eci.snake.ui.legacy;
 
+import co.eci.snake.concurrency.LockstepEngine;
 import co.eci.snake.concurrency.SnakeRunner;
 import co.eci.snake.core.Board;
+import co.eci.snake.core.BoardFrame;
 import co.eci.snake.core.Direction;
-import co.eci.snake.core.Position;
+import co.eci.snake.core.DistanceField;
 import co.eci.snake.core.Snake;
 import co.eci.snake.core.engine.GameClock;
+import co.eci.snake.core.engine.GameSetup;
+import co.eci.snake.core.engine.TimingWheel;
+import co.eci.snake.metrics.EngineMetrics;
+import co.eci.snake.persist.Checkpoint;
+import co.eci.snake.replay.ReplayRecorder;
+import co.eci.snake.spectate.SpectatorServer;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.IntUnaryOperator;
 
 public final class SnakeApp {
     private final JFrame frame;
@@ -22,24 +34,24 @@ public final class SnakeApp {
     private final Board board;
     private final List<Snake> snakes;
     private final GameClock clock;
-    private volatile boolean paused = false;
+    private final List<SnakeRunner> runners = new ArrayList<>();
+    private final IntUnaryOperator turboTicks;
+    // Pause, resume and checkpoints wait for in-flight steps, so they run here in request order, never on the EDT
+    private final ExecutorService control = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("game-control").factory());
+    private boolean paused = false;     // EDT only: the state the last request asked for
 
     public SnakeApp() {
-        int width = Integer.getInteger("board.width", 60);
-        int height = Integer.getInteger("board.height", 36);
-        this.board = new Board(width, height);
-
-        int n = Integer.getInteger("snakes", 2);
-        this.snakes = new ArrayList<>(n);
-        // Place snakes spaced across the board
-        for (int i=0; i<n; i++) {
-            int x = (i * (width / Math.max(1, n))) % Math.max(1, width-1) + 1;
-            int y = (i * 3) % Math.max(1, height-1) + 1;
-            Direction d = Direction.values()[i % Direction.values().length];
-            snakes.add(Snake.of(x, y, d));
+        Long seed = Long.getLong("seed");
+        Checkpoint loaded = loadCheckpoint();
+        if (loaded != null) {
+            this.snakes = new ArrayList<>(loaded.snakeCount());
+            this.board = loaded.restore(snakes);
+        } else {
+            this.board = GameSetup.board();
+            this.snakes = GameSetup.snakes(board);
         }
 
-        this.gamePanel = new GamePanel(board, snakes);
+        this.gamePanel = new GamePanel(board);
         this.frame = new JFrame("SnakeRace — ARSW");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setLayout(new BorderLayout());
@@ -48,12 +60,50 @@ public final class SnakeApp {
         frame.setSize(new Dimension(900, 580));
         frame.setLocationRelativeTo(null);
 
-        // Clock ticks repaint (EDT-safe)
-        this.clock = new GameClock(Long.getLong("tick.ms", 40L), () -> SwingUtilities.invokeLater(gamePanel::repaint));
-        clock.start();
+        ReplayRecorder recorder = startRecording();
+        int ai = Math.min(snakes.size(), Integer.getInteger("ai.snakes", 0));
+        DistanceField field = ai > 0 ? new DistanceField(board.width(), board.height()) : null;
+        publish(field);
+        startSpectators();
+        if ("lockstep".equals(System.getProperty("engine"))) {
+            // Clock drives simulation ticks: advance every snake, then publish the frame
+            var engine = new LockstepEngine(board, snakes, seed != null ? seed : System.nanoTime());
+            if (loaded != null) for (int i = 0; i < snakes.size(); i++) engine.restoreTurboTicks(i, loaded.turboTicks(i));
+            if (field != null) engine.steerWith(field, ai);
+            // Read from the EDT between or during ticks; off by a tick at most
+            this.turboTicks = engine::turboTicks;
+            this.clock = new GameClock(Long.getLong("sim.tick.ms", Integer.getInteger("snake.baseSleepMs", 80)), () -> {
+                engine.run();
+                if (recorder != null) recorder.tick();
+                publish(field);
+            });
+            clock.start();
+        } else {
+            // Clock ticks publish a frame off the EDT; rendering is paced separately
+            this.clock = new GameClock(Long.getLong("tick.ms", 40L), () -> {
+                if (recorder != null) recorder.tick();
+                publish(field);
+            });
+            clock.start();
+
+            var exec = Executors.newVirtualThreadPerTaskExecutor();
+            snakes.forEach(s -> runners.add(new SnakeRunner(s, board, clock)));
+            if (loaded != null) for (int i = 0; i < runners.size(); i++) runners.get(i).restoreTurboTicks(loaded.turboTicks(i));
+            for (int i = 0; i < ai; i++) runners.get(i).steerWith(field);
+            this.turboTicks = i -> runners.get(i).turboTicks();
+            if ("wheel".equals(System.getProperty("engine"))) {
+                // One timer thread and a small pool instead of a sleeping thread per snake
+                var wheel = new TimingWheel(clock);
+                runners.forEach(r -> wheel.schedule(r::stepOnce, 0));
+                wheel.start();
+            } else {
+                runners.forEach(exec::submit);
+            }
+        }
 
-        var exec = Executors.newVirtualThreadPerTaskExecutor();
-        snakes.forEach(s -> exec.submit(new SnakeRunner(s, board, clock)));
+        // Optional periodic metrics dump to stdout
+        long dumpMs = Long.getLong("metrics.dumpMs", 0L);
+        if (dumpMs > 0) new EngineMetrics(board, clock, runners).startDump(dumpMs, System.out);
 
         actionButton.addActionListener((ActionEvent e) -> togglePause());
 
@@ -63,6 +113,12 @@ public final class SnakeApp {
             public void actionPerformed(ActionEvent e) { togglePause(); }
         });
 
+        gamePanel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke('C'), "checkpoint");
+        gamePanel.getActionMap().put("checkpoint", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) { saveCheckpoint(); }
+        });
+
         // Player controls for first two snakes if present
         if (snakes.size() > 0) {
             InputMap im = gamePanel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
@@ -90,87 +146,90 @@ public final class SnakeApp {
         }
 
         frame.setVisible(true);
+        new RenderScheduler(gamePanel).start();
     }
 
-    private void togglePause() {
-        paused = !paused;
-        if (paused) {
-            actionButton.setText("Resume");
-            clock.pause();
-        } else {
-            actionButton.setText("Pause");
-            clock.resume();
+    /** {@code -Dreplay.record=file}: record the game; the file is completed when the JVM exits. */
+    private ReplayRecorder startRecording() {
+        String file = System.getProperty("replay.record");
+        if (file == null) return null;
+        try {
+            ReplayRecorder recorder = ReplayRecorder.start(Path.of(file), board, snakes);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try { recorder.close(); } catch (IOException e) { e.printStackTrace(); }
+            }));
+            return recorder;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
-    private static final class TurnAction extends AbstractAction {
-        private final Snake snake;
-        private final Direction dir;
-        private TurnAction(Snake s, Direction d){ this.snake = s; this.dir = d; }
-        @Override public void actionPerformed(ActionEvent e) { snake.turn(dir); }
+    /** Publish a frame for the panel and spectators; AI snakes ({@code ai.snakes}) steer by the field built from it. */
+    private void publish(DistanceField field) {
+        BoardFrame f = board.publishFrame(snakes);
+        if (field != null) field.update(f);
     }
 
-    private static final class GamePanel extends JPanel {
-        private final Board board;
-        private final List<Snake> snakes;
-        private final int cell = Integer.getInteger("cell.size", 16);
+    /** {@code -Dspectate.port=n}: stream the published frames to spectators for as long as the app runs. */
+    private void startSpectators() {
+        Integer port = Integer.getInteger("spectate.port");
+        if (port == null) return;
+        try {
+            System.out.println("spectators: listening on port " + SpectatorServer.start(board, port).port());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        private GamePanel(Board board, List<Snake> snakes) {
-            this.board = board;
-            this.snakes = snakes;
-            setBackground(Color.BLACK);
-            setFocusable(true);
+    /** {@code -Dcheckpoint.load=file}: continue a saved game instead of starting a new one. */
+    private static Checkpoint loadCheckpoint() {
+        String file = System.getProperty("checkpoint.load");
+        if (file == null) return null;
+        try {
+            return Checkpoint.load(Path.of(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
-        @Override protected void paintComponent(Graphics g) {
-            super.paintComponent(g);
-            Graphics2D g2 = (Graphics2D) g.create();
-            int w = board.width();
-            int h = board.height();
-
-            // Draw grid background
-            g2.setColor(new Color(30, 30, 30));
-            for (int x=0; x<w; x++) g2.drawLine(x*cell, 0, x*cell, h*cell);
-            for (int y=0; y<h; y++) g2.drawLine(0, y*cell, w*cell, y*cell);
-
-            // Draw board elements from snapshots to avoid CME
-            for (Position p : board.obstaclesSnapshot()) {
-                g2.setColor(new Color(180, 60, 60));
-                g2.fillRect(p.x()*cell, p.y()*cell, cell, cell);
-            }
-            for (Position p : board.miceSnapshot()) {
-                g2.setColor(new Color(80, 200, 80));
-                g2.fillOval(p.x()*cell + cell/4, p.y()*cell + cell/4, cell/2, cell/2);
+    /** Key C: stop every runner, copy the game and write it to {@code checkpoint.save}, all off the EDT. */
+    private void saveCheckpoint() {
+        Path file = Path.of(System.getProperty("checkpoint.save", "snake.ckpt"));
+        control.execute(() -> {
+            // Quiesce first so no runner is between its board step and its turbo update
+            boolean wasPaused = clock.isPaused();
+            long quiesced = clock.quiesce();
+            Checkpoint cp;
+            try {
+                cp = Checkpoint.capture(board, snakes, turboTicks);
+            } finally {
+                if (!wasPaused) clock.resume();
             }
-            for (Position p : board.turboSnapshot()) {
-                g2.setColor(new Color(240, 240, 90));
-                g2.fillRect(p.x()*cell+2, p.y()*cell+2, cell-4, cell-4);
-            }
-            for (Map.Entry<Position,Position> e : board.teleportsSnapshot().entrySet()) {
-                Position p = e.getKey();
-                g2.setColor(new Color(200, 80, 220));
-                g2.drawRect(p.x()*cell+2, p.y()*cell+2, cell-4, cell-4);
+            System.out.printf("checkpoint: %d snakes quiesced in %.3fms%n", snakes.size(), quiesced / 1e6);
+            try {
+                cp.write(file);
+                System.out.println("checkpoint saved to " + file);
+            } catch (IOException e) {
+                e.printStackTrace();
             }
+        });
+    }
 
-            // Draw snakes using per-snake snapshot
-            int idx = 0;
-            for (Snake s : snakes) {
-                var parts = s.snapshot();
-                if (parts.isEmpty()) continue;
-                // Head
-                g2.setColor(new Color(90, 160, 230));
-                Position head = parts.get(0);
-                g2.fillRect(head.x()*cell+1, head.y()*cell+1, cell-2, cell-2);
-                // Body
-                g2.setColor(new Color(70, 120, 180));
-                for (int i=1;i<parts.size();i++) {
-                    Position p = parts.get(i);
-                    g2.fillRect(p.x()*cell+2, p.y()*cell+2, cell-4, cell-4);
-                }
-                idx++;
-            }
-            g2.dispose();
-        }
+    /** The button shows the new state once the clock has actually paused or resumed. */
+    private void togglePause() {
+        boolean pause = paused = !paused;
+        control.execute(() -> {
+            if (pause) System.out.printf("paused: quiesced in %.3fms%n", clock.quiesce() / 1e6);
+            else clock.resume();
+            SwingUtilities.invokeLater(() -> actionButton.setText(pause ? "Resume" : "Pause"));
+        });
+    }
+
+    private static final class TurnAction extends AbstractAction {
+        private final Snake snake;
+        private final Direction dir;
+        private TurnAction(Snake s, Direction d){ this.snake = s; this.dir = d; }
+        @Override public void actionPerformed(ActionEvent e) { snake.turn(dir); }
     }
 
     public static void launch() {
@@ -0,0 +1,165 @@
+package co.eci.snake.concurrency;
+
+import co.eci.snake.core.Board;
+import co.eci.snake.core.BoardState;
+import co.eci.snake.core.Direction;
+import co.eci.snake.core.Position;
+import co.eci.snake.core.Snake;
+import co.eci.snake.core.engine.GameSetup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Conflict rules of one tick, scripted with random turns off (a bounce still turns at random). */
+class LockstepEngineTest {
+    private static final int SIZE = 40;
+
+    @AfterEach
+    void clearProperties() {
+        System.clearProperty("engine.parallelism");
+    }
+
+    @Test
+    void twoHeadsEnteringTheSameCellLowestIndexWins() {
+        Board board = new Board(SIZE, SIZE, 1L);
+        int y = clearRows(board, 1);
+        Snake a = add(board, 5, y, Direction.RIGHT);
+        Snake b = add(board, 7, y, Direction.LEFT);
+        try (LockstepEngine engine = scripted(board, a, b)) {
+            engine.run();
+            assertEquals(new Position(6, y), a.head());
+            assertEquals(new Position(7, y), b.head(), "the loser bounces in place");
+            assertTrue(a.isAlive() && b.isAlive(), "a bounce is not a collision");
+            assertEquals(1, engine.steps(0));
+            assertEquals(0, engine.steps(1), "a bounced snake is not stepped");
+        }
+    }
+
+    @Test
+    void headsThatSwapCellsKillTheFirstToCommit() {
+        Board board = new Board(SIZE, SIZE, 2L);
+        int y = clearRows(board, 1);
+        Snake a = add(board, 5, y, Direction.RIGHT);
+        Snake b = add(board, 6, y, Direction.LEFT);
+        try (LockstepEngine engine = scripted(board, a, b)) {
+            engine.run();
+            // Different targets, so nobody bounces: a runs into b's head, then b moves into a's cleared cell
+            assertFalse(a.isAlive());
+            assertTrue(b.isAlive());
+            assertEquals(List.of(new Position(5, y), new Position(6, y)), b.snapshot());
+        }
+    }
+
+    @Test
+    void movingIntoATailThatLeavesFirstIsSafe() {
+        Board board = new Board(SIZE, SIZE, 3L);
+        int y = clearRows(board, 2);
+        Snake leaving = grown(board, y);
+        Snake follower = add(board, 10, y + 1, Direction.UP);          // targets leaving's tail (10, y)
+        try (LockstepEngine engine = scripted(board, leaving, follower)) {
+            engine.run();
+            assertTrue(follower.isAlive(), "the tail moved away before the follower committed");
+            assertEquals(new Position(10, y), follower.head());
+            assertEquals(new Position(15, y), leaving.head());
+        }
+    }
+
+    @Test
+    void movingIntoATailThatLeavesLaterIsFatal() {
+        Board board = new Board(SIZE, SIZE, 3L);
+        int y = clearRows(board, 2);
+        Snake leaving = grown(board, y);
+        Snake follower = add(board, 10, y + 1, Direction.UP);
+        try (LockstepEngine engine = scripted(board, follower, leaving)) {
+            engine.run();
+            // Commits run in snake order, so the tail is still there when the follower steps
+            assertFalse(follower.isAlive());
+            assertTrue(leaving.isAlive());
+            assertEquals(new Position(15, y), leaving.head());
+        }
+    }
+
+    @Test
+    void bouncedSnakeSpendsTurbo() {
+        Board board = new Board(SIZE, SIZE, 4L);
+        int y = clearRows(board, 1);
+        Snake a = add(board, 5, y, Direction.RIGHT);
+        Snake b = add(board, 7, y, Direction.LEFT);
+        try (LockstepEngine engine = scripted(board, a, b)) {
+            engine.restoreTurboTicks(1, 5);
+            engine.run();
+            // Two moves per tick in turbo: the first bounces off a, the second steps; both cost a move
+            assertEquals(1, engine.steps(1));
+            assertEquals(3, engine.turboTicks(1));
+            assertEquals(0, engine.turboTicks(0));
+        }
+    }
+
+    @Test
+    void parallelAndSequentialEnginesPlayTheSameGame() {
+        System.setProperty("engine.parallelism", "4");
+        byte[] sequential, parallel;
+        {
+            Board board = new Board(60, 40, 9L);
+            List<Snake> snakes = GameSetup.snakes(board, 30);
+            try (LockstepEngine engine = LockstepEngine.sequential(board, snakes, 17L)) {
+                for (int t = 0; t < 400; t++) engine.run();
+            }
+            sequential = encode(board.captureState(snakes));
+        }
+        {
+            Board board = new Board(60, 40, 9L);
+            List<Snake> snakes = GameSetup.snakes(board, 30);
+            try (LockstepEngine engine = new LockstepEngine(board, snakes, 17L)) {
+                for (int t = 0; t < 400; t++) engine.run();
+            }
+            parallel = encode(board.captureState(snakes));
+        }
+        assertArrayEquals(sequential, parallel);
+    }
+
+    private static LockstepEngine scripted(Board board, Snake... snakes) {
+        LockstepEngine engine = LockstepEngine.sequential(board, List.of(snakes), 5L);
+        engine.wander(0);
+        return engine;
+    }
+
+    private static Snake add(Board board, int x, int y, Direction d) {
+        Snake s = Snake.of(x, y, d);
+        assertTrue(board.addSnake(s));
+        return s;
+    }
+
+    /** Full-length snake on row y, head at (14, y) heading right, tail at (10, y): it drops its tail on the next move. */
+    private static Snake grown(Board board, int y) {
+        Snake s = add(board, 10, y, Direction.RIGHT);
+        for (int i = 0; i < 4; i++) assertEquals(Board.MoveResult.MOVED, board.step(s));
+        assertEquals(new Position(10, y), s.tail());
+        return s;
+    }
+
+    /** First row y such that rows y .. y + rows - 1 hold no item in columns 0..19. */
+    private static int clearRows(Board board, int rows) {
+        Set<Position> items = new HashSet<>(board.miceSnapshot());
+        items.addAll(board.obstaclesSnapshot());
+        items.addAll(board.turboSnapshot());
+        for (int y = 0; y + rows <= SIZE; y++) {
+            boolean clear = true;
+            for (int r = y; r < y + rows; r++) for (int x = 0; x < 20; x++) clear &= !items.contains(new Position(x, r));
+            if (clear) return y;
+        }
+        throw new AssertionError("no clear rows");
+    }
+
+    private static byte[] encode(BoardState state) {
+        ByteBuffer out = ByteBuffer.allocate(state.encodedSize());
+        state.writeTo(out);
+        return out.array();
+    }
+}
@@ -0,0 +1,101 @@
+package co.eci.snake.concurrency;
+
+import co.eci.snake.core.Board;
+import co.eci.snake.core.Direction;
+import co.eci.snake.core.Snake;
+import co.eci.snake.core.engine.GameClock;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadPinningTest {
+    private static final Set<String> PINNING = Set.of("jdk.VirtualThreadPinned", "jdk.JavaMonitorWait", "jdk.JavaMonitorEnter");
+
+    @Test
+    void hundredThousandVirtualRunnersNeverPinTheirCarriers() throws Exception {
+        int count = 100_000;
+        Board board = new Board(2000, 2000);
+        List<Snake> snakes = new ArrayList<>(count);
+        List<SnakeRunner> runners = new ArrayList<>(count);
+        GameClock clock = new GameClock(1000, () -> {});
+        for (int i = 0; snakes.size() < count; i++) {
+            Snake snake = Snake.of((i % 400) * 5, (i / 400) * 8 % 2000, Direction.values()[i % 4]);
+            if (!board.addSnake(snake)) continue;
+            snakes.add(snake);
+            runners.add(new SnakeRunner(snake, board, clock, 20, 10));
+        }
+
+        Path jfr = Files.createTempFile("pinning", ".jfr");
+        try (Recording rec = new Recording()) {
+            // On JDK 21 a virtual thread in Object.wait() or blocked entering a monitor holds its
+            // carrier too, but only parking inside a monitor is reported as VirtualThreadPinned
+            for (String event : PINNING) rec.enable(event).withThreshold(Duration.ZERO).withStackTrace();
+            rec.start();
+            clock.start();
+            AtomicBoolean reading = new AtomicBoolean(true);
+            try (ExecutorService exec = Executors.newVirtualThreadPerTaskExecutor()) {
+                runners.forEach(exec::submit);
+                // Readers race the runners on the same snakes
+                for (int r = 0; r < 8; r++) {
+                    exec.submit(() -> {
+                        var rnd = ThreadLocalRandom.current();
+                        while (reading.get()) {
+                            Snake s = snakes.get(rnd.nextInt(count));
+                            s.snapshot();
+                            s.head();
+                            s.length();
+                            Thread.yield();
+                        }
+                    });
+                }
+                long before = totalSteps(runners);
+                for (int round = 0; round < 3; round++) {
+                    Thread.sleep(400);
+                    clock.quiesce();
+                    long frozen = totalSteps(runners);
+                    Thread.sleep(100);
+                    assertEquals(frozen, totalSteps(runners), "no runner steps while quiesced");
+                    clock.resume();
+                }
+                assertTrue(totalSteps(runners) > before, "runners should keep stepping between pauses");
+                reading.set(false);
+                exec.shutdownNow();
+                assertTrue(exec.awaitTermination(30, TimeUnit.SECONDS));
+            } finally {
+                clock.stop();
+                clock.close();
+            }
+            rec.stop();
+            rec.dump(jfr);
+        }
+
+        List<RecordedEvent> pinned = new ArrayList<>();
+        for (RecordedEvent e : RecordingFile.readAllEvents(jfr)) {
+            if (!PINNING.contains(e.getEventType().getName())) continue;
+            if (e.getThread() != null && e.getThread().isVirtual()) pinned.add(e);
+        }
+        Files.deleteIfExists(jfr);
+        assertTrue(pinned.isEmpty(), () -> pinned.size() + " pinning events, first: " + pinned.get(0));
+    }
+
+    private static long totalSteps(List<SnakeRunner> runners) {
+        long sum = 0;
+        for (SnakeRunner r : runners) sum += r.steps();
+        return sum;
+    }
+}
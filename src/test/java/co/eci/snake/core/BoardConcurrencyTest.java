@@ -0,0 +1,73 @@
+package co.eci.snake.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardConcurrencyTest {
+
+    @Test
+    void concurrentStepsNeverLoseOrDuplicateItems() throws Exception {
+        Board board = new Board(96, 96);
+        board.addTeleportPair(new Position(10, 10), new Position(80, 70));
+        board.addTeleportPair(new Position(40, 5), new Position(5, 40));
+
+        int threads = 32;
+        int stepsPerSnake = 4000;
+        AtomicInteger miceEaten = new AtomicInteger();
+        AtomicInteger turboEaten = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<java.util.concurrent.Future<?>> futures = new ArrayList<>();
+        List<Snake> snakes = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Snake snake = Snake.of((i * 3) % 96, (i * 7) % 96, Direction.values()[i % 4]);
+            assertTrue(board.addSnake(snake));
+            snakes.add(snake);
+            futures.add(pool.submit(() -> {
+                start.await();
+                var rnd = ThreadLocalRandom.current();
+                for (int s = 0; s < stepsPerSnake; s++) {
+                    if (rnd.nextInt(8) == 0) snake.turn(Direction.values()[rnd.nextInt(4)]);
+                    Board.MoveResult r = board.step(snake);
+                    if (r == Board.MoveResult.ATE_MOUSE) miceEaten.incrementAndGet();
+                    else if (r == Board.MoveResult.ATE_TURBO) turboEaten.incrementAndGet();
+                    else if (r == Board.MoveResult.HIT_OBSTACLE) snake.turn(Direction.values()[rnd.nextInt(4)]);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (var f : futures) f.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertTrue(miceEaten.get() > 0, "test should exercise mouse respawns");
+        assertEquals(6, board.miceSnapshot().size(), "every eaten mouse must be replaced exactly once");
+        assertEquals(2, board.turboSnapshot().size(), "every eaten turbo must be replaced exactly once");
+        assertEquals(4 + miceEaten.get(), board.obstaclesSnapshot().size(), "one obstacle per mouse eaten");
+        assertEquals(4, board.teleportsSnapshot().size());
+
+        // Items never share a cell with each other or with an obstacle
+        var seen = new HashSet<Position>();
+        board.miceSnapshot().forEach(p -> assertTrue(seen.add(p), "duplicate cell " + p));
+        board.turboSnapshot().forEach(p -> assertTrue(seen.add(p), "duplicate cell " + p));
+        board.obstaclesSnapshot().forEach(p -> assertTrue(seen.add(p), "duplicate cell " + p));
+
+        // Live snakes never overlap each other or themselves
+        var bodies = new HashSet<Position>();
+        for (Snake s : snakes) {
+            if (!s.isAlive()) continue;
+            s.snapshot().forEach(p -> assertTrue(bodies.add(p), "snakes overlap at " + p));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package co.eci.snake.core;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static co.eci.snake.core.ChunkedBoard.CHUNK;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedBoardTest {
+    private static final ChunkedBoard.Density EMPTY = new ChunkedBoard.Density(0, 0, 0);
+
+    @Test
+    void chunksAreAllocatedOnlyWhereSnakesGo() {
+        ChunkedBoard board = new ChunkedBoard(100_000, 100_000, 1L, new ChunkedBoard.Density(3, 2, 1));
+        assertEquals(0, board.chunkCount());
+        assertFalse(board.copyChunk(10, 10, new byte[CHUNK * CHUNK], new int[CHUNK * CHUNK]), "never visited");
+        assertEquals(0, board.chunkCount(), "viewers do not allocate chunks");
+
+        Snake snake = Snake.of(50_000, 50_000, Direction.RIGHT);
+        assertTrue(board.addSnake(snake));
+        assertEquals(1, board.chunkCount());
+        byte[] cells = new byte[CHUNK * CHUNK];
+        assertTrue(board.copyChunk(50_000 / CHUNK, 50_000 / CHUNK, cells, new int[CHUNK * CHUNK]));
+        int items = 0;
+        for (byte b : cells) if (b != 0) items++;
+        assertEquals(6, items, "a new chunk is populated from the density map");
+        assertTrue(board.chunkBytes() < 100_000, "one chunk and one owner array, not the whole map");
+    }
+
+    @Test
+    void stepsCrossChunkBoundariesAndWrapAround() {
+        // 150 x 70: the last chunk column and row are partial, so wrapping skips their missing cells
+        ChunkedBoard board = new ChunkedBoard(150, 70, 2L, EMPTY);
+        Snake snake = Snake.of(145, 3, Direction.RIGHT);
+        assertTrue(board.addSnake(snake));
+        for (int i = 0; i < 10; i++) assertEquals(Board.MoveResult.MOVED, board.step(snake));
+        assertEquals(new Position(5, 3), snake.head(), "wrapped past x = 149");
+        assertEquals(List.of(new Position(5, 3), new Position(4, 3), new Position(3, 3), new Position(2, 3),
+                new Position(1, 3)), snake.snapshot());
+        assertOwners(board, List.of(snake));
+
+        snake.turn(Direction.UP);
+        for (int i = 0; i < 6; i++) assertEquals(Board.MoveResult.MOVED, board.step(snake));
+        assertEquals(new Position(5, 67), snake.head(), "wrapped past y = 0 onto the partial last row");
+        assertOwners(board, List.of(snake));
+        assertEquals(3, board.chunkCount(), "chunks (2,0), (0,0) and (0,1)");
+    }
+
+    @Test
+    void ownerArraysAreReturnedAndReusedWhenBodiesLeave() {
+        ChunkedBoard board = new ChunkedBoard(20 * CHUNK, 2 * CHUNK, 3L, EMPTY);
+        Snake snake = Snake.of(0, 10, Direction.RIGHT);
+        assertTrue(board.addSnake(snake));
+        for (int i = 0; i < 19 * CHUNK; i++) assertEquals(Board.MoveResult.MOVED, board.step(snake));
+        assertEquals(20, board.chunkCount());
+        // The body spans at most two chunks at a time; vacated chunks hand their array to the next one
+        assertTrue(board.ownerArrays() <= 2, "owner arrays allocated: " + board.ownerArrays());
+        int[] owners = new int[CHUNK * CHUNK];
+        assertTrue(board.copyChunk(0, 0, new byte[CHUNK * CHUNK], owners));
+        for (int o : owners) assertEquals(0, o, "a pooled array comes back zeroed");
+        assertOwners(board, List.of(snake));
+    }
+
+    @Test
+    void headOnCollisionKillsAndClearsTheWholeBody() {
+        ChunkedBoard board = new ChunkedBoard(2 * CHUNK, CHUNK, 4L, EMPTY);
+        Snake a = Snake.of(CHUNK - 6, 5, Direction.RIGHT);
+        Snake b = Snake.of(CHUNK + 4, 5, Direction.LEFT);
+        assertTrue(board.addSnake(a));
+        assertTrue(board.addSnake(b));
+        for (int i = 0; i < 4; i++) {
+            board.step(a);
+            board.step(b);
+        }
+        // a's head at CHUNK-2, b's at CHUNK; a steps onto CHUNK-1, b then runs into it across the chunk edge
+        assertEquals(Board.MoveResult.MOVED, board.step(a));
+        assertEquals(Board.MoveResult.HIT_SNAKE, board.step(b));
+        assertFalse(b.isAlive());
+        assertOwners(board, List.of(a, b));
+        // b's body left both chunks, so a can go on through it
+        for (int i = 0; i < 8; i++) assertEquals(Board.MoveResult.MOVED, board.step(a));
+    }
+
+    // The race needs a preemption between the collision and the clearing; repeat to give it chances
+    @RepeatedTest(20)
+    void concurrentStepsNeverLeaveDeadBodiesOrOverlap() throws Exception {
+        int size = CHUNK + 20;
+        ChunkedBoard board = new ChunkedBoard(size, size, 5L, new ChunkedBoard.Density(4, 2, 1));
+        int threads = 40;
+        List<Snake> snakes = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Snake snake = Snake.of((i * 37) % size, (i * 23) % size, Direction.values()[i % 4]);
+            assertTrue(board.addSnake(snake));
+            snakes.add(snake);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> seenDead = new AtomicReference<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Snake snake : snakes) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                var rnd = ThreadLocalRandom.current();
+                for (int s = 0; s < 3000 && snake.isAlive(); s++) {
+                    if (rnd.nextInt(6) == 0) snake.turn(Direction.values()[rnd.nextInt(4)]);
+                    if (board.step(snake) == Board.MoveResult.HIT_OBSTACLE) snake.turn(Direction.values()[rnd.nextInt(4)]);
+                }
+                return null;
+            }));
+        }
+        // A snake already dead when a chunk is copied must have no cell left in it
+        Future<?> checker = pool.submit(() -> {
+            start.await();
+            byte[] cells = new byte[CHUNK * CHUNK];
+            int[] owners = new int[CHUNK * CHUNK];
+            int chunks = (size + CHUNK - 1) / CHUNK;
+            while (running.get() && seenDead.get() == null) {
+                Set<Integer> dead = new HashSet<>();
+                for (Snake s : snakes) if (!s.isAlive()) dead.add(s.id);
+                for (int cy = 0; cy < chunks; cy++) {
+                    for (int cx = 0; cx < chunks; cx++) {
+                        if (!board.copyChunk(cx, cy, cells, owners)) continue;
+                        for (int o : owners) if (dead.contains(o)) seenDead.set("body of dead snake " + o);
+                    }
+                }
+                Thread.yield();
+            }
+            return null;
+        });
+        start.countDown();
+        for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+        running.set(false);
+        checker.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertNull(seenDead.get());
+        assertTrue(snakes.stream().anyMatch(s -> !s.isAlive()), "test should exercise deaths");
+        assertOwners(board, snakes);
+    }
+
+    /** Live bodies never overlap, and the owner arrays hold exactly the live bodies. */
+    private static void assertOwners(ChunkedBoard board, List<Snake> snakes) {
+        Map<Position, Integer> expected = new HashMap<>();
+        for (Snake s : snakes) {
+            if (!s.isAlive()) continue;
+            for (Position p : s.snapshot()) assertNull(expected.put(p, s.id), "snakes overlap at " + p);
+        }
+        Map<Position, Integer> actual = new HashMap<>();
+        byte[] cells = new byte[CHUNK * CHUNK];
+        int[] owners = new int[CHUNK * CHUNK];
+        int chunksX = (board.width() + CHUNK - 1) / CHUNK, chunksY = (board.height() + CHUNK - 1) / CHUNK;
+        for (int cy = 0; cy < chunksY; cy++) {
+            for (int cx = 0; cx < chunksX; cx++) {
+                if (!board.copyChunk(cx, cy, cells, owners)) continue;
+                for (int l = 0; l < owners.length; l++) {
+                    if (owners[l] != 0) actual.put(new Position(cx * CHUNK + l % CHUNK, cy * CHUNK + l / CHUNK), owners[l]);
+                }
+            }
+        }
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,157 @@
+package co.eci.snake.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistanceFieldTest {
+    private static final int W = 8, H = 6;
+
+    /*
+     *   x 0 1 2 3 4 5 6 7
+     * y0  . . . # . . S .      T: teleport pair (1,1) <-> (5,2)
+     * y1  . T . # . . S .      #: obstacles, a wall with a gap at the bottom
+     * y2  M . . # . T . .      S: live snake body, D: dead body (does not block)
+     * y3  . . . # . . . .      M: mice
+     * y4  . . . # . . . .
+     * y5  . . . . . M . D
+     */
+    private static BoardFrame frame(long epoch) {
+        return new BoardFrame(epoch, W, H,
+                new int[] {c(0, 2), c(5, 5)},
+                new int[] {c(3, 0), c(3, 1), c(3, 2), c(3, 3), c(3, 4)},
+                new int[0],
+                new int[] {c(1, 1), c(5, 2)}, new int[] {c(5, 2), c(1, 1)},
+                new int[][] {{c(6, 0), c(6, 1)}, {c(7, 5)}},
+                new boolean[] {true, false});
+    }
+
+    @Test
+    void distancesMatchAForwardSearchFromEveryCell() {
+        DistanceField field = new DistanceField(W, H);
+        assertEquals(DistanceField.UNREACHABLE, field.distance(0), "no field before the first update");
+        field.update(frame(0));
+        assertEquals(0, field.epoch());
+
+        int[] teleportTo = teleports();
+        boolean[] blocked = blocked();
+        for (int cell = 0; cell < W * H; cell++) {
+            int expected = blocked[cell] ? DistanceField.BLOCKED : forward(cell, blocked, teleportTo);
+            assertEquals(expected, field.distance(cell), "distance of (" + cell % W + ", " + cell / W + ")");
+        }
+
+        // Hand-checked cells
+        assertEquals(0, field.distance(c(0, 2)));
+        assertEquals(1, field.distance(c(7, 2)), "one step right wraps onto the mouse at (0, 2)");
+        assertEquals(1, field.distance(c(0, 3)));
+        assertEquals(DistanceField.BLOCKED, field.distance(c(3, 2)));
+        assertEquals(DistanceField.BLOCKED, field.distance(c(6, 1)));
+        assertEquals(2, field.distance(c(7, 5)), "a dead body does not block");
+    }
+
+    @Test
+    void teleportsShortenPaths() {
+        DistanceField field = new DistanceField(W, H);
+        field.update(frame(0));
+        // (4,2): stepping right onto (5,2) lands on (1,1), two steps from the mouse at (0,2)
+        assertEquals(3, field.distance(c(4, 2)));
+        assertEquals(4, forward(c(4, 2), blocked(), noTeleports()), "without the teleport, around the wall");
+        assertEquals(Direction.RIGHT, field.bestMove(Snake.of(4, 2, Direction.UP)));
+    }
+
+    @Test
+    void bestMoveFollowsTheFieldAndNeverStepsOntoABlockedCell() {
+        DistanceField field = new DistanceField(W, H);
+        assertNull(field.bestMove(Snake.of(0, 0, Direction.UP)), "no field yet");
+        field.update(frame(0));
+        boolean[] blocked = blocked();
+        int[] teleportTo = teleports();
+        for (int cell = 0; cell < W * H; cell++) {
+            if (blocked[cell] || teleportTo[cell] >= 0) continue;
+            for (Direction heading : Direction.values()) {
+                Snake snake = Snake.of(cell % W, cell / W, heading);
+                snake.moved(heading);
+                Direction move = field.bestMove(snake);
+                String where = "(" + cell % W + ", " + cell / W + ") heading " + heading;
+                int best = Integer.MAX_VALUE;
+                for (Direction d : Direction.values()) {
+                    if (d.dx == -heading.dx && d.dy == -heading.dy) continue;
+                    int land = land(cell, d, teleportTo);
+                    if (!blocked[land]) best = Math.min(best, field.distance(land));
+                }
+                if (best == Integer.MAX_VALUE) {
+                    assertNull(move, where);
+                    continue;
+                }
+                assertNotNull(move, where);
+                assertFalse(move.dx == -heading.dx && move.dy == -heading.dy, "reversed at " + where);
+                int land = land(cell, move, teleportTo);
+                assertFalse(blocked[land], "stepped onto a blocked cell at " + where);
+                assertEquals(best, field.distance(land), "not the shortest move at " + where);
+            }
+        }
+    }
+
+    @Test
+    void sameEpochIsNotRecomputedAndSizesMustMatch() {
+        DistanceField field = new DistanceField(W, H);
+        field.update(frame(3));
+        assertEquals(3, field.epoch());
+        field.update(frame(3));
+        assertEquals(3, field.epoch());
+        assertThrows(IllegalArgumentException.class, () -> new DistanceField(W + 1, H).update(frame(4)));
+    }
+
+    /** Moves from 'from' to the nearest mouse, stepping forwards; UNREACHABLE if there is none. */
+    private static int forward(int from, boolean[] blocked, int[] teleportTo) {
+        boolean[] mouse = new boolean[W * H];
+        mouse[c(0, 2)] = mouse[c(5, 5)] = true;
+        int[] dist = new int[W * H];
+        Arrays.fill(dist, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        dist[from] = 0;
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            int v = queue.poll();
+            if (mouse[v]) return dist[v];
+            for (Direction d : Direction.values()) {
+                int u = land(v, d, teleportTo);
+                if (!blocked[u] && dist[u] < 0) {
+                    dist[u] = dist[v] + 1;
+                    queue.add(u);
+                }
+            }
+        }
+        return DistanceField.UNREACHABLE;
+    }
+
+    private static int land(int cell, Direction d, int[] teleportTo) {
+        int t = c(Math.floorMod(cell % W + d.dx, W), Math.floorMod(cell / W + d.dy, H));
+        return teleportTo[t] >= 0 ? teleportTo[t] : t;
+    }
+
+    private static boolean[] blocked() {
+        boolean[] b = new boolean[W * H];
+        for (int y = 0; y < 5; y++) b[c(3, y)] = true;
+        b[c(6, 0)] = b[c(6, 1)] = true;
+        return b;
+    }
+
+    private static int[] teleports() {
+        int[] t = noTeleports();
+        t[c(1, 1)] = c(5, 2);
+        t[c(5, 2)] = c(1, 1);
+        return t;
+    }
+
+    private static int[] noTeleports() {
+        int[] t = new int[W * H];
+        Arrays.fill(t, -1);
+        return t;
+    }
+
+    private static int c(int x, int y) { return y * W + x; }
+}
@@ -0,0 +1,128 @@
+package co.eci.snake.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FreeCellsTest {
+    private static final int TILES = 4;
+    private static final int TILE_CELLS = 16;
+
+    @Test
+    void randomAddsAndRemovesKeepTheIndexConsistent() {
+        FreeCells free = new FreeCells(TILES * TILE_CELLS, TILES, TILE_CELLS);
+        List<Set<Integer>> model = new ArrayList<>();
+        for (int t = 0; t < TILES; t++) model.add(new HashSet<>());
+        Random rnd = new Random(7);
+        for (int op = 0; op < 20_000; op++) {
+            int cell = rnd.nextInt(TILES * TILE_CELLS);
+            int tile = cell / TILE_CELLS;
+            if (rnd.nextBoolean()) {
+                free.add(tile, cell);
+                model.get(tile).add(cell);
+            } else {
+                free.remove(tile, cell);
+                model.get(tile).remove(cell);
+            }
+            if (op % 97 == 0) assertMatches(model, free);
+        }
+        assertMatches(model, free);
+    }
+
+    @Test
+    void tilesOpenOnTheirFirstFreeCellAndCloseOnTheLast() {
+        FreeCells free = new FreeCells(TILES * TILE_CELLS, TILES, TILE_CELLS);
+        Random rnd = new Random(1);
+        assertEquals(0, free.openTiles());
+        assertEquals(-1, free.pickTile(rnd), "an empty index has no tile to pick");
+
+        free.add(2, 2 * TILE_CELLS + 5);
+        assertEquals(1, free.openTiles());
+        assertEquals(2, free.pickTile(rnd));
+        free.add(2, 2 * TILE_CELLS + 5);
+        free.add(2, 2 * TILE_CELLS + 6);
+        assertEquals(1, free.openTiles(), "a second free cell does not reopen the tile");
+        assertEquals(2, free.count(2));
+
+        free.remove(2, 2 * TILE_CELLS + 5);
+        assertEquals(1, free.openTiles());
+        free.remove(2, 2 * TILE_CELLS + 6);
+        free.remove(2, 2 * TILE_CELLS + 6);
+        assertEquals(0, free.openTiles());
+        assertEquals(0, free.count(2));
+        assertEquals(-1, free.pick(2, rnd));
+    }
+
+    @Test
+    void picksAreUniformOverFreeCellsNotOverTiles() {
+        FreeCells free = new FreeCells(2 * TILE_CELLS, 2, TILE_CELLS);
+        free.add(0, 3);                                     // tile 0: a single free cell
+        for (int c = TILE_CELLS; c < 2 * TILE_CELLS; c++) free.add(1, c);
+        Random rnd = new Random(11);
+        int draws = 170_000, lonely = 0;
+        for (int i = 0; i < draws; i++) {
+            int c;
+            do { c = free.pick(free.pickTile(rnd), rnd); } while (c < 0);
+            assertTrue(free.contains(c));
+            if (c == 3) lonely++;
+        }
+        // 1 of 17 free cells: about 10000 draws; picking tiles uniformly would give about 85000
+        assertEquals(draws / 17.0, lonely, draws / 17.0 * 0.05);
+    }
+
+    @Test
+    void nearlyFullBoardPicksUniformlyInOneDraw() {
+        int tiles = 64;
+        FreeCells free = new FreeCells(tiles * TILE_CELLS, tiles, TILE_CELLS);
+        for (int t = 0; t < tiles - 1; t++) free.add(t, t * TILE_CELLS + t % TILE_CELLS);   // one free cell each
+        for (int c = (tiles - 1) * TILE_CELLS; c < tiles * TILE_CELLS; c++) free.add(tiles - 1, c);
+        int freeCells = tiles - 1 + TILE_CELLS;
+        assertEquals(freeCells, free.size());
+
+        Random rnd = new Random(5);
+        int[] hits = new int[tiles * TILE_CELLS];
+        int draws = freeCells * 2_000;
+        for (int i = 0; i < draws; i++) {
+            int c = free.pick(free.pickTile(rnd), rnd);
+            assertTrue(c >= 0, "a single-threaded pick never needs a second draw");
+            hits[c]++;
+        }
+        for (int c = 0; c < hits.length; c++) {
+            if (free.contains(c)) assertEquals(2_000, hits[c], 2_000 * 0.15, "draws of free cell " + c);
+            else assertEquals(0, hits[c], "draws of taken cell " + c);
+        }
+    }
+
+    @Test
+    void addMouseReportsAFullBoard() {
+        Board board = new Board(4, 4, 3L);                  // seeds 12 items on 16 cells
+        int placed = 0;
+        while (board.tryAddMouse()) placed++;
+        assertEquals(4, placed);
+        int items = board.miceSnapshot().size() + board.obstaclesSnapshot().size() + board.turboSnapshot().size();
+        assertEquals(16, items, "every cell holds an item once the board reports full");
+        assertFalse(board.tryAddMouse(), "a full board keeps reporting full");
+    }
+
+    private static void assertMatches(List<Set<Integer>> model, FreeCells free) {
+        int open = 0;
+        for (int t = 0; t < TILES; t++) {
+            Set<Integer> expected = model.get(t);
+            assertEquals(expected.size(), free.count(t), "free count of tile " + t);
+            Set<Integer> actual = new HashSet<>();
+            for (int c : free.cells(t)) assertTrue(actual.add(c), "cell " + c + " listed twice");
+            assertEquals(expected, actual, "free cells of tile " + t);
+            for (int c = t * TILE_CELLS; c < (t + 1) * TILE_CELLS; c++) {
+                assertEquals(expected.contains(c), free.contains(c), "contains(" + c + ")");
+            }
+            if (!expected.isEmpty()) open++;
+        }
+        assertEquals(open, free.openTiles());
+    }
+}
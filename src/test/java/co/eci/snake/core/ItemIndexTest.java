@@ -0,0 +1,135 @@
+package co.eci.snake.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Every query against a brute-force scan, on board sizes that leave partial last tiles. */
+class ItemIndexTest {
+    private static final int[][] SIZES = {
+            {37, 23, 3}, {50, 17, 2}, {17, 50, 4}, {33, 33, 4}, {5, 9, 4}, {64, 48, 4}, {31, 3, 1}
+    };
+
+    @Test
+    void queriesMatchBruteForce() {
+        Random rnd = new Random(19);
+        int queries = 0;
+        for (int[] size : SIZES) {
+            for (boolean viaTeleports : new boolean[] {false, true}) {
+                for (int round = 0; round < 8; round++) {
+                    queries += checkRandomBoard(size[0], size[1], size[2], viaTeleports, rnd);
+                }
+            }
+        }
+        assertTrue(queries > 10_000, "ran " + queries + " queries");
+    }
+
+    @Test
+    void removedItemsAreNoLongerFound() {
+        ItemIndex index = new ItemIndex(37, 23, 3);
+        int a = 5 * 37 + 5, b = 20 * 37 + 30;
+        index.add(a);
+        index.add(b);
+        assertEquals(a, index.nearest(6 * 37 + 6, null, null));
+        index.remove(a);
+        assertEquals(b, index.nearest(6 * 37 + 6, null, null));
+        index.remove(b);
+        assertEquals(-1, index.nearest(6 * 37 + 6, null, null));
+        assertEquals(0, index.nearest(0, 3, null, null).length);
+        assertEquals(0, index.within(0, 100, null, null).length);
+    }
+
+    /** Builds one random index, runs queries from random cells and returns how many were checked. */
+    private static int checkRandomBoard(int width, int height, int shift, boolean viaTeleports, Random rnd) {
+        int cells = width * height;
+        int[] teleportTo = new int[cells];
+        Arrays.fill(teleportTo, -1);
+        List<Integer> teleportList = new ArrayList<>();
+        if (viaTeleports) {
+            for (int p = 0, pairs = 1 + rnd.nextInt(3); p < pairs; p++) {
+                int a = rnd.nextInt(cells), b = rnd.nextInt(cells);
+                if (a == b || teleportTo[a] >= 0 || teleportTo[b] >= 0) continue;
+                teleportTo[a] = b;
+                teleportTo[b] = a;
+                teleportList.add(a);
+                teleportList.add(b);
+            }
+        }
+        int[] teleports = viaTeleports ? teleportList.stream().mapToInt(Integer::intValue).toArray() : null;
+
+        ItemIndex index = new ItemIndex(width, height, shift);
+        Set<Integer> items = new HashSet<>();
+        int count = rnd.nextInt(Math.min(cells, 40) + 1);
+        while (items.size() < count) {
+            int c = rnd.nextInt(cells);
+            if (teleportTo[c] < 0 && items.add(c)) index.add(c);
+        }
+        // Churn a little so buckets have been rebuilt by removes too
+        for (int i = 0; i < count / 3; i++) {
+            int c = items.iterator().next();
+            items.remove(c);
+            index.remove(c);
+        }
+        int[] itemCells = items.stream().mapToInt(Integer::intValue).toArray();
+
+        int checked = 0;
+        for (int q = 0; q < 40; q++) {
+            int from = rnd.nextInt(cells);
+            int[] dist = new int[itemCells.length];
+            for (int i = 0; i < itemCells.length; i++) dist[i] = bruteDistance(width, height, from, itemCells[i], teleports, teleportTo);
+            String where = width + "x" + height + " shift=" + shift + " from=" + from + " teleports=" + teleportList;
+
+            // nearest
+            int best = Arrays.stream(dist).min().orElse(-1);
+            int got = index.nearest(from, teleports, teleportTo);
+            if (itemCells.length == 0) assertEquals(-1, got, where);
+            else assertEquals(best, bruteDistance(width, height, from, got, teleports, teleportTo), "nearest " + where);
+
+            // nearest(k): the k smallest distances, in order, on distinct item cells
+            int k = 1 + rnd.nextInt(6);
+            int[] sorted = dist.clone();
+            Arrays.sort(sorted);
+            int[] nearK = index.nearest(from, k, teleports, teleportTo);
+            assertEquals(Math.min(k, itemCells.length), nearK.length, "nearest(" + k + ") size " + where);
+            assertEquals(nearK.length, Arrays.stream(nearK).distinct().count(), "nearest(k) repeats a cell " + where);
+            for (int i = 0; i < nearK.length; i++) {
+                assertTrue(items.contains(nearK[i]), "nearest(k) returned a non-item " + where);
+                assertEquals(sorted[i], bruteDistance(width, height, from, nearK[i], teleports, teleportTo),
+                        "nearest(" + k + ")[" + i + "] " + where);
+            }
+
+            // within
+            int radius = rnd.nextInt(width / 2 + height / 2 + 2);
+            Set<Integer> expected = new HashSet<>();
+            for (int i = 0; i < itemCells.length; i++) if (dist[i] <= radius) expected.add(itemCells[i]);
+            int[] in = index.within(from, radius, teleports, teleportTo);
+            assertEquals(in.length, Arrays.stream(in).distinct().count(), "within repeats a cell " + where);
+            Set<Integer> actual = new HashSet<>();
+            for (int c : in) actual.add(c);
+            assertEquals(expected, actual, "within(" + radius + ") " + where);
+            checked += 3;
+        }
+        return checked;
+    }
+
+    /** Wrapped Manhattan distance, or through one teleport (step onto it, continue from its partner). */
+    private static int bruteDistance(int width, int height, int from, int to, int[] teleports, int[] teleportTo) {
+        int d = torus(width, height, from, to);
+        if (teleports != null) {
+            for (int t : teleports) d = Math.min(d, torus(width, height, from, t) + torus(width, height, teleportTo[t], to));
+        }
+        return d;
+    }
+
+    private static int torus(int width, int height, int a, int b) {
+        int dx = Math.floorMod(a % width - b % width, width), dy = Math.floorMod(a / width - b / width, height);
+        return Math.min(dx, width - dx) + Math.min(dy, height - dy);
+    }
+}
@@ -0,0 +1,152 @@
+package co.eci.snake.core.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+    /** Runs each batch on the thread that advanced the wheel, so a test controls every tick. */
+    private static final class Inline extends AbstractExecutorService {
+        private volatile boolean shutdown;
+
+        @Override public void execute(Runnable command) {
+            if (shutdown) throw new IllegalStateException("shut down");
+            command.run();
+        }
+        @Override public void shutdown() { shutdown = true; }
+        @Override public List<Runnable> shutdownNow() { shutdown = true; return List.of(); }
+        @Override public boolean isShutdown() { return shutdown; }
+        @Override public boolean isTerminated() { return shutdown; }
+        @Override public boolean awaitTermination(long timeout, TimeUnit unit) { return true; }
+    }
+
+    /** A 1 ms tick, so a delay in milliseconds is also a delay in ticks. */
+    private static TimingWheel wheel() {
+        return new TimingWheel(1, new Inline(), null);
+    }
+
+    @Test
+    void oneShotTasksFireExactlyOnTheirTickOnEveryLevel() {
+        // Level 0 below 2^8 ticks, level 1 below 2^14, level 2 below 2^20, level 3 above; plus each boundary
+        long[] delays = {1, 2, 255, 256, 257, 511, 1000, 16_383, 16_384, 16_385, 50_000,
+                (1 << 20) - 1, 1 << 20, (1 << 20) + 1, 3_000_001};
+        long[] fired = new long[delays.length];
+        long[] tick = {0};
+        TimingWheel wheel = wheel();
+        List<Long> order = new ArrayList<>();
+        for (int i = 0; i < delays.length; i++) {
+            int task = i;
+            wheel.schedule(() -> {
+                fired[task] = tick[0];
+                order.add(delays[task]);
+                return -1;
+            }, delays[i]);
+        }
+        assertEquals(delays.length, wheel.tasks());
+        for (tick[0] = 1; tick[0] <= 3_000_001; tick[0]++) wheel.advance(tick[0]);
+        for (int i = 0; i < delays.length; i++) assertEquals(delays[i], fired[i], "tick of the task delayed " + delays[i]);
+        List<Long> sorted = new ArrayList<>(order);
+        sorted.sort(null);
+        assertEquals(sorted, order, "firing order");
+        assertEquals(0, wheel.tasks());
+        assertEquals(delays.length, wheel.runs());
+    }
+
+    @Test
+    void tasksScheduledMidWayFireOnTime() {
+        // Scheduled from every phase of the level-0 and level-1 rotations, so cascades see all offsets
+        TimingWheel wheel = wheel();
+        List<long[]> expected = new ArrayList<>();
+        List<long[]> seen = new ArrayList<>();
+        long[] tick = {0};
+        for (tick[0] = 1; tick[0] <= 40_000; tick[0]++) {
+            wheel.advance(tick[0]);
+            if (tick[0] % 97 == 0) {
+                long delay = 1 + (tick[0] * 31) % 20_000;
+                long[] entry = {tick[0] + delay, -1};
+                expected.add(entry);
+                wheel.schedule(() -> {
+                    entry[1] = tick[0];
+                    seen.add(entry);
+                    return -1;
+                }, delay);
+            }
+        }
+        for (tick[0] = 40_001; tick[0] <= 61_000; tick[0]++) wheel.advance(tick[0]);
+        for (long[] e : expected) assertEquals(e[0], e[1], "due tick " + e[0]);
+        assertEquals(expected.size(), seen.size());
+    }
+
+    @Test
+    void periodicTasksRescheduleFromTheirDueTickUntilStopped() {
+        TimingWheel wheel = wheel();
+        long[] tick = {0};
+        List<Long> fast = new ArrayList<>(), slow = new ArrayList<>();
+        wheel.schedule(() -> {
+            fast.add(tick[0]);
+            return fast.size() < 10 ? 7 : -1;       // stops itself after ten runs
+        }, 3);
+        wheel.schedule(() -> {
+            slow.add(tick[0]);
+            return 300;                             // past level 0 on every reschedule
+        }, 300);
+        for (tick[0] = 1; tick[0] <= 1500; tick[0]++) wheel.advance(tick[0]);
+        assertEquals(List.of(3L, 10L, 17L, 24L, 31L, 38L, 45L, 52L, 59L, 66L), fast);
+        assertEquals(List.of(300L, 600L, 900L, 1200L, 1500L), slow);
+        assertEquals(1, wheel.tasks(), "the fast task cancelled itself by returning a negative delay");
+    }
+
+    @Test
+    void failingTaskIsDropped() {
+        TimingWheel wheel = wheel();
+        AtomicInteger runs = new AtomicInteger();
+        wheel.schedule(() -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }, 5);
+        for (long t = 1; t <= 100; t++) wheel.advance(t);
+        assertEquals(1, runs.get());
+        assertEquals(0, wheel.tasks());
+    }
+
+    @Test
+    void realTimerNeverFiresEarlyAndStopsOnClose() throws InterruptedException {
+        long tickMillis = 2;
+        TimingWheel wheel = new TimingWheel(tickMillis, 2, null);
+        long[] delays = {2, 9, 40, 300, 700};       // 300 and 700 ms start beyond level 0
+        ConcurrentLinkedQueue<long[]> fired = new ConcurrentLinkedQueue<>();
+        AtomicInteger periodic = new AtomicInteger();
+        for (long d : delays) {
+            wheel.schedule(() -> {
+                fired.add(new long[] {d, System.nanoTime()});
+                return -1;
+            }, d);
+        }
+        wheel.schedule(() -> {
+            periodic.incrementAndGet();
+            return 4;
+        }, 4);
+        long start = System.nanoTime();
+        wheel.start();
+        long deadline = start + TimeUnit.SECONDS.toNanos(10);
+        while (fired.size() < delays.length) {
+            assertTrue(System.nanoTime() < deadline, "tasks did not all fire");
+            Thread.sleep(5);
+        }
+        wheel.close();
+        for (long[] f : fired) {
+            assertTrue(f[1] - start >= TimeUnit.MILLISECONDS.toNanos(f[0]), "task delayed " + f[0] + " ms fired early");
+        }
+        assertTrue(periodic.get() > 10);
+        int after = periodic.get();
+        Thread.sleep(50);
+        assertEquals(after, periodic.get(), "nothing runs once closed");
+    }
+}
@@ -0,0 +1,141 @@
+package co.eci.snake.host;
+
+import co.eci.snake.core.Board;
+import co.eci.snake.core.Snake;
+import co.eci.snake.core.engine.GameSetup;
+import co.eci.snake.metrics.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomTest {
+    private static final long PERIOD = 80, BUDGET = 1_000_000;
+
+    /** Clock where every tick takes exactly 'cost[0]' nanoseconds. */
+    private static Room room(long[] cost, Histogram hostTicks) {
+        Board board = new Board(30, 30, 7);
+        List<Snake> snakes = GameSetup.snakes(board, 3);
+        AtomicLong now = new AtomicLong();
+        return new Room(1, board, snakes, 7, PERIOD, BUDGET, hostTicks, () -> now.getAndAdd(cost[0]));
+    }
+
+    @Test
+    void overrunsPushTheNextTickBackByWholePeriods() {
+        long[] cost = {BUDGET};
+        Histogram hostTicks = new Histogram();
+        Room room = room(cost, hostTicks);
+
+        assertEquals(PERIOD, room.tick(), "exactly on budget");
+        cost[0] = 1;
+        assertEquals(PERIOD, room.tick());
+        assertEquals(0, room.overruns());
+
+        cost[0] = BUDGET + 1;
+        assertEquals(2 * PERIOD, room.tick(), "just over budget costs a whole period");
+        cost[0] = 3 * BUDGET;
+        assertEquals(3 * PERIOD, room.tick());
+        cost[0] = 3 * BUDGET + 1;
+        assertEquals(4 * PERIOD, room.tick());
+        cost[0] = 1000 * BUDGET;
+        assertEquals(Room.MAX_BACKOFF * PERIOD, room.tick(), "backoff is capped");
+        assertEquals(4, room.overruns());
+
+        cost[0] = BUDGET / 2;
+        assertEquals(PERIOD, room.tick(), "back on budget, back on period");
+        assertEquals(4, room.overruns());
+
+        long total = BUDGET + 1 + (BUDGET + 1) + 3 * BUDGET + (3 * BUDGET + 1) + 1000 * BUDGET + BUDGET / 2;
+        assertEquals(7, room.ticks());
+        assertEquals(total, room.tickNanos());
+        assertEquals(1000 * BUDGET, room.maxTickNanos());
+        assertEquals(7, hostTicks.count());
+        assertEquals(total, hostTicks.sum());
+    }
+
+    @Test
+    void pausedRoomsWaitWithoutTicking() {
+        Room room = room(new long[] {1}, new Histogram());
+        room.tick();
+        assertTrue(room.pause());
+        assertFalse(room.pause());
+        assertEquals(Room.State.PAUSED, room.state());
+        for (int i = 0; i < 5; i++) assertEquals(PERIOD, room.tick(), "a paused room keeps its slot");
+        assertEquals(1, room.ticks());
+        assertTrue(room.resume());
+        assertFalse(room.resume());
+        room.tick();
+        assertEquals(2, room.ticks());
+    }
+
+    @Test
+    void closedAndFinishedRoomsStopTicking() {
+        Room closed = room(new long[] {1}, new Histogram());
+        closed.tick();
+        closed.close();
+        assertEquals(Room.State.CLOSED, closed.state());
+        assertEquals(-1, closed.tick());
+        assertFalse(closed.pause());
+        assertFalse(closed.resume());
+        assertEquals(1, closed.ticks());
+
+        Room finished = room(new long[] {1}, new Histogram());
+        for (Snake s : finished.snakes()) s.kill();
+        assertEquals(-1, finished.tick(), "the tick that finds no snake alive is the last");
+        assertEquals(Room.State.FINISHED, finished.state());
+        assertEquals(0, finished.alive());
+        assertEquals(-1, finished.tick());
+        assertEquals(1, finished.ticks());
+    }
+
+    @Test
+    void removedRoomsAndClosedHostsStopTicking() throws InterruptedException {
+        try (RoomHost host = new RoomHost(1)) {
+            Room kept = host.create(20, 20, 2, 1, 5, BUDGET);
+            Room gone = host.create(20, 20, 2, 2, 5, BUDGET);
+            assertEquals(2, host.size());
+            waitForTicks(kept);
+            waitForTicks(gone);
+
+            assertTrue(host.remove(gone.id()));
+            assertFalse(host.remove(gone.id()));
+            assertNull(host.room(gone.id()));
+            assertEquals(Room.State.CLOSED, gone.state());
+            assertEquals(1, host.size());
+            assertEquals(2, host.created());
+            assertEquals(1, host.removed());
+
+            Thread.sleep(20); // a tick already running when the room was removed may still finish
+            long goneTicks = gone.ticks(), keptTicks = kept.ticks();
+            Thread.sleep(100);
+            assertEquals(goneTicks, gone.ticks(), "a removed room is not ticked again");
+            assertTrue(kept.ticks() > keptTicks || kept.state() == Room.State.FINISHED, "the other room keeps going");
+
+            host.close();
+            assertEquals(0, host.size());
+            assertEquals(Room.State.CLOSED, kept.state());
+            keptTicks = kept.ticks();
+            Thread.sleep(100);
+            assertEquals(keptTicks, kept.ticks(), "a closed host ticks nothing");
+        }
+    }
+
+    @Test
+    void hostRejectsInvalidPeriodsAndBudgets() {
+        try (RoomHost host = new RoomHost(1)) {
+            assertThrows(IllegalArgumentException.class, () -> host.create(20, 20, 1, 1, 0, BUDGET));
+            assertThrows(IllegalArgumentException.class, () -> host.create(20, 20, 1, 1, 80, 0));
+            assertEquals(0, host.size());
+        }
+    }
+
+    private static void waitForTicks(Room room) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (room.ticks() == 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "room " + room.id() + " never ticked");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package co.eci.snake.persist;
+
+import co.eci.snake.concurrency.LockstepEngine;
+import co.eci.snake.core.Board;
+import co.eci.snake.core.BoardState;
+import co.eci.snake.core.Direction;
+import co.eci.snake.core.Position;
+import co.eci.snake.core.Snake;
+import co.eci.snake.core.engine.GameSetup;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointTest {
+    @TempDir Path dir;
+
+    @Test
+    void writeLoadRestoreRoundTripsTheWholeGame() throws Exception {
+        Board board = new Board(40, 30, 5L);
+        board.addTeleportPair(new Position(3, 3), new Position(35, 25));
+        board.addTeleportPair(new Position(20, 1), new Position(1, 20));
+        List<Snake> snakes = GameSetup.snakes(board, 10);
+        try (LockstepEngine engine = LockstepEngine.sequential(board, snakes, 9L)) {
+            for (int t = 0; t < 150; t++) engine.run();
+        }
+        assertTrue(snakes.stream().anyMatch(s -> !s.isAlive()), "dead snakes must round-trip too");
+        assertTrue(snakes.stream().anyMatch(s -> s.isAlive() && s.snapshot().size() > 1));
+
+        // Distinct, multi-byte turbo values per snake so a misplaced offset cannot go unnoticed
+        Checkpoint saved = Checkpoint.capture(board, snakes, i -> 1000 * i + 7);
+        Path file = dir.resolve("game.snkc");
+        saved.write(file);
+        assertFalse(Files.exists(dir.resolve("game.snkc.tmp")), "the temporary file is renamed away");
+
+        Checkpoint loaded = Checkpoint.load(file);
+        assertEquals(snakes.size(), loaded.snakeCount());
+        for (int i = 0; i < snakes.size(); i++) assertEquals(1000 * i + 7, loaded.turboTicks(i), "turbo of snake " + i);
+        assertArrayEquals(encode(saved.state()), encode(loaded.state()), "state survives write/load byte for byte");
+
+        List<Snake> restoredSnakes = new ArrayList<>();
+        Board restored = loaded.restore(restoredSnakes);
+        assertEquals(board.width(), restored.width());
+        assertEquals(board.height(), restored.height());
+        assertEquals(new HashSet<>(board.miceSnapshot()), new HashSet<>(restored.miceSnapshot()));
+        assertEquals(new HashSet<>(board.obstaclesSnapshot()), new HashSet<>(restored.obstaclesSnapshot()));
+        assertEquals(new HashSet<>(board.turboSnapshot()), new HashSet<>(restored.turboSnapshot()));
+        assertEquals(board.teleportsSnapshot(), restored.teleportsSnapshot());
+        assertEquals(snakes.size(), restoredSnakes.size());
+        for (int i = 0; i < snakes.size(); i++) {
+            Snake a = snakes.get(i), b = restoredSnakes.get(i);
+            assertEquals(a.snapshot(), b.snapshot(), "body of snake " + i);
+            assertEquals(a.direction(), b.direction(), "direction of snake " + i);
+            assertEquals(a.isAlive(), b.isAlive(), "alive of snake " + i);
+        }
+        assertArrayEquals(encode(saved.state()), encode(restored.captureState(restoredSnakes)),
+                "capturing the restored board gives the saved state back");
+
+        try (LockstepEngine engine = LockstepEngine.sequential(restored, restoredSnakes, 9L)) {
+            for (int i = 0; i < restoredSnakes.size(); i++) engine.restoreTurboTicks(i, loaded.turboTicks(i));
+            for (int i = 0; i < restoredSnakes.size(); i++) assertEquals(1000 * i + 7, engine.turboTicks(i));
+        }
+
+        // Owners: a new snake can only be placed on a cell no live body covers. Last, since it adds snakes.
+        Set<Position> covered = new HashSet<>();
+        for (Snake s : restoredSnakes) if (s.isAlive()) covered.addAll(s.snapshot());
+        for (int y = 0; y < restored.height(); y++) {
+            for (int x = 0; x < restored.width(); x++) {
+                Position p = new Position(x, y);
+                assertEquals(!covered.contains(p), restored.addSnake(Snake.of(x, y, Direction.UP)), "owner of " + p);
+            }
+        }
+    }
+
+    @Test
+    void loadRejectsOtherFiles() throws Exception {
+        Path file = dir.resolve("not-a-checkpoint");
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+        assertThrows(IOException.class, () -> Checkpoint.load(file));
+    }
+
+    private static byte[] encode(BoardState state) {
+        ByteBuffer out = ByteBuffer.allocate(state.encodedSize());
+        state.writeTo(out);
+        return out.array();
+    }
+}
@@ -0,0 +1,132 @@
+package co.eci.snake.replay;
+
+import co.eci.snake.concurrency.LockstepEngine;
+import co.eci.snake.core.Board;
+import co.eci.snake.core.Direction;
+import co.eci.snake.core.Position;
+import co.eci.snake.core.Snake;
+import co.eci.snake.core.engine.GameSetup;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayTest {
+    private static final int KEYFRAME_TICKS = 50;
+
+    @TempDir Path dir;
+
+    /** Everything a replay must reproduce; item lists compared as sets since their order is not part of the game. */
+    record State(Set<Position> mice, Set<Position> obstacles, Set<Position> turbo, Map<Position, Position> teleports,
+                 List<List<Position>> bodies, List<Boolean> alive) {
+        static State of(Board board, List<Snake> snakes) {
+            List<List<Position>> bodies = new ArrayList<>();
+            List<Boolean> alive = new ArrayList<>();
+            for (Snake s : snakes) {
+                bodies.add(s.snapshot());
+                alive.add(s.isAlive());
+            }
+            return new State(new HashSet<>(board.miceSnapshot()), new HashSet<>(board.obstaclesSnapshot()),
+                    new HashSet<>(board.turboSnapshot()), new HashMap<>(board.teleportsSnapshot()), bodies, alive);
+        }
+    }
+
+    @Test
+    void lockstepGameReplaysAndSeeksExactly() throws Exception {
+        Board board = new Board(48, 32, 42L);
+        board.addTeleportPair(new Position(5, 5), new Position(40, 25));
+        List<Snake> snakes = GameSetup.snakes(board, 12);
+        Path file = dir.resolve("lockstep.snkr");
+        int ticks = 400;
+        Map<Long, State> checkpoints = new HashMap<>();
+        try (ReplayRecorder recorder = ReplayRecorder.start(file, board, snakes, KEYFRAME_TICKS);
+             LockstepEngine engine = LockstepEngine.sequential(board, snakes, 7L)) {
+            checkpoints.put(0L, State.of(board, snakes));
+            for (long t = 1; t <= ticks; t++) {
+                engine.run();
+                recorder.tick();
+                if (t == 150 || t == 200 || t == 230) checkpoints.put(t, State.of(board, snakes));
+            }
+        }
+        State end = State.of(board, snakes);
+        assertTrue(end.alive().contains(false), "the game should include deaths so bodies are cleared");
+
+        Replay replay = Replay.open(file);
+        assertEquals(ticks, replay.totalTicks());
+        assertEquals(checkpoints.get(0L), State.of(replay.board(), replay.snakes()), "initial keyframe");
+        replay.playToEnd();
+        assertEquals(0, replay.divergences());
+        assertEquals(ticks, replay.tick());
+        assertEquals(end, State.of(replay.board(), replay.snakes()));
+
+        // Backwards onto a keyframe, forwards past one, and back to the start
+        for (long t : new long[] {200, 230, 150, 0}) {
+            replay.seek(t);
+            assertEquals(t, replay.tick());
+            assertEquals(0, replay.divergences(), "divergences after seeking to " + t);
+            assertEquals(checkpoints.get(t), State.of(replay.board(), replay.snakes()), "state at tick " + t);
+        }
+        replay.playToEnd();
+        assertEquals(end, State.of(replay.board(), replay.snakes()));
+    }
+
+    // The race needs an unlucky preemption; on one CPU a single run rarely hits it
+    @RepeatedTest(20)
+    void freeRunningGameWithDeathsReplaysWithoutDivergence() throws Exception {
+        // Crowded board, one thread per snake: snakes keep running into bodies that are being cleared
+        Board board = new Board(24, 24, 3L);
+        List<Snake> snakes = GameSetup.snakes(board, 40);
+        Path file = dir.resolve("free.snkr");
+        ExecutorService pool = Executors.newFixedThreadPool(snakes.size());
+        try (ReplayRecorder recorder = ReplayRecorder.start(file, board, snakes, KEYFRAME_TICKS)) {
+            List<Future<?>> runners = new ArrayList<>();
+            for (int i = 0; i < snakes.size(); i++) {
+                Snake snake = snakes.get(i);
+                SplittableRandom rnd = new SplittableRandom(i);
+                runners.add(pool.submit(() -> {
+                    for (int s = 0; s < 5000 && snake.isAlive(); s++) {
+                        if (rnd.nextInt(4) == 0) snake.turn(Direction.values()[rnd.nextInt(4)]);
+                        if (board.step(snake) == Board.MoveResult.HIT_OBSTACLE) snake.turn(Direction.values()[rnd.nextInt(4)]);
+                    }
+                }));
+            }
+            while (!runners.stream().allMatch(Future::isDone)) {
+                recorder.tick();
+                Thread.sleep(1);
+            }
+            for (Future<?> f : runners) f.get(60, TimeUnit.SECONDS);
+            recorder.tick();
+        } finally {
+            pool.shutdownNow();
+        }
+        State end = State.of(board, snakes);
+        assertTrue(end.alive().stream().filter(a -> !a).count() > 10, "most snakes should die");
+
+        Replay replay = Replay.open(file);
+        replay.playToEnd();
+        assertEquals(0, replay.divergences());
+        assertEquals(end, State.of(replay.board(), replay.snakes()));
+
+        // Keyframes taken mid-game restore a consistent board, so playing on from any of them agrees too
+        for (long t = replay.totalTicks() / 2; t > 0; t /= 2) {
+            replay.seek(t);
+            replay.playToEnd();
+            assertEquals(0, replay.divergences(), "divergences after seeking to " + t);
+            assertEquals(end, State.of(replay.board(), replay.snakes()));
+        }
+    }
+}
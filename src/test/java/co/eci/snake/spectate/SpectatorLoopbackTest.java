@@ -0,0 +1,125 @@
+package co.eci.snake.spectate;
+
+import co.eci.snake.concurrency.LockstepEngine;
+import co.eci.snake.core.Board;
+import co.eci.snake.core.BoardFrame;
+import co.eci.snake.core.Position;
+import co.eci.snake.core.Snake;
+import co.eci.snake.core.engine.GameSetup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpectatorLoopbackTest {
+    private static final String[] PROPERTIES = {"spectate.pollMs", "spectate.clientBufferBytes", "spectate.socketBufferBytes"};
+
+    @AfterEach
+    void clearProperties() {
+        for (String p : PROPERTIES) System.clearProperty(p);
+    }
+
+    /** Runs a seeded lockstep game, publishing a frame per tick, until stopped or 'ticks' ran. */
+    private static final class Game implements Runnable {
+        final Board board;
+        final List<Snake> snakes;
+        final long ticks;
+        final Map<Long, BoardFrame> published = new ConcurrentHashMap<>();
+        final AtomicReference<BoardFrame> last = new AtomicReference<>();
+        final AtomicBoolean stop = new AtomicBoolean();
+        final Thread thread = new Thread(this, "game");
+
+        Game(Board board, int snakes, long ticks) {
+            this.board = board;
+            this.snakes = GameSetup.snakes(board, snakes);
+            this.ticks = ticks;
+        }
+
+        @Override public void run() {
+            try (LockstepEngine engine = LockstepEngine.sequential(board, snakes, 11L)) {
+                for (long t = 0; t < ticks && !stop.get(); t++) {
+                    engine.run();
+                    BoardFrame f = board.publishFrame(snakes);
+                    published.put(f.epoch(), f);
+                    last.set(f);
+                    Thread.sleep(1);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Test
+    void clientRebuildsEveryFrameItReceives() throws Exception {
+        Board board = new Board(60, 40, 21L);
+        board.addTeleportPair(new Position(4, 4), new Position(50, 30));
+        Game game = new Game(board, 20, 300);
+        try (SpectatorServer server = SpectatorServer.start(board, 0);
+             SpectatorClient client = new SpectatorClient("localhost", server.port())) {
+            awaitClients(server, 1);
+            game.thread.start();
+            game.thread.join(TimeUnit.SECONDS.toMillis(30));
+            BoardFrame end = game.last.get();
+            assertTrue(end.epoch() > 0);
+
+            while (client.epoch() != end.epoch()) {
+                assertTrue(client.next(), "server closed the stream early");
+                assertTrue(client.matches(game.published.get(client.epoch())), "state at epoch " + client.epoch());
+            }
+            assertTrue(client.matches(end));
+            assertEquals(1, client.keyframes(), "a client that keeps up needs a single keyframe");
+            assertTrue(client.deltas() > 0);
+            assertEquals(0, server.drops());
+        }
+    }
+
+    @Test
+    void slowClientIsDroppedAndResyncsFromAKeyframe() throws Exception {
+        System.setProperty("spectate.pollMs", "1");
+        System.setProperty("spectate.clientBufferBytes", "16384");
+        System.setProperty("spectate.socketBufferBytes", "4096");
+        Board board = new Board(160, 120, 22L);
+        Game game = new Game(board, 300, Long.MAX_VALUE);
+        try (SpectatorServer server = SpectatorServer.start(board, 0);
+             SpectatorClient client = new SpectatorClient("localhost", server.port())) {
+            awaitClients(server, 1);
+            game.thread.start();
+            try {
+                // Do not read until the server has given up on the backlog at least once
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+                while (server.drops() == 0) {
+                    assertTrue(System.nanoTime() < deadline, "client was never dropped");
+                    Thread.sleep(5);
+                }
+                // Every message applied, stale or not, must leave the client exactly on some published frame
+                while (client.keyframes() < 2 || client.deltas() < 5) {
+                    assertTrue(client.next(), "server closed the stream early");
+                    BoardFrame f = game.published.get(client.epoch());
+                    assertNotNull(f, "unknown epoch " + client.epoch());
+                    assertTrue(client.matches(f), "state at epoch " + client.epoch());
+                    assertTrue(System.nanoTime() < deadline + TimeUnit.SECONDS.toNanos(30), "client never resynced");
+                }
+            } finally {
+                game.stop.set(true);
+                game.thread.join();
+            }
+            assertTrue(server.keyframesSent() >= 2);
+        }
+    }
+
+    private static void awaitClients(SpectatorServer server, int n) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (server.clients() < n) {
+            assertTrue(System.nanoTime() < deadline, "client never connected");
+            Thread.sleep(1);
+        }
+    }
+}